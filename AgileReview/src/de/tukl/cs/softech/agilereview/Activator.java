@@ -3,6 +3,7 @@ package de.tukl.cs.softech.agilereview;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
 
 /**
@@ -42,6 +43,7 @@ public class Activator extends AbstractUIPlugin {
      */
     @Override
     public void stop(BundleContext context) throws Exception {
+        ReviewAccess.shutdown();
         plugin = null;
         super.stop(context);
     }
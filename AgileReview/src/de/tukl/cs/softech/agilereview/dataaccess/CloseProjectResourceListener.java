@@ -198,8 +198,7 @@ public class CloseProjectResourceListener implements IResourceChangeListener {
                                 Display.getDefault().asyncExec(new Runnable() {
                                     @Override
                                     public void run() {
-                                        while (PlatformUI.getWorkbench() == null) {
-                                        }
+                                        if (!PlatformUI.isWorkbenchRunning()) { return; }
                                         PlatformUI.getWorkbench().getDecoratorManager().update("de.tukl.cs.softech.agilereview.active_decorator");
                                     }
                                 });
@@ -220,7 +219,7 @@ public class CloseProjectResourceListener implements IResourceChangeListener {
                         for (IResourceDelta delta : event.getDelta().getAffectedChildren()) {
                             if (oldSourceProject.equals(delta.getResource())) {
                                 // Mantis tracker issue no. 141, Github issue #1
-                                ReviewAccess.getInstance().doGlobalRefresh();
+                                ReviewAccess.getInstance().doGlobalRefresh(delta);
                                 break;
                             }
                         }
@@ -0,0 +1,395 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
+
+import agileReview.softech.tukl.de.CommentDocument;
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
+
+/**
+ * Append-only journal of comment mutations. In journal mode, changes of a comment are appended to a per-author log in the state location of the
+ * plugin instead of rewriting the whole author file. The logs are replayed when the author file is loaded and compacted back into the author file
+ * when they grow too large, shortly after they have been written ({@link #COMPACTION_DELAY}), when the review is closed or the plugin is stopped.
+ * Every entry records the stamp of the author file it is based on. A journal whose author file has been changed by someone else in the meantime
+ * is not replayed. It is kept as a rejected journal next to the other journals and the user is told where to find it, so no edit gets lost.
+ */
+class CommentJournal {
+
+    /**
+     * Operation of a journal entry
+     */
+    enum Operation {
+        /**
+         * A comment has been created
+         */
+        CREATE,
+        /**
+         * A comment (or one of its replies) has been changed
+         */
+        UPDATE,
+        /**
+         * A comment has been deleted
+         */
+        DELETE
+    }
+
+    /**
+     * Entry of the journal
+     */
+    static class JournalEntry {
+        /**
+         * Operation of this entry
+         */
+        private final Operation operation;
+        /**
+         * Path of the commented file
+         */
+        private final String path;
+        /**
+         * Id of the comment
+         */
+        private final String commentId;
+        /**
+         * Xml representation of the comment (empty for {@link Operation#DELETE})
+         */
+        private final String commentXml;
+
+        /**
+         * Creates a new journal entry
+         * @param operation operation of this entry
+         * @param path path of the commented file
+         * @param commentId id of the comment
+         * @param commentXml xml representation of the comment
+         */
+        private JournalEntry(Operation operation, String path, String commentId, String commentXml) {
+            this.operation = operation;
+            this.path = path;
+            this.commentId = commentId;
+            this.commentXml = commentXml;
+        }
+
+        /**
+         * @return the operation of this entry
+         */
+        Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return the path of the commented file
+         */
+        String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the id of the comment
+         */
+        String getCommentId() {
+            return commentId;
+        }
+
+        /**
+         * @return the xml representation of the comment (empty for {@link Operation#DELETE})
+         */
+        String getCommentXml() {
+            return commentXml;
+        }
+    }
+
+    /**
+     * Identifier at the beginning of a journal file
+     */
+    private static final int MAGIC = 0x41524a32;
+
+    /**
+     * Name of the journal folder within the state location
+     */
+    private static final String JOURNAL_FOLDER = "journal";
+
+    /**
+     * File extension of the journal files
+     */
+    private static final String JOURNAL_EXTENSION = ".journal";
+
+    /**
+     * File extension of journals which have been rejected as their author file has been changed in the meantime
+     */
+    private static final String REJECTED_EXTENSION = ".rejected";
+
+    /**
+     * Size in bytes after which a journal will be compacted into its author file
+     */
+    static final long COMPACTION_THRESHOLD = 512 * 1024;
+
+    /**
+     * Delay in milliseconds after which journaled changes are compacted into their author files, so that the shared author files do not lag
+     * behind for long
+     */
+    static final long COMPACTION_DELAY = 30 * 1000;
+
+    /**
+     * Unique instance of the journal
+     */
+    private static final CommentJournal instance = new CommentJournal();
+
+    /**
+     * Returns the unique instance of the journal
+     * @return the unique instance of the journal
+     */
+    static CommentJournal getInstance() {
+        return instance;
+    }
+
+    /**
+     * Checks whether journal mode is enabled
+     * @return <i>true</i> if comment mutations should be journaled, <i>false</i> otherwise
+     */
+    boolean isEnabled() {
+        return PropertiesManager.getPreferences().getBoolean(PropertiesManager.EXTERNAL_KEYS.JOURNAL_ENABLED);
+    }
+
+    /**
+     * Returns the folder containing all journal files
+     * @return the journal folder or <i>null</i> if the plugin is not active
+     */
+    private static File getJournalFolder() {
+        Activator plugin = Activator.getDefault();
+        if (plugin == null) { return null; }
+        File folder = plugin.getStateLocation().append(JOURNAL_FOLDER).toFile();
+        folder.mkdirs();
+        return folder;
+    }
+
+    /**
+     * Returns the journal file of the given author file
+     * @param authorFile author file
+     * @return the journal file or <i>null</i> if the plugin is not active
+     */
+    private static File getJournalFile(IFile authorFile) {
+        File folder = getJournalFolder();
+        if (folder == null) { return null; }
+        try {
+            return new File(folder, URLEncoder.encode(authorFile.getFullPath().toString(), "UTF-8") + JOURNAL_EXTENSION);
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the current stamp of the given author file. The stamp is taken from the file system, as the author files are written without
+     * refreshing the workspace.
+     * @param authorFile author file
+     * @return last modification time and size of the author file
+     */
+    private static long[] getBaseStamp(IFile authorFile) {
+        File file = authorFile.getLocation() == null ? null : authorFile.getLocation().toFile();
+        if (file == null) { return new long[] { -1, -1 }; }
+        return new long[] { file.lastModified(), file.length() };
+    }
+
+    /**
+     * Appends a mutation of a comment to the journal of the given author file
+     * @param authorFile author file the comment is stored in
+     * @param operation performed operation
+     * @param path path of the commented file
+     * @param commentId id of the comment
+     * @param comment changed comment (ignored for {@link Operation#DELETE})
+     * @return the size of the journal after appending the entry
+     * @throws IOException if the entry could not be written
+     */
+    synchronized long append(IFile authorFile, Operation operation, String path, String commentId, Comment comment) throws IOException {
+        File journal = getJournalFile(authorFile);
+        if (journal == null) { throw new IOException("Journal is not available as the plugin is not active"); }
+
+        String xml = "";
+        if (operation != Operation.DELETE) {
+            CommentDocument doc = CommentDocument.Factory.newInstance();
+            doc.setComment(comment);
+            xml = doc.xmlText();
+        }
+        byte[] xmlBytes = xml.getBytes("UTF-8");
+        long[] stamp = getBaseStamp(authorFile);
+
+        boolean newJournal = !journal.exists() || journal.length() == 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journal, true)));
+        try {
+            if (newJournal) {
+                out.writeInt(MAGIC);
+            }
+            out.writeByte(operation.ordinal());
+            out.writeLong(stamp[0]);
+            out.writeLong(stamp[1]);
+            out.writeUTF(path);
+            out.writeUTF(commentId);
+            out.writeInt(xmlBytes.length);
+            out.write(xmlBytes);
+        } finally {
+            out.close();
+        }
+        return journal.length();
+    }
+
+    /**
+     * Reads all entries of the journal of the given author file. A truncated last entry (e.g. after a crash) will be ignored. If the author file
+     * has been changed since an entry was appended (e.g. by a teammate's commit), the journal is outdated and will be rejected (see
+     * {@link #reject(IFile, File)}).
+     * @param authorFile author file
+     * @return all entries in the order they were appended or an empty list if the journal has been rejected
+     */
+    synchronized List<JournalEntry> read(IFile authorFile) {
+        List<JournalEntry> result = new ArrayList<JournalEntry>();
+        File journal = getJournalFile(authorFile);
+        if (journal == null || !journal.exists() || journal.length() == 0) { return result; }
+
+        long[] stamp = getBaseStamp(authorFile);
+        boolean outdated = false;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+            if (in.readInt() != MAGIC) {
+                PluginLogger.logWarning(this.getClass().toString(), "read", "Journal " + journal + " has an unknown format and will be rejected");
+                outdated = true;
+            }
+            while (!outdated) {
+                int op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                long baseTimeStamp = in.readLong();
+                long baseSize = in.readLong();
+                String path = in.readUTF();
+                String commentId = in.readUTF();
+                byte[] xmlBytes = new byte[in.readInt()];
+                in.readFully(xmlBytes);
+                if (baseTimeStamp != stamp[0] || baseSize != stamp[1]) {
+                    PluginLogger.logWarning(this.getClass().toString(), "read", "Author file " + authorFile
+                            + " has been changed since it was journaled. Rejecting journal " + journal);
+                    outdated = true;
+                } else {
+                    result.add(new JournalEntry(Operation.values()[op], path, commentId, new String(xmlBytes, "UTF-8")));
+                }
+            }
+        } catch (EOFException e) {
+            PluginLogger.logWarning(this.getClass().toString(), "read", "Ignoring truncated entry at the end of journal " + journal);
+        } catch (IOException e) {
+            PluginLogger.logError(this.getClass().toString(), "read", "Journal " + journal + " could not be read completely", e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // nothing to do
+                }
+            }
+        }
+        if (outdated) {
+            result.clear();
+            reject(authorFile, journal);
+        }
+        return result;
+    }
+
+    /**
+     * Moves an outdated journal out of the way instead of deleting it, so that the journaled edits can still be recovered manually, and tells the
+     * user about it. The rejected journal is not replayed or compacted anymore.
+     * @param authorFile author file of the journal
+     * @param journal journal file
+     */
+    private void reject(final IFile authorFile, File journal) {
+        String name = journal.getName();
+        File rejected = new File(journal.getParentFile(), name + REJECTED_EXTENSION);
+        if (rejected.exists()) {
+            rejected = new File(journal.getParentFile(), name + "." + System.currentTimeMillis() + REJECTED_EXTENSION);
+        }
+        final String location;
+        if (journal.renameTo(rejected)) {
+            location = rejected.getAbsolutePath();
+            PluginLogger.logWarning(this.getClass().toString(), "reject", "Journal of " + authorFile + " has been moved to " + location);
+        } else {
+            // Keep the journal in place: it stays on disk, but will be rejected again on the next load
+            location = journal.getAbsolutePath();
+            PluginLogger.logError(this.getClass().toString(), "reject", "Journal " + journal + " could not be moved to " + rejected);
+        }
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                if (!PlatformUI.isWorkbenchRunning()) { return; }
+                MessageDialog.openWarning(Display.getDefault().getActiveShell(), "AgileReview: Journal rejected", "The comment file "
+                        + authorFile.getFullPath() + " has been changed outside of AgileReview after some of your edits had been journaled. "
+                        + "Your journaled edits have not been applied, but have been kept in:\n" + location);
+            }
+        });
+    }
+
+    /**
+     * Checks whether there are journal entries for the given author file
+     * @param authorFile author file
+     * @return <i>true</i> if a non-empty journal exists for the given author file, <i>false</i> otherwise
+     */
+    synchronized boolean hasEntries(IFile authorFile) {
+        File journal = getJournalFile(authorFile);
+        return journal != null && journal.length() > 0;
+    }
+
+    /**
+     * Removes the journal of the given author file. Has to be called whenever the author file has been written completely.
+     * @param authorFile author file
+     */
+    synchronized void clear(IFile authorFile) {
+        File journal = getJournalFile(authorFile);
+        if (journal != null && journal.exists() && !journal.delete()) {
+            PluginLogger.logWarning(this.getClass().toString(), "clear", "Journal " + journal + " could not be deleted");
+        }
+    }
+
+    /**
+     * Returns all author files for which journal entries exist
+     * @return all author files with journal entries
+     */
+    synchronized List<IFile> getJournaledFiles() {
+        List<IFile> result = new ArrayList<IFile>();
+        File folder = getJournalFolder();
+        if (folder == null) { return result; }
+        File[] journals = folder.listFiles();
+        if (journals == null) { return result; }
+        for (File journal : journals) {
+            String name = journal.getName();
+            if (name.endsWith(JOURNAL_EXTENSION) && journal.length() > 0) {
+                try {
+                    String path = URLDecoder.decode(name.substring(0, name.length() - JOURNAL_EXTENSION.length()), "UTF-8");
+                    result.add(ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(path)));
+                } catch (UnsupportedEncodingException e) {
+                    // UTF-8 is always supported
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return result;
+    }
+}
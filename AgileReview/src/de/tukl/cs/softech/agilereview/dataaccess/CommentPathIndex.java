@@ -0,0 +1,155 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+
+/**
+ * Prefix trie over the path segments of commented files. Every node represents one project, folder or file name and holds the comments which are
+ * directly associated with the path ending at this node. Prefix queries behave exactly like {@link String#startsWith(String)} on the joined path.
+ */
+class CommentPathIndex {
+
+    /**
+     * Separator of the path segments
+     */
+    private static final String SEPARATOR = System.getProperty("file.separator");
+
+    /**
+     * Node of the trie
+     */
+    private static class Node {
+        /**
+         * Child nodes (segment name -> node)
+         */
+        private final HashMap<String, Node> children = new HashMap<String, Node>();
+        /**
+         * Comments associated with the path ending at this node (identity based, as XmlObjects compare by value)
+         */
+        private final Set<Comment> comments = Collections.newSetFromMap(new IdentityHashMap<Comment, Boolean>());
+
+        /**
+         * Checks whether this node can be removed from its parent
+         * @return <i>true</i> if this node neither has children nor comments, <i>false</i> otherwise
+         */
+        private boolean isEmpty() {
+            return children.isEmpty() && comments.isEmpty();
+        }
+    }
+
+    /**
+     * Root node representing the empty path
+     */
+    private final Node root = new Node();
+
+    /**
+     * Splits the given path into its segments
+     * @param path path to be split
+     * @return the segments of the path (the last one might be empty if the path ends with a separator)
+     */
+    private static String[] split(String path) {
+        if (path.startsWith(SEPARATOR)) {
+            path = path.substring(SEPARATOR.length());
+        }
+        return path.split(Pattern.quote(SEPARATOR), -1);
+    }
+
+    /**
+     * Adds the given comment for the given path
+     * @param path path of the commented file
+     * @param comment comment to be added
+     */
+    void add(String path, Comment comment) {
+        Node curr = root;
+        for (String segment : split(path)) {
+            Node next = curr.children.get(segment);
+            if (next == null) {
+                next = new Node();
+                curr.children.put(segment, next);
+            }
+            curr = next;
+        }
+        curr.comments.add(comment);
+    }
+
+    /**
+     * Removes the given comment from the given path. Nodes which are empty afterwards will be removed as well.
+     * @param path path the comment has been added for
+     * @param comment comment to be removed
+     * @return <i>true</i> if the comment was found and removed, <i>false</i> otherwise
+     */
+    boolean remove(String path, Comment comment) {
+        return remove(root, split(path), 0, comment);
+    }
+
+    /**
+     * Recursively removes the given comment and prunes empty nodes
+     * @param node current node
+     * @param segments path segments
+     * @param i index of the segment to descend into
+     * @param comment comment to be removed
+     * @return <i>true</i> if the comment was found and removed, <i>false</i> otherwise
+     */
+    private boolean remove(Node node, String[] segments, int i, Comment comment) {
+        if (i == segments.length) { return node.comments.remove(comment); }
+        Node child = node.children.get(segments[i]);
+        if (child == null) { return false; }
+        boolean result = remove(child, segments, i + 1, comment);
+        if (child.isEmpty()) {
+            node.children.remove(segments[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Collects all comments whose path starts with the given prefix
+     * @param prefix prefix of the path (may end in the middle of a segment)
+     * @param result collection the found comments will be added to
+     */
+    void collect(String prefix, Collection<Comment> result) {
+        if (prefix.isEmpty()) {
+            collectAll(root, result);
+            return;
+        }
+        String[] segments = split(prefix);
+        Node curr = root;
+        // all segments but the last one have to match exactly
+        for (int i = 0; i < segments.length - 1; i++) {
+            curr = curr.children.get(segments[i]);
+            if (curr == null) { return; }
+        }
+        // the last segment might only be the beginning of a name
+        String last = segments[segments.length - 1];
+        for (Entry<String, Node> e : curr.children.entrySet()) {
+            if (e.getKey().startsWith(last)) {
+                collectAll(e.getValue(), result);
+            }
+        }
+    }
+
+    /**
+     * Collects all comments of the given node and all of its descendants
+     * @param node node to start with
+     * @param result collection the found comments will be added to
+     */
+    private void collectAll(Node node, Collection<Comment> result) {
+        result.addAll(node.comments);
+        for (Node child : node.children.values()) {
+            collectAll(child, result);
+        }
+    }
+
+    /**
+     * Checks whether this index does not contain any comment
+     * @return <i>true</i> if no comment is indexed, <i>false</i> otherwise
+     */
+    boolean isEmpty() {
+        return root.isEmpty();
+    }
+}
@@ -0,0 +1,209 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import agileReview.softech.tukl.de.CommentsDocument;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * Speculatively parses the author files of closed reviews in the background (e.g. when a review is selected in the Review Explorer), so that
+ * opening the review only has to commit the already parsed documents. The parsed documents are kept in a side cache, which is limited by the size
+ * of the parsed files and evicts the least recently prefetched reviews first. Prefetched documents are only used if the review folder still
+ * contains exactly the same files with the same modification stamps.
+ */
+class CommentPrefetcher {
+
+    /**
+     * Maximal size of all prefetched files in bytes
+     */
+    static final long MAX_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Parsed author files of one review
+     */
+    private static class Entry {
+        /**
+         * Parse results in the order of the files
+         */
+        private final List<ParallelXmlLoader.Result<CommentsDocument>> results;
+        /**
+         * Parsed files mapped to their modification stamps before parsing
+         */
+        private final HashMap<IFile, Long> stamps;
+        /**
+         * Size of all parsed files in bytes
+         */
+        private final long bytes;
+
+        /**
+         * Creates a new entry
+         * @param results parse results
+         * @param stamps parsed files mapped to their modification stamps before parsing
+         * @param bytes size of all parsed files in bytes
+         */
+        private Entry(List<ParallelXmlLoader.Result<CommentsDocument>> results, HashMap<IFile, Long> stamps, long bytes) {
+            this.results = results;
+            this.stamps = stamps;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Review folder -> prefetched author files (in insertion order, the oldest entries are evicted first)
+     */
+    private final LinkedHashMap<IFolder, Entry> entries = new LinkedHashMap<IFolder, Entry>();
+
+    /**
+     * Size of all cached files in bytes
+     */
+    private long cachedBytes = 0;
+
+    /**
+     * Review folders to be prefetched (the most recently requested one last)
+     */
+    private final LinkedHashSet<IFolder> queue = new LinkedHashSet<IFolder>();
+
+    /**
+     * Background job working off the queue
+     */
+    private final Job job = new Job("Prefetching AgileReview comments") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            IFolder folder;
+            while (!monitor.isCanceled() && (folder = poll()) != null) {
+                prefetch(folder);
+            }
+            return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+        }
+    };
+
+    /**
+     * Creates a new prefetcher
+     */
+    CommentPrefetcher() {
+        job.setSystem(true);
+        job.setPriority(Job.DECORATE);
+    }
+
+    /**
+     * Requests the author files of the given review folder to be parsed in the background. Folders which are already cached are skipped.
+     * @param reviewFolder folder of a closed review
+     */
+    void request(IFolder reviewFolder) {
+        synchronized (this) {
+            if (entries.containsKey(reviewFolder)) { return; }
+            // the most recent request is served first
+            queue.remove(reviewFolder);
+            queue.add(reviewFolder);
+        }
+        job.schedule();
+    }
+
+    /**
+     * Removes the most recently requested folder from the queue
+     * @return the folder to be prefetched next or <i>null</i> if the queue is empty
+     */
+    private synchronized IFolder poll() {
+        if (queue.isEmpty()) { return null; }
+        Iterator<IFolder> it = queue.iterator();
+        IFolder last = null;
+        while (it.hasNext()) {
+            last = it.next();
+        }
+        queue.remove(last);
+        return last;
+    }
+
+    /**
+     * Parses the author files of the given review folder and adds them to the cache
+     * @param reviewFolder review folder
+     */
+    private void prefetch(IFolder reviewFolder) {
+        if (!reviewFolder.exists()) { return; }
+        ArrayList<IFile> files = new ArrayList<IFile>();
+        HashMap<IFile, Long> stamps = new HashMap<IFile, Long>();
+        long bytes = 0;
+        try {
+            for (IResource r : reviewFolder.members()) {
+                if (r instanceof IFile && !r.getName().equals("review.xml") && !ReviewArchive.isArchive(r)) {
+                    files.add((IFile) r);
+                    stamps.put((IFile) r, r.getModificationStamp());
+                    bytes += r.getLocation() == null ? 0 : r.getLocation().toFile().length();
+                }
+            }
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "prefetch", "CoreException while listing " + reviewFolder, e);
+            return;
+        }
+        if (bytes > MAX_BYTES) {
+            PluginLogger.log(this.getClass().toString(), "prefetch", reviewFolder + " exceeds the prefetch cache (" + bytes + " bytes)");
+            return;
+        }
+        List<ParallelXmlLoader.Result<CommentsDocument>> results = ParallelXmlLoader.load(files, ParallelXmlLoader.COMMENTS_PARSER);
+
+        synchronized (this) {
+            Entry previous = entries.remove(reviewFolder);
+            if (previous != null) {
+                cachedBytes -= previous.bytes;
+            }
+            // evict the oldest entries until the new one fits
+            Iterator<Entry> it = entries.values().iterator();
+            while (cachedBytes + bytes > MAX_BYTES && it.hasNext()) {
+                cachedBytes -= it.next().bytes;
+                it.remove();
+            }
+            entries.put(reviewFolder, new Entry(results, stamps, bytes));
+            cachedBytes += bytes;
+        }
+        PluginLogger.log(this.getClass().toString(), "prefetch", files.size() + " author files of " + reviewFolder + " prefetched");
+    }
+
+    /**
+     * Removes the prefetched author files of the given review folder from the cache and returns them, if they are still up to date
+     * @param reviewFolder review folder
+     * @param files author files currently contained in the folder
+     * @return the parse results of the given files or <i>null</i> if they have not been prefetched or have been changed since
+     */
+    synchronized List<ParallelXmlLoader.Result<CommentsDocument>> take(IFolder reviewFolder, List<IFile> files) {
+        queue.remove(reviewFolder);
+        Entry entry = entries.remove(reviewFolder);
+        if (entry == null) { return null; }
+        cachedBytes -= entry.bytes;
+        if (entry.stamps.size() != files.size()) { return null; }
+        for (IFile f : files) {
+            Long stamp = entry.stamps.get(f);
+            if (stamp == null || stamp.longValue() != f.getModificationStamp()) { return null; }
+        }
+        return entry.results;
+    }
+
+    /**
+     * Drops all prefetched files and pending requests
+     */
+    synchronized void clear() {
+        queue.clear();
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * Stops prefetching
+     */
+    void cancel() {
+        job.cancel();
+    }
+}
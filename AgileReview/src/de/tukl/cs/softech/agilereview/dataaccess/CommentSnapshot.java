@@ -0,0 +1,46 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.List;
+
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+
+/**
+ * Immutable snapshot of all comments of the model. A snapshot is published lazily after the model has been changed and is shared by all readers
+ * until the next change, so two snapshots are the same instance if and only if the model has not been changed in between.
+ */
+public final class CommentSnapshot {
+
+    /**
+     * Version of the model this snapshot was taken of
+     */
+    private final long version;
+
+    /**
+     * Unmodifiable list of all comments
+     */
+    private final List<Comment> comments;
+
+    /**
+     * Creates a new snapshot
+     * @param version version of the model
+     * @param comments unmodifiable list of all comments
+     */
+    CommentSnapshot(long version, List<Comment> comments) {
+        this.version = version;
+        this.comments = comments;
+    }
+
+    /**
+     * @return the version of the model this snapshot was taken of (increasing with every change of the model)
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return unmodifiable list of all comments of the model at the time this snapshot was taken
+     */
+    public List<Comment> getComments() {
+        return comments;
+    }
+}
@@ -0,0 +1,96 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+import agileReview.softech.tukl.de.CommentsDocument;
+
+/**
+ * Storage backend for the comments of the reviews. The comments of one author in one review form one comments document, which is identified by
+ * its author file (<code>review.&lt;reviewId&gt;/author_&lt;author&gt;.xml</code> within the AgileReview Source Project), regardless of
+ * whether the backend actually stores the document in this file. Review files are always stored as xml files.<br>
+ * The default backend ({@link XmlCommentStorage}) stores every comments document in its author file. Implementations have to be thread-safe, as
+ * documents are loaded by several threads in parallel and saved by a background job.
+ */
+public interface CommentStorage {
+
+    /**
+     * Wildcard for the status of {@link #query(IProject, String, String, int, StreamingCommentReader.CommentVisitor)}
+     */
+    int ANY_STATUS = -1;
+
+    /**
+     * States whether the comments documents are stored in the author files in the workspace. Only then changes of the documents are reported by
+     * resource deltas and the documents can be validated by the modification stamps of their author files.
+     * @return <i>true</i> if the author files contain the comments documents, <i>false</i> otherwise
+     */
+    boolean isWorkspaceBacked();
+
+    /**
+     * Lists the author files of all stored comments documents of the given review folder
+     * @param reviewFolder review folder
+     * @return author files of the review
+     * @throws CoreException if the stored documents could not be determined
+     */
+    List<IFile> list(IFolder reviewFolder) throws CoreException;
+
+    /**
+     * Loads the comments document of the given author file. May be called by several threads at the same time.
+     * @param authorFile author file of the document
+     * @return the loaded document
+     * @throws Exception if the document could not be loaded
+     */
+    CommentsDocument load(IFile authorFile) throws Exception;
+
+    /**
+     * Stores the given comments document. The caller holds the monitor of the document.
+     * @param authorFile author file of the document
+     * @param document document to be stored
+     * @throws IOException if the document could not be stored
+     */
+    void save(IFile authorFile, CommentsDocument document) throws IOException;
+
+    /**
+     * Deletes the comments document of the given author file
+     * @param authorFile author file of the document
+     * @throws CoreException if the document could not be deleted
+     */
+    void delete(IFile authorFile) throws CoreException;
+
+    /**
+     * Reads the stored comments matching all given criteria without loading them into the models
+     * @param sourceProject AgileReview Source Project
+     * @param reviewId id of the review or <i>null</i> for all reviews
+     * @param path path of the commented file (as computed by {@link ReviewAccess#computePath(org.apache.xmlbeans.XmlObject)}) or <i>null</i>
+     *            for all files
+     * @param status status of the comments or {@link #ANY_STATUS}
+     * @param visitor visitor to be informed about every matching comment
+     * @return number of matching comments
+     * @throws Exception if the stored comments could not be read
+     */
+    int query(IProject sourceProject, String reviewId, String path, int status, StreamingCommentReader.CommentVisitor visitor) throws Exception;
+
+    /**
+     * Moves the stored comments of the given file, folder or project to the given new path, e.g. when the commented resource has been renamed or
+     * moved. Backends storing the comments documents in their author files do not rewrite anything, as their author files are refactored by the
+     * text changes of the refactoring participants (see {@link RefactoringAccess}).
+     * @param sourceProject AgileReview Source Project
+     * @param oldPath path of the moved file, folder or project (as computed by {@link ReviewAccess#computePath(org.apache.xmlbeans.XmlObject)})
+     * @param newPath new path or <i>null</i> if the affected comments should only be counted
+     * @param moveAllChilds <i>true</i> if all comments below the old path should be moved, <i>false</i> if only the comments of the file or the
+     *            files directly within the folder should be moved
+     * @return number of affected comments
+     * @throws IOException if the paths could not be rewritten
+     */
+    int rewritePaths(IProject sourceProject, String oldPath, String newPath, boolean moveAllChilds) throws IOException;
+
+    /**
+     * Releases all resources held by this backend. Called when the backend is replaced or the plugin is stopped.
+     */
+    void close();
+}
@@ -0,0 +1,310 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.xmlbeans.XmlCursor;
+
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+import agileReview.softech.tukl.de.ReplyDocument.Reply;
+
+/**
+ * Inverted index over the searchable text fields of all comments. The fields are split into lower case tokens at every character which is
+ * neither a letter nor a digit. Queries are tokenized the same way in order to find candidates, which are then verified against the lower case
+ * text of the field. So all queries are case insensitive, and support
+ * <ul>
+ * <li>substrings: <code>view</code> matches all comments whose field contains "view" (e.g. "review"). The token dictionary is scanned for tokens
+ * containing the query, which is considerably smaller than the indexed texts.</li>
+ * <li>phrases: <code>ll pointer</code> matches all comments whose field contains "ll pointer", i.e. a substring spanning several tokens. The
+ * separators between the tokens have to match as well.</li>
+ * <li>exact phrases: <code>"null pointer"</code> like phrases, but the first and the last token have to match completely as well</li>
+ * </ul>
+ * The index is not thread-safe, it is guarded by the lock of the {@link ReviewModel}.
+ */
+public final class CommentTextIndex {
+
+    /**
+     * Searchable fields of a comment
+     */
+    public enum Field {
+        /**
+         * Id of the review
+         */
+        REVIEW_ID,
+        /**
+         * Author of the comment
+         */
+        AUTHOR,
+        /**
+         * Recipient of the comment
+         */
+        RECIPIENT,
+        /**
+         * Text of the comment
+         */
+        TEXT,
+        /**
+         * Texts of all replies of the comment
+         */
+        REPLIES,
+        /**
+         * Path of the commented file
+         */
+        PATH
+    }
+
+    /**
+     * Empty token sequence
+     */
+    private static final String[] NO_TOKENS = new String[0];
+
+    /**
+     * Field -> token -> comments containing the token in this field (identity based, as XmlObjects compare by value)
+     */
+    private final EnumMap<Field, TreeMap<String, Set<Comment>>> postings = new EnumMap<Field, TreeMap<String, Set<Comment>>>(Field.class);
+
+    /**
+     * Comment -> token sequences of all fields under which the comment is currently indexed (in the order of {@link Field#values()})
+     */
+    private final IdentityHashMap<Comment, String[][]> tokens = new IdentityHashMap<Comment, String[][]>();
+
+    /**
+     * Creates an empty index
+     */
+    CommentTextIndex() {
+        for (Field f : Field.values()) {
+            postings.put(f, new TreeMap<String, Set<Comment>>());
+        }
+    }
+
+    /**
+     * Splits the given text into lower case tokens
+     * @param text text to be split (may be <i>null</i>)
+     * @return the tokens in their order of occurrence
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.length() == 0) { return NO_TOKENS; }
+        ArrayList<String> result = new ArrayList<String>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                result.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Collects the texts of all replies of the given comment
+     * @param comment comment
+     * @return texts of the replies separated by line breaks
+     */
+    private static String getReplyTexts(Comment comment) {
+        if (comment.getReplies() == null) { return ""; }
+        StringBuilder result = new StringBuilder();
+        for (Reply r : comment.getReplies().getReplyArray()) {
+            XmlCursor cursor = r.newCursor();
+            try {
+                result.append(cursor.getTextValue()).append('\n');
+            } finally {
+                cursor.dispose();
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the current text of the given field of the given comment
+     * @param comment comment
+     * @param field field
+     * @return the text of the field (may be <i>null</i>)
+     */
+    private static String getFieldText(Comment comment, Field field) {
+        switch (field) {
+        case REVIEW_ID:
+            return comment.getReviewID();
+        case AUTHOR:
+            return comment.getAuthor();
+        case RECIPIENT:
+            return comment.getRecipient();
+        case TEXT:
+            return comment.getText();
+        case REPLIES:
+            return getReplyTexts(comment);
+        case PATH:
+            return ReviewAccess.computePath(comment);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the given field of the given comment contains the given lower case text
+     * @param comment comment
+     * @param field field
+     * @param lowerText lower case text
+     * @return <i>true</i> if the lower case text of the field contains the given text, <i>false</i> otherwise
+     */
+    private static boolean fieldContains(Comment comment, Field field, String lowerText) {
+        String text = getFieldText(comment, field);
+        return text != null && text.toLowerCase().contains(lowerText);
+    }
+
+    /**
+     * Adds the given comment with the given value to the index. The comment must not be indexed yet.
+     * @param comment comment to be added
+     * @param value current value of the comment
+     */
+    void add(Comment comment, CommentValue value) {
+        String[][] fieldTokens = new String[Field.values().length][];
+        fieldTokens[Field.REVIEW_ID.ordinal()] = tokenize(value.getReviewId());
+        fieldTokens[Field.AUTHOR.ordinal()] = tokenize(value.getAuthor());
+        fieldTokens[Field.RECIPIENT.ordinal()] = tokenize(value.getRecipient());
+        fieldTokens[Field.TEXT.ordinal()] = tokenize(value.getText());
+        fieldTokens[Field.REPLIES.ordinal()] = tokenize(getReplyTexts(comment));
+        fieldTokens[Field.PATH.ordinal()] = tokenize(value.getPath());
+
+        for (Field f : Field.values()) {
+            TreeMap<String, Set<Comment>> fieldPostings = postings.get(f);
+            String[] seq = fieldTokens[f.ordinal()];
+            for (int i = 0; i < seq.length; i++) {
+                Set<Comment> bucket = fieldPostings.get(seq[i]);
+                if (bucket == null) {
+                    bucket = Collections.newSetFromMap(new IdentityHashMap<Comment, Boolean>());
+                    fieldPostings.put(seq[i], bucket);
+                } else {
+                    // share one instance per token
+                    seq[i] = fieldPostings.ceilingKey(seq[i]);
+                }
+                bucket.add(comment);
+            }
+        }
+        tokens.put(comment, fieldTokens);
+    }
+
+    /**
+     * Removes the given comment from the index
+     * @param comment comment to be removed
+     */
+    void remove(Comment comment) {
+        String[][] fieldTokens = tokens.remove(comment);
+        if (fieldTokens == null) { return; }
+        for (Field f : Field.values()) {
+            TreeMap<String, Set<Comment>> fieldPostings = postings.get(f);
+            for (String token : fieldTokens[f.ordinal()]) {
+                Set<Comment> bucket = fieldPostings.get(token);
+                if (bucket != null) {
+                    bucket.remove(comment);
+                    if (bucket.isEmpty()) {
+                        fieldPostings.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all comments from the index
+     */
+    void clear() {
+        for (TreeMap<String, Set<Comment>> fieldPostings : postings.values()) {
+            fieldPostings.clear();
+        }
+        tokens.clear();
+    }
+
+    /**
+     * Searches all comments matching the given query in at least one of the given fields. The index only provides the candidates, every match is
+     * verified against the lower case text of the field, so that it is a true substring of the field.
+     * @param query substring, phrase or exact phrase (in double quotes)
+     * @param fields fields to be searched
+     * @return the matching comments (identity based) or <i>null</i> if the query does not contain any token
+     */
+    Set<Comment> search(String query, Collection<Field> fields) {
+        String q = query.trim();
+        boolean exact = q.length() > 1 && q.startsWith("\"") && q.endsWith("\"");
+        String needle = (exact ? q.substring(1, q.length() - 1) : q).toLowerCase();
+        String[] phrase = tokenize(needle);
+        if (phrase.length == 0) { return null; }
+
+        Set<Comment> result = Collections.newSetFromMap(new IdentityHashMap<Comment, Boolean>());
+        for (Field f : fields) {
+            TreeMap<String, Set<Comment>> fieldPostings = postings.get(f);
+            if (phrase.length == 1 && !exact) {
+                // substring query: all buckets of the tokens containing the query
+                for (Entry<String, Set<Comment>> e : fieldPostings.entrySet()) {
+                    if (e.getKey().contains(phrase[0])) {
+                        for (Comment c : e.getValue()) {
+                            if (!result.contains(c) && fieldContains(c, f, needle)) {
+                                result.add(c);
+                            }
+                        }
+                    }
+                }
+                continue;
+            }
+            // phrase query: verify the candidates of the rarest completely given token
+            Set<Comment> candidates = null;
+            int firstComplete = exact ? 0 : 1;
+            int lastComplete = exact ? phrase.length - 1 : phrase.length - 2;
+            for (int i = firstComplete; i <= lastComplete; i++) {
+                Set<Comment> bucket = fieldPostings.get(phrase[i]);
+                if (bucket == null) {
+                    candidates = Collections.emptySet();
+                    break;
+                }
+                if (candidates == null || bucket.size() < candidates.size()) {
+                    candidates = bucket;
+                }
+            }
+            if (candidates == null) {
+                // only the first and the last token are given partially: candidates contain a token ending with the first one
+                candidates = Collections.newSetFromMap(new IdentityHashMap<Comment, Boolean>());
+                for (Entry<String, Set<Comment>> e : fieldPostings.entrySet()) {
+                    if (e.getKey().endsWith(phrase[0])) {
+                        candidates.addAll(e.getValue());
+                    }
+                }
+            }
+            for (Comment c : candidates) {
+                if (!result.contains(c) && containsPhrase(tokens.get(c)[f.ordinal()], phrase, exact) && fieldContains(c, f, needle)) {
+                    result.add(c);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the given token sequence contains the given phrase
+     * @param seq token sequence of a field
+     * @param phrase tokens of the phrase (at least two, if not exact)
+     * @param exact if <i>false</i> the first token of the phrase only has to be a suffix and the last token only has to be a prefix of the
+     *            corresponding token
+     * @return <i>true</i> if the sequence contains the phrase, <i>false</i> otherwise
+     */
+    private static boolean containsPhrase(String[] seq, String[] phrase, boolean exact) {
+        int last = phrase.length - 1;
+        for (int start = 0; start + phrase.length <= seq.length; start++) {
+            if (!(exact ? seq[start].equals(phrase[0]) : seq[start].endsWith(phrase[0]))) {
+                continue;
+            }
+            int i = 1;
+            while (i < last && seq[start + i].equals(phrase[i])) {
+                i++;
+            }
+            if (i >= last && (exact ? seq[start + last].equals(phrase[last]) : seq[start + last].startsWith(phrase[last]))) { return true; }
+        }
+        return false;
+    }
+}
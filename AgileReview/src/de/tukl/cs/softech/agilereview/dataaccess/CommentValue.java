@@ -0,0 +1,177 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.Calendar;
+
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+
+/**
+ * Cache of the sort, filter and label keys of a comment. The data layer keeps one value next to each live XmlBeans comment and re-captures it
+ * whenever the comment is added to the model or re-indexed after a change, so the views can compare and filter comments without repeatedly
+ * parsing the XmlBeans store. The value is not a snapshot of the comment: the text is read from the live comment, and the XmlBeans comment stays
+ * the form the comment is displayed, edited and persisted in. The cached keys cost additional heap per comment; strings are shared through the
+ * {@link SymbolTable} to keep this small.
+ */
+public final class CommentValue {
+
+    /**
+     * Id of the review of the comment
+     */
+    private final String reviewId;
+    /**
+     * Id of the comment
+     */
+    private final String id;
+    /**
+     * Author of the comment
+     */
+    private final String author;
+    /**
+     * Recipient of the comment
+     */
+    private final String recipient;
+    /**
+     * Path of the commented file
+     */
+    private final String path;
+    /**
+     * The live comment, for reading the text on demand
+     */
+    private final Comment comment;
+    /**
+     * Status of the comment
+     */
+    private final int status;
+    /**
+     * Priority of the comment
+     */
+    private final int priority;
+    /**
+     * Revision of the comment
+     */
+    private final int revision;
+    /**
+     * Number of replies of the comment
+     */
+    private final int replyCount;
+    /**
+     * Creation date of the comment in milliseconds since the epoch
+     */
+    private final long creationDate;
+    /**
+     * Last modification date of the comment in milliseconds since the epoch (or -1 if not set)
+     */
+    private final long lastModified;
+
+    /**
+     * Captures the current keys of the given comment
+     * @param c comment
+     */
+    CommentValue(Comment c) {
+        this.reviewId = SymbolTable.intern(c.getReviewID());
+        this.id = c.getId();
+        this.author = SymbolTable.intern(c.getAuthor());
+        this.recipient = SymbolTable.intern(c.getRecipient());
+        this.path = ReviewAccess.computePath(c);
+        this.comment = c;
+        this.status = c.getStatus();
+        this.priority = c.getPriority();
+        this.revision = c.getRevision();
+        this.replyCount = c.getReplies() == null ? 0 : c.getReplies().sizeOfReplyArray();
+        this.creationDate = toMillis(c.getCreationDate());
+        this.lastModified = toMillis(c.getLastModified());
+    }
+
+    /**
+     * Converts the given calendar
+     * @param c calendar
+     * @return milliseconds since the epoch or -1 if no calendar is given
+     */
+    private static long toMillis(Calendar c) {
+        return c == null ? -1 : c.getTimeInMillis();
+    }
+
+    /**
+     * @return the id of the review of the comment
+     */
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    /**
+     * @return the id of the comment
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the author of the comment
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * @return the recipient of the comment
+     */
+    public String getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * @return the path of the commented file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Reads the text from the live comment (it is not cached, as it may be edited without re-indexing the comment)
+     * @return the text of the comment
+     */
+    public String getText() {
+        return comment.getText();
+    }
+
+    /**
+     * @return the status of the comment
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the priority of the comment
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return the revision of the comment
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return the number of replies of the comment
+     */
+    public int getReplyCount() {
+        return replyCount;
+    }
+
+    /**
+     * @return the creation date of the comment in milliseconds since the epoch (or -1 if not set)
+     */
+    public long getCreationDate() {
+        return creationDate;
+    }
+
+    /**
+     * @return the last modification date of the comment in milliseconds since the epoch (or -1 if not set)
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
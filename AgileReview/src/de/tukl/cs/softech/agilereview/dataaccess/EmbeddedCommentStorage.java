@@ -0,0 +1,1431 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import agileReview.softech.tukl.de.CommentDocument;
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+import agileReview.softech.tukl.de.CommentsDocument;
+import agileReview.softech.tukl.de.CommentsDocument.Comments;
+import agileReview.softech.tukl.de.FilesDocument.Files;
+import agileReview.softech.tukl.de.FolderDocument.Folder;
+import agileReview.softech.tukl.de.ProjectDocument.Project;
+import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * {@link CommentStorage} keeping all comments of an AgileReview Source Project in one embedded database file in the root of the project. The
+ * file is an append-only log of comment records: saving a comments document only appends the comments which have been changed since the last
+ * save (and a deletion record for every removed comment), so author files are never rewritten as a whole. The latest record of every comment is
+ * indexed in memory by review, path and status, so queries only read the matching records. The log is compacted as soon as most of it is
+ * outdated. Paths are stored with <code>/</code> as separator, so the file can be shared between operating systems. If the file is changed by
+ * someone else (e.g. a version control system), the indices are rebuilt before the next access.<br>
+ * When the database of a project is created, the author files of all its reviews are imported once. Afterwards, an author file is imported
+ * again whenever its contents differ from the ones imported last (e.g. after it has been updated by a version control system), so that the
+ * comments of other users are not ignored. Author files are never deleted or changed by this backend, as they may be shared with other users.
+ * When switching back to the {@link XmlCommentStorage}, the stored documents are written back into their author files (see
+ * {@link #writeBack()}). The log is compacted by writing a new file, which replaces the old one only after it has been written completely; an
+ * interrupted replacement is recovered when the database is opened the next time.
+ */
+class EmbeddedCommentStorage implements CommentStorage {
+
+    /**
+     * Name of the database file within the AgileReview Source Project
+     */
+    static final String STORE_NAME = "agilereview.db";
+
+    /**
+     * Magic number at the beginning of the database file
+     */
+    private static final int MAGIC = 0x41524442;
+
+    /**
+     * Version of the record format (version 1 stored the paths with the separator of the local file system, version 2 did not record the
+     * imported author files)
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * Minimal number of outdated bytes before the log is compacted
+     */
+    static final long COMPACTION_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Record type: comment stored
+     */
+    private static final byte PUT = 1;
+
+    /**
+     * Record type: comment deleted
+     */
+    private static final byte DELETE = 2;
+
+    /**
+     * Record type: author file imported
+     */
+    private static final byte IMPORTED = 3;
+
+    /**
+     * Suffix of the compacted log while it is written
+     */
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * Suffix of the old log while it is replaced by the compacted one
+     */
+    private static final String OLD_SUFFIX = ".old";
+
+    /**
+     * Suffix of the database file after its comments have been written back into the author files
+     */
+    private static final String BACKUP_SUFFIX = ".bak";
+
+    /**
+     * Separator of the path segments (as used by {@link ReviewAccess#computePath(XmlObject)})
+     */
+    private static final String SEPARATOR = System.getProperty("file.separator");
+
+    /**
+     * Separator of the path segments within the database file, which may be shared between different operating systems
+     */
+    private static final String STORED_SEPARATOR = "/";
+
+    /**
+     * Delay of the refresh of the database file in the workspace after it has been written (in ms)
+     */
+    private static final long REFRESH_DELAY = 1000;
+
+    /**
+     * Name attribute of the project, folder and file elements
+     */
+    private static final QName NAME = new QName("", "name");
+
+    /**
+     * Latest record of one comment
+     */
+    private static class Record {
+        /**
+         * Key of the comments document (project relative path of the author file)
+         */
+        private final String fileKey;
+        /**
+         * Id of the comment
+         */
+        private final String commentId;
+        /**
+         * Id of the review of the comment
+         */
+        private final String reviewId;
+        /**
+         * Path of the commented file (stored form)
+         */
+        private final String path;
+        /**
+         * Status of the comment
+         */
+        private final int status;
+        /**
+         * Position of the comment xml within the database file
+         */
+        private long offset;
+        /**
+         * Length of the comment xml in bytes
+         */
+        private final int length;
+        /**
+         * Checksum of the comment xml
+         */
+        private final long checksum;
+        /**
+         * Size of the whole record within the database file in bytes
+         */
+        private final int size;
+
+        /**
+         * Creates a new record
+         * @param fileKey key of the comments document
+         * @param commentId id of the comment
+         * @param reviewId id of the review of the comment
+         * @param path path of the commented file
+         * @param status status of the comment
+         * @param offset position of the comment xml within the database file
+         * @param length length of the comment xml in bytes
+         * @param checksum checksum of the comment xml
+         * @param size size of the whole record in bytes
+         */
+        private Record(String fileKey, String commentId, String reviewId, String path, int status, long offset, int length, long checksum,
+                int size) {
+            this.fileKey = fileKey;
+            this.commentId = commentId;
+            this.reviewId = reviewId;
+            this.path = path;
+            this.status = status;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Opened database file of one source project together with its indices. All methods are synchronized on the store.
+     */
+    private static class Store {
+        /**
+         * Location of the database file
+         */
+        private final File location;
+        /**
+         * Opened database file
+         */
+        private RandomAccessFile file;
+        /**
+         * Location of the opened database file (differs from {@link #location} if a compacted log could not be renamed)
+         */
+        private File opened;
+        /**
+         * Length of the valid part of the log
+         */
+        private long end;
+        /**
+         * Modification stamp of the database file after it has been read or written by this store
+         */
+        private long stamp;
+        /**
+         * Key of the comments document -> comment id -> latest record (in the order the comments have been stored first)
+         */
+        private final HashMap<String, LinkedHashMap<String, Record>> documents = new HashMap<String, LinkedHashMap<String, Record>>();
+        /**
+         * Review id -> records of the review
+         */
+        private final HashMap<String, HashSet<Record>> byReview = new HashMap<String, HashSet<Record>>();
+        /**
+         * Path -> records of the commented file
+         */
+        private final HashMap<String, HashSet<Record>> byPath = new HashMap<String, HashSet<Record>>();
+        /**
+         * Status -> records with this status
+         */
+        private final HashMap<Integer, HashSet<Record>> byStatus = new HashMap<Integer, HashSet<Record>>();
+        /**
+         * Key of the comments document -> checksum of the contents of its author file when it has been imported last
+         */
+        private final HashMap<String, Long> imports = new HashMap<String, Long>();
+        /**
+         * Keys of the imported comments documents, which have been changed in the database since their last import
+         */
+        private final HashSet<String> modified = new HashSet<String>();
+        /**
+         * Number of bytes of the latest records
+         */
+        private long live;
+        /**
+         * Number of bytes of outdated records
+         */
+        private long garbage;
+
+        /**
+         * Opens the given database file and builds the indices. A truncated or corrupt end of the log (e.g. after a crash) is cut off.
+         * @param location location of the database file (will be created if not existent)
+         * @throws IOException if the file could not be opened or is no database file
+         */
+        private Store(File location) throws IOException {
+            this.location = location;
+            open();
+        }
+
+        /**
+         * Opens the database file and builds the indices. A truncated or corrupt end of the log (e.g. after a crash) is cut off, a log of the
+         * previous version is converted.
+         * @throws IOException if the file could not be opened or is no database file
+         */
+        private void open() throws IOException {
+            recover();
+            file = new RandomAccessFile(location, "rw");
+            opened = location;
+            if (file.length() == 0) {
+                file.writeInt(MAGIC);
+                file.writeInt(VERSION);
+                end = 8;
+                written();
+                return;
+            }
+            int version = file.length() < 8 || file.readInt() != MAGIC ? 0 : file.readInt();
+            if (version < 1 || version > VERSION) {
+                file.close();
+                throw new IOException(location + " is no AgileReview database");
+            }
+            long pos = 8;
+            long length = file.length();
+            CRC32 crc = new CRC32();
+            while (pos + 8 <= length) {
+                file.seek(pos);
+                int size = file.readInt();
+                long checksum = file.readInt() & 0xffffffffL;
+                if (size <= 0 || pos + 8 + size > length) {
+                    break;
+                }
+                byte[] payload = new byte[size];
+                file.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+                apply(payload, pos + 8, version);
+                pos += 8 + size;
+            }
+            if (pos < length) {
+                PluginLogger.logWarning(this.getClass().toString(), "open", "Cutting off " + (length - pos) + " corrupt bytes of " + location);
+                file.setLength(pos);
+            }
+            end = pos;
+            if (version != VERSION) {
+                PluginLogger.log(this.getClass().toString(), "open", "Converting " + location + " to version " + VERSION);
+                compact();
+            }
+            written();
+        }
+
+        /**
+         * Recovers from a compaction, which has been interrupted while the old log was replaced by the compacted one (e.g. by a crash). A new
+         * database file is never created as long as one of the logs still exists.
+         * @throws IOException if the database file could not be recovered
+         */
+        private void recover() throws IOException {
+            File tmp = new File(location.getPath() + TMP_SUFFIX);
+            File old = new File(location.getPath() + OLD_SUFFIX);
+            if (location.exists()) {
+                // either the compacted log has not been completed or the old log has not been deleted yet
+                if ((tmp.exists() && !tmp.delete()) || (old.exists() && !old.delete())) {
+                    PluginLogger.logWarning(this.getClass().toString(), "recover", "Could not delete the leftovers of an interrupted compaction of "
+                            + location);
+                }
+                return;
+            }
+            // the old log is only moved away after the compacted log has been written completely
+            File source = tmp.exists() ? tmp : old.exists() ? old : null;
+            if (source == null) { return; }
+            if (!source.renameTo(location)) { throw new IOException("Could not restore " + location + " from " + source); }
+            PluginLogger.logWarning(this.getClass().toString(), "recover", "Restored " + location + " from " + source
+                    + " after an interrupted compaction");
+        }
+
+        /**
+         * Rebuilds the indices if the database file has been changed by someone else since it has been read or written by this store (e.g. updated
+         * by a version control system), as the offsets of the records would be outdated otherwise. Has to be called before each use of the store.
+         * @throws IOException if the database file could not be reopened
+         */
+        private void reloadIfChanged() throws IOException {
+            if (opened.length() == end && opened.lastModified() == stamp) { return; }
+            PluginLogger.log(this.getClass().toString(), "reloadIfChanged", opened + " has been changed by someone else, rebuilding the indices");
+            file.close();
+            documents.clear();
+            byReview.clear();
+            byPath.clear();
+            byStatus.clear();
+            imports.clear();
+            modified.clear();
+            live = 0;
+            garbage = 0;
+            open();
+        }
+
+        /**
+         * Records the modification stamp of the database file after it has been written by this store
+         */
+        private void written() {
+            stamp = opened.lastModified();
+        }
+
+        /**
+         * Applies the given record read from the log
+         * @param payload payload of the record
+         * @param payloadOffset position of the payload within the database file
+         * @param version version of the log
+         * @throws IOException if the record is malformed
+         */
+        private void apply(byte[] payload, long payloadOffset, int version) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte op = in.readByte();
+            String fileKey = in.readUTF();
+            String commentId = in.readUTF();
+            if (op == PUT) {
+                String reviewId = SymbolTable.intern(in.readUTF());
+                String path = in.readUTF();
+                path = SymbolTable.intern(version == 1 ? path.replace(SEPARATOR, STORED_SEPARATOR) : path);
+                int status = in.readInt();
+                int length = in.readInt();
+                CRC32 crc = new CRC32();
+                crc.update(payload, payload.length - length, length);
+                put(new Record(fileKey, commentId, reviewId, path, status, payloadOffset + payload.length - length, length, crc.getValue(),
+                        payload.length + 8));
+            } else if (op == IMPORTED) {
+                imports.put(fileKey, in.readLong());
+                modified.remove(fileKey);
+            } else {
+                remove(fileKey, commentId);
+                garbage += payload.length + 8;
+            }
+        }
+
+        /**
+         * Adds the given record to the indices, an older record of the same comment becomes outdated
+         * @param r record to be added
+         */
+        private void put(Record r) {
+            LinkedHashMap<String, Record> comments = documents.get(r.fileKey);
+            if (comments == null) {
+                comments = new LinkedHashMap<String, Record>();
+                documents.put(r.fileKey, comments);
+            }
+            // the comment keeps its position within the document
+            Record old = comments.put(r.commentId, r);
+            if (old != null) {
+                unindex(old);
+                live -= old.size;
+                garbage += old.size;
+            }
+            index(byReview, r.reviewId, r);
+            index(byPath, r.path, r);
+            index(byStatus, r.status, r);
+            live += r.size;
+            if (imports.containsKey(r.fileKey)) {
+                modified.add(r.fileKey);
+            }
+        }
+
+        /**
+         * Removes the record of the given comment from the indices
+         * @param fileKey key of the comments document
+         * @param commentId id of the comment
+         */
+        private void remove(String fileKey, String commentId) {
+            LinkedHashMap<String, Record> comments = documents.get(fileKey);
+            if (comments == null) { return; }
+            Record old = comments.remove(commentId);
+            if (comments.isEmpty()) {
+                documents.remove(fileKey);
+            }
+            if (old != null) {
+                unindex(old);
+                live -= old.size;
+                garbage += old.size;
+                if (imports.containsKey(fileKey)) {
+                    modified.add(fileKey);
+                }
+            }
+        }
+
+        /**
+         * Adds the given record to the given index
+         * @param <K> key type
+         * @param index index
+         * @param key key of the record
+         * @param r record
+         */
+        private static <K> void index(HashMap<K, HashSet<Record>> index, K key, Record r) {
+            HashSet<Record> records = index.get(key);
+            if (records == null) {
+                records = new HashSet<Record>();
+                index.put(key, records);
+            }
+            records.add(r);
+        }
+
+        /**
+         * Removes the given record from the given index
+         * @param <K> key type
+         * @param index index
+         * @param key key of the record
+         * @param r record
+         */
+        private static <K> void unindex(HashMap<K, HashSet<Record>> index, K key, Record r) {
+            HashSet<Record> records = index.get(key);
+            if (records != null && records.remove(r) && records.isEmpty()) {
+                index.remove(key);
+            }
+        }
+
+        /**
+         * Removes the given record from all secondary indices
+         * @param r record
+         */
+        private void unindex(Record r) {
+            unindex(byReview, r.reviewId, r);
+            unindex(byPath, r.path, r);
+            unindex(byStatus, r.status, r);
+        }
+
+        /**
+         * Encodes a record storing the given comment
+         * @param fileKey key of the comments document
+         * @param commentId id of the comment
+         * @param reviewId id of the review of the comment
+         * @param path path of the commented file
+         * @param status status of the comment
+         * @param xml xml of the comment
+         * @return payload of the record (the xml is at its end)
+         * @throws IOException never
+         */
+        private static byte[] encodePut(String fileKey, String commentId, String reviewId, String path, int status, byte[] xml) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(xml.length + 128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PUT);
+            out.writeUTF(fileKey);
+            out.writeUTF(commentId);
+            out.writeUTF(reviewId);
+            out.writeUTF(path);
+            out.writeInt(status);
+            out.writeInt(xml.length);
+            out.write(xml);
+            out.close();
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Encodes a record stating that the author file of the given comments document has been imported
+         * @param fileKey key of the comments document
+         * @param checksum checksum of the contents of the author file
+         * @return payload of the record
+         * @throws IOException never
+         */
+        private static byte[] encodeImported(String fileKey, long checksum) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(IMPORTED);
+            out.writeUTF(fileKey);
+            // no comment id
+            out.writeUTF("");
+            out.writeLong(checksum);
+            out.close();
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Appends a record with the given payload to the given file
+         * @param target database file
+         * @param pos end of the log within the file
+         * @param payload payload of the record
+         * @throws IOException if the record could not be written
+         */
+        private static void append(RandomAccessFile target, long pos, byte[] payload) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 8);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+            out.close();
+            target.seek(pos);
+            target.write(bytes.toByteArray());
+        }
+
+        /**
+         * Appends a record storing the given comment and makes it the latest record of the comment
+         * @param fileKey key of the comments document
+         * @param commentId id of the comment
+         * @param reviewId id of the review of the comment
+         * @param path path of the commented file
+         * @param status status of the comment
+         * @param xml xml of the comment
+         * @param checksum checksum of the xml
+         * @throws IOException if the database file could not be written
+         */
+        private void appendPut(String fileKey, String commentId, String reviewId, String path, int status, byte[] xml, long checksum)
+                throws IOException {
+            byte[] payload = encodePut(fileKey, commentId, reviewId, path, status, xml);
+            append(file, end, payload);
+            put(new Record(fileKey, commentId, SymbolTable.intern(reviewId), SymbolTable.intern(path), status, end + 8 + payload.length - xml.length,
+                    xml.length, checksum, payload.length + 8));
+            end += payload.length + 8;
+        }
+
+        /**
+         * Stores the given comments as the comments document with the given key. Only changed comments are written, comments which are not
+         * contained anymore are deleted.
+         * @param fileKey key of the comments document
+         * @param comments values of the comments ({id, reviewId, path, status}) in document order
+         * @param xmls xml of the comments
+         * @throws IOException if the database file could not be written
+         */
+        private synchronized void save(String fileKey, List<Object[]> comments, List<byte[]> xmls) throws IOException {
+            reloadIfChanged();
+            store(fileKey, comments, xmls, true);
+            compactIfNeeded();
+            written();
+        }
+
+        /**
+         * Imports the comments of an author file as the comments document with the given key. If the document has been created or changed in
+         * the database since the author file has been imported last, the comments of the author file are merged into it (comments which are only
+         * contained in the database are kept). Otherwise the document is replaced by the comments of the author file.
+         * @param fileKey key of the comments document
+         * @param comments values of the comments ({id, reviewId, path, status}) in document order
+         * @param xmls xml of the comments
+         * @param checksum checksum of the contents of the author file
+         * @return <i>true</i> if the comments have been merged into a changed document, <i>false</i> if the document has been replaced
+         * @throws IOException if the database file could not be written
+         */
+        private synchronized boolean importDocument(String fileKey, List<Object[]> comments, List<byte[]> xmls, long checksum) throws IOException {
+            reloadIfChanged();
+            boolean merge = documents.containsKey(fileKey) && (!imports.containsKey(fileKey) || modified.contains(fileKey));
+            store(fileKey, comments, xmls, !merge);
+            byte[] payload = encodeImported(fileKey, checksum);
+            append(file, end, payload);
+            end += payload.length + 8;
+            imports.put(fileKey, checksum);
+            modified.remove(fileKey);
+            compactIfNeeded();
+            written();
+            return merge;
+        }
+
+        /**
+         * Returns the checksum of the contents of the author file of the given comments document when it has been imported last
+         * @param fileKey key of the comments document
+         * @return the checksum or <i>null</i> if the author file has never been imported
+         * @throws IOException if the changed database file could not be reopened
+         */
+        private synchronized Long getImportedChecksum(String fileKey) throws IOException {
+            reloadIfChanged();
+            return imports.get(fileKey);
+        }
+
+        /**
+         * Returns the keys of all comments documents, whose author files have been imported, but which do not contain any comment anymore
+         * @return keys of the emptied comments documents
+         * @throws IOException if the changed database file could not be reopened
+         */
+        private synchronized List<String> listEmptied() throws IOException {
+            reloadIfChanged();
+            ArrayList<String> result = new ArrayList<String>();
+            for (String fileKey : imports.keySet()) {
+                if (!documents.containsKey(fileKey)) {
+                    result.add(fileKey);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Stores the given comments as the comments document with the given key. Only changed comments are written.
+         * @param fileKey key of the comments document
+         * @param comments values of the comments ({id, reviewId, path, status}) in document order
+         * @param xmls xml of the comments
+         * @param deleteOthers <i>true</i> if stored comments which are not contained in the given ones should be deleted
+         * @throws IOException if the database file could not be written
+         */
+        private void store(String fileKey, List<Object[]> comments, List<byte[]> xmls, boolean deleteOthers) throws IOException {
+            LinkedHashMap<String, Record> existing = documents.get(fileKey);
+            HashSet<String> stored = new HashSet<String>();
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < comments.size(); i++) {
+                String commentId = (String) comments.get(i)[0];
+                String reviewId = (String) comments.get(i)[1];
+                String path = (String) comments.get(i)[2];
+                int status = (Integer) comments.get(i)[3];
+                byte[] xml = xmls.get(i);
+                stored.add(commentId);
+                crc.reset();
+                crc.update(xml);
+                Record old = existing == null ? null : existing.get(commentId);
+                if (old != null && old.checksum == crc.getValue() && old.length == xml.length && old.status == status && old.path.equals(path)) {
+                    continue;
+                }
+                appendPut(fileKey, commentId, reviewId, path, status, xml, crc.getValue());
+            }
+            existing = documents.get(fileKey);
+            if (existing != null && deleteOthers) {
+                for (String commentId : new ArrayList<String>(existing.keySet())) {
+                    if (!stored.contains(commentId)) {
+                        delete(fileKey, commentId);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Appends a deletion record for the given comment
+         * @param fileKey key of the comments document
+         * @param commentId id of the comment
+         * @throws IOException if the database file could not be written
+         */
+        private void delete(String fileKey, String commentId) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(DELETE);
+            out.writeUTF(fileKey);
+            out.writeUTF(commentId);
+            out.close();
+            byte[] payload = bytes.toByteArray();
+            append(file, end, payload);
+            end += payload.length + 8;
+            remove(fileKey, commentId);
+            garbage += payload.length + 8;
+        }
+
+        /**
+         * Deletes all comments of the given comments document
+         * @param fileKey key of the comments document
+         * @throws IOException if the database file could not be written
+         */
+        private synchronized void delete(String fileKey) throws IOException {
+            reloadIfChanged();
+            LinkedHashMap<String, Record> existing = documents.get(fileKey);
+            if (existing == null) { return; }
+            for (String commentId : new ArrayList<String>(existing.keySet())) {
+                delete(fileKey, commentId);
+            }
+            compactIfNeeded();
+            written();
+        }
+
+        /**
+         * Moves the comments of the given path to the new path by appending a record with the new path for every affected comment
+         * @param oldPath stored path of the moved file, folder or project
+         * @param newPath new stored path or <i>null</i> if the affected comments should only be counted
+         * @param moveAllChilds <i>true</i> if all comments below the old path should be moved, <i>false</i> if only the comments of the file
+         *            or the files directly within the folder should be moved
+         * @return number of affected comments
+         * @throws IOException if the database file could not be written
+         */
+        private synchronized int rewrite(String oldPath, String newPath, boolean moveAllChilds) throws IOException {
+            reloadIfChanged();
+            ArrayList<Record> affected = new ArrayList<Record>();
+            for (Map.Entry<String, HashSet<Record>> e : byPath.entrySet()) {
+                String path = e.getKey();
+                if (path.equals(oldPath)
+                        || (path.startsWith(oldPath + STORED_SEPARATOR) && (moveAllChilds || path.indexOf(STORED_SEPARATOR, oldPath.length() + 1) < 0))) {
+                    affected.addAll(e.getValue());
+                }
+            }
+            if (newPath == null || affected.isEmpty()) { return affected.size(); }
+            for (Map.Entry<Record, byte[]> e : read(affected).entrySet()) {
+                Record r = e.getKey();
+                appendPut(r.fileKey, r.commentId, r.reviewId, newPath + r.path.substring(oldPath.length()), r.status, e.getValue(), r.checksum);
+            }
+            compactIfNeeded();
+            written();
+            return affected.size();
+        }
+
+        /**
+         * Returns the keys of all stored comments documents starting with the given prefix
+         * @param prefix prefix of the keys
+         * @return keys of the comments documents
+         * @throws IOException if the changed database file could not be reopened
+         */
+        private synchronized List<String> list(String prefix) throws IOException {
+            reloadIfChanged();
+            ArrayList<String> result = new ArrayList<String>();
+            for (String fileKey : documents.keySet()) {
+                if (fileKey.startsWith(prefix)) {
+                    result.add(fileKey);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Reads all comments of the given comments document
+         * @param fileKey key of the comments document
+         * @return records of the comments mapped to their xml in document order
+         * @throws IOException if the database file could not be read
+         */
+        private synchronized LinkedHashMap<Record, byte[]> read(String fileKey) throws IOException {
+            reloadIfChanged();
+            LinkedHashMap<String, Record> existing = documents.get(fileKey);
+            return read(existing == null ? new ArrayList<Record>() : existing.values());
+        }
+
+        /**
+         * Reads all comments matching the given criteria
+         * @param reviewId id of the review or <i>null</i> for all reviews
+         * @param path path of the commented file or <i>null</i> for all files
+         * @param status status of the comments or {@link CommentStorage#ANY_STATUS}
+         * @return records of the matching comments mapped to their xml
+         * @throws IOException if the database file could not be read
+         */
+        private synchronized LinkedHashMap<Record, byte[]> query(String reviewId, String path, int status) throws IOException {
+            reloadIfChanged();
+            // start with the smallest index matching one of the criteria
+            Collection<Record> candidates = null;
+            if (reviewId != null) {
+                candidates = smaller(candidates, byReview.get(reviewId));
+            }
+            if (path != null) {
+                candidates = smaller(candidates, byPath.get(path));
+            }
+            if (status != ANY_STATUS) {
+                candidates = smaller(candidates, byStatus.get(status));
+            }
+            if (candidates == null) {
+                candidates = new ArrayList<Record>();
+                for (LinkedHashMap<String, Record> comments : documents.values()) {
+                    candidates.addAll(comments.values());
+                }
+            }
+            ArrayList<Record> matches = new ArrayList<Record>();
+            for (Record r : candidates) {
+                if ((reviewId == null || reviewId.equals(r.reviewId)) && (path == null || path.equals(r.path))
+                        && (status == ANY_STATUS || status == r.status)) {
+                    matches.add(r);
+                }
+            }
+            return read(matches);
+        }
+
+        /**
+         * Returns the smaller one of the given candidate sets
+         * @param current current candidates or <i>null</i> if there are no candidates yet
+         * @param records records of an index (<i>null</i> if there is no record for the key)
+         * @return the smaller collection
+         */
+        private static Collection<Record> smaller(Collection<Record> current, HashSet<Record> records) {
+            if (records == null) { return new ArrayList<Record>(); }
+            return current == null || records.size() < current.size() ? records : current;
+        }
+
+        /**
+         * Reads the xml of the given records
+         * @param records records to be read
+         * @return the records mapped to their xml
+         * @throws IOException if the database file could not be read
+         */
+        private LinkedHashMap<Record, byte[]> read(Collection<Record> records) throws IOException {
+            LinkedHashMap<Record, byte[]> result = new LinkedHashMap<Record, byte[]>();
+            for (Record r : records) {
+                byte[] xml = new byte[r.length];
+                file.seek(r.offset);
+                file.readFully(xml);
+                result.put(r, xml);
+            }
+            return result;
+        }
+
+        /**
+         * Rewrites the log with the latest records only, if most of it is outdated
+         * @throws IOException if the log could not be rewritten
+         */
+        private void compactIfNeeded() throws IOException {
+            if (garbage < COMPACTION_THRESHOLD || garbage < live) { return; }
+            PluginLogger.log(this.getClass().toString(), "compactIfNeeded", "Compacting " + location + " (" + garbage + " of " + (live + garbage)
+                    + " bytes outdated)");
+            compact();
+        }
+
+        /**
+         * Rewrites the log with the latest records only. The compacted log is written into a new file, the old log is only moved away after the
+         * new one has been written completely (see {@link #recover()}).
+         * @throws IOException if the log could not be rewritten
+         */
+        private void compact() throws IOException {
+            File tmp = new File(location.getPath() + TMP_SUFFIX);
+            File old = new File(location.getPath() + OLD_SUFFIX);
+            HashMap<Record, Long> offsets = new HashMap<Record, Long>();
+            RandomAccessFile target = new RandomAccessFile(tmp, "rw");
+            long pos = 8;
+            try {
+                target.setLength(0);
+                target.writeInt(MAGIC);
+                target.writeInt(VERSION);
+                for (Map.Entry<String, LinkedHashMap<String, Record>> d : documents.entrySet()) {
+                    String fileKey = d.getKey();
+                    // a document changed since its import has to stay changed when the log is read again
+                    boolean importFirst = imports.containsKey(fileKey) && modified.contains(fileKey);
+                    if (importFirst) {
+                        pos = appendImported(target, pos, fileKey);
+                    }
+                    for (Map.Entry<Record, byte[]> e : read(d.getValue().values()).entrySet()) {
+                        Record r = e.getKey();
+                        byte[] payload = encodePut(r.fileKey, r.commentId, r.reviewId, r.path, r.status, e.getValue());
+                        append(target, pos, payload);
+                        offsets.put(r, pos + 8 + payload.length - r.length);
+                        pos += payload.length + 8;
+                    }
+                    if (!importFirst && imports.containsKey(fileKey)) {
+                        pos = appendImported(target, pos, fileKey);
+                    }
+                }
+                for (String fileKey : imports.keySet()) {
+                    if (!documents.containsKey(fileKey)) {
+                        pos = appendImported(target, pos, fileKey);
+                    }
+                }
+                target.getFD().sync();
+            } finally {
+                target.close();
+            }
+            file.close();
+            if ((old.exists() && !old.delete()) || !location.renameTo(old)) {
+                // keep working on the old log
+                file = new RandomAccessFile(location, "rw");
+                throw new IOException("Could not replace " + location + " by its compacted version");
+            }
+            boolean replaced = tmp.renameTo(location);
+            if (!replaced && old.renameTo(location)) {
+                // keep working on the old log
+                file = new RandomAccessFile(location, "rw");
+                throw new IOException("Could not replace " + location + " by its compacted version");
+            }
+            opened = replaced ? location : tmp;
+            file = new RandomAccessFile(opened, "rw");
+            for (Map.Entry<Record, Long> e : offsets.entrySet()) {
+                e.getKey().offset = e.getValue();
+            }
+            end = pos;
+            garbage = 0;
+            if (replaced) {
+                if (!old.delete()) {
+                    PluginLogger.logWarning(this.getClass().toString(), "compact", "Could not delete " + old);
+                }
+            } else {
+                PluginLogger.logError(this.getClass().toString(), "compact", "Could not rename " + tmp + " to " + location
+                        + ", it will be restored when the database is opened the next time");
+            }
+        }
+
+        /**
+         * Appends the record stating the last import of the given comments document to the given file
+         * @param target database file
+         * @param pos end of the log within the file
+         * @param fileKey key of the comments document
+         * @return new end of the log
+         * @throws IOException if the record could not be written
+         */
+        private long appendImported(RandomAccessFile target, long pos, String fileKey) throws IOException {
+            byte[] payload = encodeImported(fileKey, imports.get(fileKey));
+            append(target, pos, payload);
+            return pos + payload.length + 8;
+        }
+
+        /**
+         * Closes the database file
+         */
+        private synchronized void close() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                PluginLogger.logError(this.getClass().toString(), "close", "IOException while closing " + location, e);
+            }
+        }
+    }
+
+    /**
+     * Default backend for importing author files
+     */
+    private final XmlCommentStorage xmlStorage = new XmlCommentStorage();
+
+    /**
+     * Opened databases of the source projects
+     */
+    private final HashMap<IProject, Store> stores = new HashMap<IProject, Store>();
+
+    /**
+     * Jobs refreshing the database files of the source projects in the workspace
+     */
+    private final HashMap<IProject, Job> refreshJobs = new HashMap<IProject, Job>();
+
+    /**
+     * Checksums of the contents of the author files by their modification stamps (author file -> {modification stamp, checksum})
+     */
+    private final HashMap<IFile, long[]> checksums = new HashMap<IFile, long[]>();
+
+    /**
+     * Returns the opened database of the given project. If the database does not exist yet, the author files of all reviews of the project are
+     * imported into the new database.
+     * @param project AgileReview Source Project
+     * @return the opened database
+     * @throws IOException if the database could not be opened
+     */
+    private Store getStore(IProject project) throws IOException {
+        synchronized (stores) {
+            Store store = stores.get(project);
+            if (store == null) {
+                if (project.getLocation() == null) { throw new IOException("Project " + project.getName() + " has no local file system location"); }
+                File location = project.getLocation().append(STORE_NAME).toFile();
+                // an interrupted compaction may have left the database without its file
+                boolean created = !location.exists() && !new File(location.getPath() + TMP_SUFFIX).exists()
+                        && !new File(location.getPath() + OLD_SUFFIX).exists();
+                store = new Store(location);
+                stores.put(project, store);
+                PluginLogger.log(this.getClass().toString(), "getStore", "Database of source project " + project.getName() + " opened ("
+                        + store.live + " bytes)");
+                if (created) {
+                    migrate(project, store);
+                }
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Imports the author files of all reviews of the given project into its newly created database. The author files are left untouched.
+     * @param project AgileReview Source Project
+     * @param store newly created database of the project
+     */
+    private void migrate(IProject project, Store store) {
+        int count = 0;
+        try {
+            for (IResource r : project.members()) {
+                if (r instanceof IFolder && r.getName().startsWith("review.")) {
+                    count += importChanged(store, (IFolder) r);
+                }
+            }
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "migrate", "Could not list the reviews of " + project.getName(), e);
+        }
+        PluginLogger.log(this.getClass().toString(), "migrate", count + " author files of " + project.getName() + " imported into the database");
+    }
+
+    /**
+     * Imports the author files of the given review folder, whose contents differ from the ones imported last
+     * @param store database of the project of the review folder
+     * @param reviewFolder review folder
+     * @return number of imported author files
+     * @throws CoreException if the review folder could not be listed
+     */
+    private int importChanged(Store store, IFolder reviewFolder) throws CoreException {
+        int count = 0;
+        for (IFile f : xmlStorage.list(reviewFolder)) {
+            try {
+                if (importIfChanged(store, f)) {
+                    count++;
+                }
+            } catch (IOException e) {
+                PluginLogger.logError(this.getClass().toString(), "importChanged", "Could not import " + f + " into the database", e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Imports the given author file into the database of its project, if its contents differ from the ones imported last (e.g. after it has
+     * been updated by a version control system). The author file itself is left untouched.
+     * @param authorFile author file
+     * @return <i>true</i> if the author file has been imported, <i>false</i> if it has not been changed since its last import
+     * @throws IOException if the author file could not be read or imported
+     */
+    boolean importIfChanged(IFile authorFile) throws IOException {
+        return importIfChanged(getStore(authorFile.getProject()), authorFile);
+    }
+
+    /**
+     * Imports the given author file into the given database, if its contents differ from the ones imported last
+     * @param store database of the project of the author file
+     * @param authorFile author file
+     * @return <i>true</i> if the author file has been imported, <i>false</i> if it has not been changed since its last import
+     * @throws IOException if the author file could not be read or imported
+     */
+    private boolean importIfChanged(Store store, IFile authorFile) throws IOException {
+        long checksum = checksum(authorFile);
+        String key = getKey(authorFile);
+        Long imported = store.getImportedChecksum(key);
+        if (imported != null && imported.longValue() == checksum) { return false; }
+        CommentsDocument document;
+        try {
+            document = xmlStorage.load(authorFile);
+        } catch (Exception e) {
+            throw new IOException("Could not parse " + authorFile, e);
+        }
+        ArrayList<Object[]> values = new ArrayList<Object[]>();
+        ArrayList<byte[]> xmls = new ArrayList<byte[]>();
+        serialize(document, values, xmls);
+        if (store.importDocument(key, values, xmls, checksum)) {
+            PluginLogger.logWarning(this.getClass().toString(), "importIfChanged", authorFile + " has been changed by someone else, its comments "
+                    + "have been merged with the ones changed in the database");
+        }
+        refresh(authorFile.getProject());
+        return true;
+    }
+
+    /**
+     * Computes the checksum of the contents of the given author file. The checksum is cached as long as the file is not modified.
+     * @param authorFile author file
+     * @return checksum of the contents
+     * @throws IOException if the author file could not be read
+     */
+    private long checksum(IFile authorFile) throws IOException {
+        long stamp = authorFile.getModificationStamp();
+        synchronized (checksums) {
+            long[] cached = checksums.get(authorFile);
+            if (cached != null && cached[0] == stamp) { return cached[1]; }
+        }
+        CRC32 crc = new CRC32();
+        try {
+            InputStream in = authorFile.getContents(true);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (CoreException e) {
+            throw new IOException("Could not read " + authorFile, e);
+        }
+        synchronized (checksums) {
+            checksums.put(authorFile, new long[] { stamp, crc.getValue() });
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Refreshes the database file of the given project in the workspace after it has been written, so that the workspace is in sync with the
+     * file system (e.g. for version control systems). Several writes in a row are refreshed at once.
+     * @param project AgileReview Source Project
+     */
+    private void refresh(IProject project) {
+        synchronized (refreshJobs) {
+            Job job = refreshJobs.get(project);
+            if (job == null) {
+                final IFile storeFile = project.getFile(STORE_NAME);
+                job = new Job("Refreshing " + storeFile.getFullPath()) {
+                    @Override
+                    protected IStatus run(IProgressMonitor monitor) {
+                        try {
+                            storeFile.refreshLocal(IResource.DEPTH_ZERO, monitor);
+                        } catch (CoreException e) {
+                            PluginLogger.logError(EmbeddedCommentStorage.class.toString(), "refresh", "Could not refresh " + storeFile, e);
+                        }
+                        return Status.OK_STATUS;
+                    }
+                };
+                job.setRule(storeFile);
+                job.setSystem(true);
+                refreshJobs.put(project, job);
+            }
+            job.schedule(REFRESH_DELAY);
+        }
+    }
+
+    /**
+     * Converts the given path (as computed by {@link ReviewAccess#computePath(XmlObject)}) to the form stored in the database file
+     * @param path path of a commented file, folder or project or <i>null</i>
+     * @return the stored form of the path or <i>null</i> if no path has been given
+     */
+    private static String toStoredPath(String path) {
+        return path == null ? null : path.replace(SEPARATOR, STORED_SEPARATOR);
+    }
+
+    /**
+     * Converts the given path stored in the database file to the form computed by {@link ReviewAccess#computePath(XmlObject)}
+     * @param path stored path of a commented file
+     * @return the path of the commented file
+     */
+    private static String fromStoredPath(String path) {
+        return path.replace(STORED_SEPARATOR, SEPARATOR);
+    }
+
+    /**
+     * Returns the key of the comments document of the given author file
+     * @param authorFile author file
+     * @return project relative path of the author file
+     */
+    private static String getKey(IFile authorFile) {
+        return authorFile.getProjectRelativePath().toPortableString();
+    }
+
+    @Override
+    public boolean isWorkspaceBacked() {
+        return false;
+    }
+
+    @Override
+    public List<IFile> list(IFolder reviewFolder) throws CoreException {
+        try {
+            Store store = getStore(reviewFolder.getProject());
+            if (reviewFolder.exists()) {
+                // author files added or updated by others (e.g. by a version control system) must not be ignored
+                int count = importChanged(store, reviewFolder);
+                if (count > 0) {
+                    PluginLogger.log(this.getClass().toString(), "list", count + " changed author files of " + reviewFolder
+                            + " imported into the database");
+                }
+            }
+            List<String> keys = store.list(reviewFolder.getProjectRelativePath().toPortableString() + "/");
+            ArrayList<IFile> result = new ArrayList<IFile>(keys.size());
+            for (String key : keys) {
+                result.add(reviewFolder.getProject().getFile(key));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not read the comments of " + reviewFolder, e));
+        }
+    }
+
+    @Override
+    public CommentsDocument load(IFile authorFile) throws Exception {
+        LinkedHashMap<Record, byte[]> records = getStore(authorFile.getProject()).read(getKey(authorFile));
+        if (records.isEmpty()) { throw new IOException("No comments stored for " + authorFile); }
+        return createDocument(authorFile, records);
+    }
+
+    /**
+     * Creates the comments document of the given author file containing the given comments
+     * @param authorFile author file of the document
+     * @param records records of the comments mapped to their xml in document order
+     * @return the comments document
+     * @throws Exception if a comment could not be parsed
+     */
+    private static CommentsDocument createDocument(IFile authorFile, LinkedHashMap<Record, byte[]> records) throws Exception {
+        CommentsDocument doc = CommentsDocument.Factory.newInstance();
+        Comments comments = doc.addNewComments();
+        String name = authorFile.getName();
+        comments.addNewAuthor().setName(name.startsWith("author_") && name.endsWith(".xml") ? name.substring(7, name.length() - 4) : name);
+        Files files = comments.addNewFiles();
+        HashMap<String, XmlObject> nodes = new HashMap<String, XmlObject>();
+        for (Map.Entry<Record, byte[]> e : records.entrySet()) {
+            Comment stored = CommentDocument.Factory.parse(new ByteArrayInputStream(e.getValue())).getComment();
+            getFile(files, e.getKey().path, nodes).addNewComment().set(stored);
+        }
+        return doc;
+    }
+
+    /**
+     * Returns the file element of the given path, creating it (and its parents) if necessary
+     * @param files files element of the document
+     * @param path stored path of the file
+     * @param nodes already created elements by their path
+     * @return the file element
+     * @throws IOException if the path does not denote a file within a project
+     */
+    private static agileReview.softech.tukl.de.FileDocument.File getFile(Files files, String path, HashMap<String, XmlObject> nodes)
+            throws IOException {
+        XmlObject node = nodes.get(path);
+        if (node == null) {
+            int sep = path.lastIndexOf(STORED_SEPARATOR);
+            if (sep < 0) { throw new IOException("Invalid path of a commented file: " + path); }
+            XmlObject parent = getContainer(files, path.substring(0, sep), nodes);
+            agileReview.softech.tukl.de.FileDocument.File f = parent instanceof Project ? ((Project) parent).addNewFile() : ((Folder) parent)
+                    .addNewFile();
+            f.setName(path.substring(sep + STORED_SEPARATOR.length()));
+            nodes.put(path, f);
+            node = f;
+        }
+        return (agileReview.softech.tukl.de.FileDocument.File) node;
+    }
+
+    /**
+     * Returns the project or folder element of the given path, creating it (and its parents) if necessary
+     * @param files files element of the document
+     * @param path stored path of the project or folder
+     * @param nodes already created elements by their path
+     * @return the project or folder element
+     */
+    private static XmlObject getContainer(Files files, String path, HashMap<String, XmlObject> nodes) {
+        XmlObject node = nodes.get(path);
+        if (node == null) {
+            int sep = path.lastIndexOf(STORED_SEPARATOR);
+            if (sep < 0) {
+                Project p = files.addNewProject();
+                p.setName(path);
+                node = p;
+            } else {
+                XmlObject parent = getContainer(files, path.substring(0, sep), nodes);
+                Folder f = parent instanceof Project ? ((Project) parent).addNewFolder() : ((Folder) parent).addNewFolder();
+                f.setName(path.substring(sep + STORED_SEPARATOR.length()));
+                node = f;
+            }
+            nodes.put(path, node);
+        }
+        return node;
+    }
+
+    @Override
+    public void save(IFile authorFile, CommentsDocument document) throws IOException {
+        // serialize the comments before the database is locked
+        ArrayList<Object[]> values = new ArrayList<Object[]>();
+        ArrayList<byte[]> xmls = new ArrayList<byte[]>();
+        serialize(document, values, xmls);
+        getStore(authorFile.getProject()).save(getKey(authorFile), values, xmls);
+        refresh(authorFile.getProject());
+    }
+
+    /**
+     * Serializes all comments of the given document
+     * @param document comments document
+     * @param values list the values of the comments ({id, reviewId, path, status}) will be added to
+     * @param xmls list the xml of the comments will be added to
+     * @throws IOException if a comment could not be serialized
+     */
+    private static void serialize(CommentsDocument document, List<Object[]> values, List<byte[]> xmls) throws IOException {
+        Files files = document.getComments() == null ? null : document.getComments().getFiles();
+        if (files == null) { return; }
+        XmlCursor c = files.newCursor();
+        try {
+            collect(c, null, values, xmls);
+        } finally {
+            c.dispose();
+        }
+    }
+
+    /**
+     * Serializes all comments below the node the given cursor is pointing to. The cursor will point to the same node afterwards.
+     * @param c cursor pointing to the files, a project, folder or file node
+     * @param path stored path of the node (<i>null</i> for the files node)
+     * @param values list the values of the comments ({id, reviewId, path, status}) will be added to
+     * @param xmls list the xml of the comments will be added to
+     * @throws IOException if a comment could not be serialized
+     */
+    private static void collect(XmlCursor c, String path, List<Object[]> values, List<byte[]> xmls) throws IOException {
+        if (!c.toFirstChild()) { return; }
+        do {
+            XmlObject o = c.getObject();
+            if (o instanceof Comment) {
+                Comment comment = (Comment) o;
+                CommentDocument single = CommentDocument.Factory.newInstance();
+                single.setComment(comment);
+                values.add(new Object[] { comment.getId(), comment.getReviewID(), path, comment.getStatus() });
+                xmls.add(single.xmlText().getBytes("UTF-8"));
+            } else if (o instanceof Project || o instanceof Folder || o instanceof agileReview.softech.tukl.de.FileDocument.File) {
+                String name = c.getAttributeText(NAME);
+                collect(c, path == null ? name : path + STORED_SEPARATOR + name, values, xmls);
+            }
+        } while (c.toNextSibling());
+        c.toParent();
+    }
+
+    @Override
+    public void delete(IFile authorFile) throws CoreException {
+        try {
+            getStore(authorFile.getProject()).delete(getKey(authorFile));
+            refresh(authorFile.getProject());
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not delete the comments of " + authorFile, e));
+        }
+        // an imported author file is kept, it is only imported again if it is changed by someone else
+    }
+
+    @Override
+    public int rewritePaths(IProject sourceProject, String oldPath, String newPath, boolean moveAllChilds) throws IOException {
+        int count = getStore(sourceProject).rewrite(toStoredPath(oldPath), toStoredPath(newPath), moveAllChilds);
+        if (newPath != null && count > 0) {
+            refresh(sourceProject);
+        }
+        return count;
+    }
+
+    /**
+     * Writes all comments documents stored in the databases of the workspace back into their author files, so that the author files are
+     * authoritative again. Has to be called before this backend is replaced by the {@link XmlCommentStorage}. The author files of imported
+     * documents, whose comments have all been deleted in the meantime, are emptied. Missing review folders are created again. Afterwards the
+     * databases are renamed to <code>agilereview.db.bak</code>, so that they can be restored manually. A database is kept if its documents could
+     * not be written back.
+     */
+    void writeBack() {
+        for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+            if (!project.isOpen() || project.getLocation() == null || !project.getLocation().append(STORE_NAME).toFile().exists()) {
+                continue;
+            }
+            try {
+                Store store = getStore(project);
+                List<String> keys = store.list("");
+                for (String key : keys) {
+                    IFile authorFile = project.getFile(key);
+                    createFolder(authorFile);
+                    XmlCommentStorage.writeFile(load(authorFile), authorFile);
+                }
+                List<String> emptied = store.listEmptied();
+                for (String key : emptied) {
+                    IFile authorFile = project.getFile(key);
+                    if (authorFile.exists()) {
+                        PluginLogger.logWarning(this.getClass().toString(), "writeBack", "All comments of " + authorFile
+                                + " have been deleted, the author file is emptied");
+                        XmlCommentStorage.writeFile(createDocument(authorFile, new LinkedHashMap<Record, byte[]>()), authorFile);
+                    }
+                }
+                synchronized (stores) {
+                    stores.remove(project);
+                    store.close();
+                }
+                File backup = new File(store.location.getPath() + BACKUP_SUFFIX);
+                if ((backup.exists() && !backup.delete()) || !store.location.renameTo(backup)) { throw new IOException("Could not rename "
+                        + store.location + " to " + backup); }
+                project.refreshLocal(IResource.DEPTH_INFINITE, null);
+                PluginLogger.log(this.getClass().toString(), "writeBack", keys.size() + " comments documents of " + project.getName()
+                        + " written back into their author files, the database has been renamed to " + backup);
+            } catch (Exception e) {
+                PluginLogger.logError(this.getClass().toString(), "writeBack", "Could not write back the comments stored in the database of "
+                        + project.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Creates the review folder of the given author file, if it does not exist (e.g. because it has been deleted by someone else), so that the
+     * comments stored in the database are not lost
+     * @param authorFile author file
+     * @throws CoreException if the folder could not be created
+     */
+    private void createFolder(IFile authorFile) throws CoreException {
+        if (!(authorFile.getParent() instanceof IFolder)) { return; }
+        IFolder reviewFolder = (IFolder) authorFile.getParent();
+        // the folder may exist in the file system without being known to the workspace
+        reviewFolder.refreshLocal(IResource.DEPTH_ZERO, null);
+        if (reviewFolder.exists()) { return; }
+        PluginLogger.logWarning(this.getClass().toString(), "createFolder", reviewFolder + " does not exist anymore, it is created again to write "
+                + "back the comments stored in the database");
+        reviewFolder.create(true, true, null);
+    }
+
+    @Override
+    public int query(IProject sourceProject, String reviewId, String path, int status, StreamingCommentReader.CommentVisitor visitor)
+            throws Exception {
+        LinkedHashMap<Record, byte[]> matches = getStore(sourceProject).query(reviewId, toStoredPath(path), status);
+        for (Map.Entry<Record, byte[]> e : matches.entrySet()) {
+            StreamingCommentReader.read(new ByteArrayInputStream(e.getValue()), fromStoredPath(e.getKey().path), visitor);
+        }
+        return matches.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (checksums) {
+            checksums.clear();
+        }
+        synchronized (refreshJobs) {
+            // already scheduled refreshes are still performed
+            refreshJobs.clear();
+        }
+        synchronized (stores) {
+            for (Store store : stores.values()) {
+                store.close();
+            }
+            stores.clear();
+        }
+    }
+}
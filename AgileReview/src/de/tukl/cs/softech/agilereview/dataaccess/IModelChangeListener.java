@@ -0,0 +1,15 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.List;
+
+/**
+ * Listener which will be notified by the {@link ModelEventBus} about changes of the review model
+ */
+public interface IModelChangeListener {
+
+    /**
+     * Will be called in the UI thread with all changes which have been posted since the last notification
+     * @param events changes of the model in the order they have been posted
+     */
+    public void modelChanged(List<ModelEvent> events);
+}
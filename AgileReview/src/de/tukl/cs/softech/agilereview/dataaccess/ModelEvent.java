@@ -0,0 +1,175 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+
+/**
+ * Immutable event describing a single change of the review model. Events are created by the data access layer and delivered in batches by the
+ * {@link ModelEventBus}, so that views can patch their contents instead of reloading them completely.
+ */
+public final class ModelEvent {
+
+    /**
+     * Kinds of model changes
+     */
+    public enum Type {
+        /**
+         * A comment has been created (key and comment are set)
+         */
+        COMMENT_ADDED,
+        /**
+         * The attributes of a comment have been saved (key and comment are set)
+         */
+        COMMENT_CHANGED,
+        /**
+         * A comment has been deleted (key and comment are set)
+         */
+        COMMENT_REMOVED,
+        /**
+         * The comments of a review have been loaded (review id is set)
+         */
+        REVIEW_OPENED,
+        /**
+         * The comments of a review have been unloaded (review id is set)
+         */
+        REVIEW_CLOSED,
+        /**
+         * Commented resources have been moved or renamed (old and new path are set)
+         */
+        PATH_MOVED
+    }
+
+    /**
+     * Kind of this event
+     */
+    private final Type type;
+    /**
+     * Id of the affected review
+     */
+    private final String reviewId;
+    /**
+     * Author of the affected comment
+     */
+    private final String author;
+    /**
+     * Id of the affected comment
+     */
+    private final String commentId;
+    /**
+     * Affected comment
+     */
+    private final Comment comment;
+    /**
+     * Path of the moved resource before the move
+     */
+    private final String oldPath;
+    /**
+     * Path of the moved resource after the move
+     */
+    private final String newPath;
+
+    /**
+     * Creates a new event
+     * @param type kind of the event
+     * @param reviewId id of the affected review
+     * @param author author of the affected comment
+     * @param commentId id of the affected comment
+     * @param comment affected comment
+     * @param oldPath path of the moved resource before the move
+     * @param newPath path of the moved resource after the move
+     */
+    private ModelEvent(Type type, String reviewId, String author, String commentId, Comment comment, String oldPath, String newPath) {
+        this.type = type;
+        this.reviewId = reviewId;
+        this.author = author;
+        this.commentId = commentId;
+        this.comment = comment;
+        this.oldPath = oldPath;
+        this.newPath = newPath;
+    }
+
+    /**
+     * Creates an event for an added, changed or removed comment. The key of the comment is captured immediately.
+     * @param type {@link Type#COMMENT_ADDED}, {@link Type#COMMENT_CHANGED} or {@link Type#COMMENT_REMOVED}
+     * @param comment affected comment
+     * @return the new event
+     */
+    static ModelEvent commentEvent(Type type, Comment comment) {
+        return new ModelEvent(type, SymbolTable.lookup(comment.getReviewID()), SymbolTable.lookup(comment.getAuthor()), comment.getId(), comment,
+                null, null);
+    }
+
+    /**
+     * Creates an event for an opened or closed review
+     * @param type {@link Type#REVIEW_OPENED} or {@link Type#REVIEW_CLOSED}
+     * @param reviewId id of the review
+     * @return the new event
+     */
+    static ModelEvent reviewEvent(Type type, String reviewId) {
+        return new ModelEvent(type, SymbolTable.lookup(reviewId), null, null, null, null, null);
+    }
+
+    /**
+     * Creates an event for a moved or renamed resource
+     * @param oldPath path of the resource before the move
+     * @param newPath path of the resource after the move
+     * @return the new event
+     */
+    public static ModelEvent pathMoved(String oldPath, String newPath) {
+        return new ModelEvent(Type.PATH_MOVED, null, null, null, null, oldPath, newPath);
+    }
+
+    /**
+     * @return the kind of this event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the affected review (<i>null</i> for {@link Type#PATH_MOVED})
+     */
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    /**
+     * @return the author of the affected comment (<i>null</i> if no comment is affected)
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * @return the id of the affected comment (<i>null</i> if no comment is affected)
+     */
+    public String getCommentId() {
+        return commentId;
+    }
+
+    /**
+     * @return the affected comment (<i>null</i> if no comment is affected)
+     */
+    public Comment getComment() {
+        return comment;
+    }
+
+    /**
+     * @return the path of the moved resource before the move (<i>null</i> if no resource has been moved)
+     */
+    public String getOldPath() {
+        return oldPath;
+    }
+
+    /**
+     * @return the path of the moved resource after the move (<i>null</i> if no resource has been moved)
+     */
+    public String getNewPath() {
+        return newPath;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.PATH_MOVED) { return type + "(" + oldPath + " -> " + newPath + ")"; }
+        return type + "(" + reviewId + (commentId == null ? "" : "|" + author + "|" + commentId) + ")";
+    }
+}
@@ -0,0 +1,95 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
+
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * Distributes {@link ModelEvent}s to all registered {@link IModelChangeListener}s. Events can be posted from any thread. They are queued and
+ * delivered asynchronously in the UI thread, whereby all events posted until the delivery are handed over as one batch.
+ */
+public final class ModelEventBus {
+
+    /**
+     * Registered listeners
+     */
+    private static final CopyOnWriteArrayList<IModelChangeListener> LISTENERS = new CopyOnWriteArrayList<IModelChangeListener>();
+
+    /**
+     * Events which have not been delivered yet
+     */
+    private static final ArrayList<ModelEvent> PENDING = new ArrayList<ModelEvent>();
+
+    /**
+     * Delivers all pending events
+     */
+    private static final Runnable DISPATCHER = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    /**
+     * No instances
+     */
+    private ModelEventBus() {
+    }
+
+    /**
+     * Registers the given listener (if not already registered)
+     * @param listener listener to be notified about model changes
+     */
+    public static void addListener(IModelChangeListener listener) {
+        LISTENERS.addIfAbsent(listener);
+    }
+
+    /**
+     * Unregisters the given listener
+     * @param listener listener which should not be notified anymore
+     */
+    public static void removeListener(IModelChangeListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Posts the given event. It will be delivered with all other events posted until the next dispatch.
+     * @param event change of the model
+     */
+    public static void post(ModelEvent event) {
+        if (LISTENERS.isEmpty() || !PlatformUI.isWorkbenchRunning()) { return; }
+        boolean schedule;
+        synchronized (PENDING) {
+            schedule = PENDING.isEmpty();
+            PENDING.add(event);
+        }
+        if (schedule) {
+            Display.getDefault().asyncExec(DISPATCHER);
+        }
+    }
+
+    /**
+     * Delivers all pending events to the registered listeners
+     */
+    private static void dispatch() {
+        List<ModelEvent> events;
+        synchronized (PENDING) {
+            events = new ArrayList<ModelEvent>(PENDING);
+            PENDING.clear();
+        }
+        if (events.isEmpty()) { return; }
+        PluginLogger.log(ModelEventBus.class.toString(), "dispatch", "Delivering " + events.size() + " model events");
+        for (IModelChangeListener l : LISTENERS) {
+            try {
+                l.modelChanged(events);
+            } catch (RuntimeException e) {
+                PluginLogger.logError(ModelEventBus.class.toString(), "dispatch", "Listener " + l + " failed to process model events", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * Keeps track of the review and comment files written or deleted by the plugin itself, so that the resulting resource deltas can be told apart
+ * from external changes. For every written file the checksum and length of the written content is recorded. The first delta of such a file is
+ * identified by comparing the content on disk with the recorded checksum. Afterwards the modification stamp of the file is remembered, so that
+ * further deltas of the same version are identified without reading the file.
+ */
+class OwnWriteTracker {
+
+    /**
+     * Recorded state of a file written or deleted by the plugin
+     */
+    private static class Entry {
+        /**
+         * CRC32 checksum of the written content
+         */
+        private final long checksum;
+        /**
+         * Length of the written content in bytes (-1 if the file has been deleted)
+         */
+        private final long length;
+        /**
+         * Modification stamp of the written version in the workspace (or {@link IResource#NULL_STAMP} if not yet known)
+         */
+        private volatile long stamp = IResource.NULL_STAMP;
+
+        /**
+         * Creates a new entry
+         * @param checksum CRC32 checksum of the written content
+         * @param length length of the written content in bytes (-1 if the file has been deleted)
+         */
+        private Entry(long checksum, long length) {
+            this.checksum = checksum;
+            this.length = length;
+        }
+
+        /**
+         * @return <i>true</i> if this entry describes a deletion
+         */
+        private boolean isDeletion() {
+            return length < 0;
+        }
+    }
+
+    /**
+     * Singleton instance
+     */
+    private static final OwnWriteTracker instance = new OwnWriteTracker();
+
+    /**
+     * Written or deleted files mapped to their recorded state
+     */
+    private final ConcurrentHashMap<IFile, Entry> entries = new ConcurrentHashMap<IFile, Entry>();
+
+    /**
+     * @return the singleton instance
+     */
+    static OwnWriteTracker getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records that the plugin has written the given content to the given file. Has to be called before the workspace is refreshed.
+     * @param file written file
+     * @param checksum CRC32 checksum of the written content
+     * @param length length of the written content in bytes
+     */
+    void written(IFile file, long checksum, long length) {
+        entries.put(file, new Entry(checksum, length));
+    }
+
+    /**
+     * Records that the plugin is going to delete the given file. Has to be called before the file is deleted.
+     * @param file file to be deleted
+     */
+    void deleted(IFile file) {
+        entries.put(file, new Entry(0, -1));
+    }
+
+    /**
+     * Checks whether the given delta has been caused by the plugin itself. Deltas of files which have been changed externally afterwards are not
+     * identified as own changes, the file is not tracked anymore in this case.
+     * @param delta delta of a file
+     * @return <i>true</i> if the delta describes a change done by the plugin, <i>false</i> otherwise
+     */
+    boolean isOwnChange(IResourceDelta delta) {
+        IResource res = delta.getResource();
+        if (!(res instanceof IFile)) { return false; }
+        Entry entry = entries.get(res);
+        if (entry == null) { return false; }
+
+        if (delta.getKind() == IResourceDelta.REMOVED || entry.isDeletion()) {
+            boolean own = delta.getKind() == IResourceDelta.REMOVED && entry.isDeletion();
+            entries.remove(res, entry);
+            return own;
+        }
+        long stamp = res.getModificationStamp();
+        if (stamp != IResource.NULL_STAMP && stamp == entry.stamp) { return true; }
+
+        // first delta of this version (or a different version): compare the content
+        if (res.getLocation() != null) {
+            File file = res.getLocation().toFile();
+            try {
+                if (file.length() == entry.length && checksum(file) == entry.checksum) {
+                    entry.stamp = stamp;
+                    return true;
+                }
+            } catch (IOException e) {
+                PluginLogger.logError(this.getClass().toString(), "isOwnChange", "IOException while reading " + file, e);
+            }
+        }
+        entries.remove(res, entry);
+        return false;
+    }
+
+    /**
+     * Computes the CRC32 checksum of the given file
+     * @param file file on disk
+     * @return checksum of the content of the file
+     * @throws IOException if the file could not be read
+     */
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+}
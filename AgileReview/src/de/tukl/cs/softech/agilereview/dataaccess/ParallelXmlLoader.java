@@ -0,0 +1,310 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+
+import agileReview.softech.tukl.de.CommentsDocument;
+import agileReview.softech.tukl.de.ReviewDocument;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
+
+/**
+ * Parses review and comment files on a bounded pool of worker threads. The parsed documents are returned in the order of the given files, so that
+ * the caller can merge them into the models in a single threaded commit step. The pool is shared by all loads, created lazily and shut down by
+ * {@link #shutdown()}; idle workers terminate after a while.
+ */
+class ParallelXmlLoader {
+
+    /**
+     * Parser for one type of xml document
+     * @param <T> type of the parsed document
+     */
+    interface DocumentParser<T> {
+        /**
+         * Parses the given stream
+         * @param stream stream to parse (will be closed by the caller)
+         * @return the parsed document
+         * @throws Exception if the stream could not be parsed
+         */
+        T parse(InputStream stream) throws Exception;
+    }
+
+    /**
+     * Loader for the document of one file
+     * @param <T> type of the loaded document
+     */
+    private interface DocumentLoader<T> {
+        /**
+         * Loads the document of the given file
+         * @param file file to be loaded
+         * @return the loaded document
+         * @throws Exception if the document could not be loaded
+         */
+        T load(IFile file) throws Exception;
+    }
+
+    /**
+     * Parser for comment files
+     */
+    static final DocumentParser<CommentsDocument> COMMENTS_PARSER = new DocumentParser<CommentsDocument>() {
+        @Override
+        public CommentsDocument parse(InputStream stream) throws Exception {
+            return CommentsDocument.Factory.parse(stream);
+        }
+    };
+
+    /**
+     * Parser for review files
+     */
+    static final DocumentParser<ReviewDocument> REVIEW_PARSER = new DocumentParser<ReviewDocument>() {
+        @Override
+        public ReviewDocument parse(InputStream stream) throws Exception {
+            return ReviewDocument.Factory.parse(stream);
+        }
+    };
+
+    /**
+     * Result of loading one file. Either the document or the error is set.
+     * @param <T> type of the parsed document
+     */
+    static class Result<T> {
+        /**
+         * The loaded file
+         */
+        private final IFile file;
+        /**
+         * The parsed document or <i>null</i> if an error occurred
+         */
+        private final T document;
+        /**
+         * The error which occurred while loading or <i>null</i> if the file was loaded successfully
+         */
+        private final Exception error;
+
+        /**
+         * Creates a new result
+         * @param file the loaded file
+         * @param document the parsed document
+         * @param error the error which occurred while loading
+         */
+        private Result(IFile file, T document, Exception error) {
+            this.file = file;
+            this.document = document;
+            this.error = error;
+        }
+
+        /**
+         * @return the loaded file
+         */
+        IFile getFile() {
+            return file;
+        }
+
+        /**
+         * @return the parsed document or <i>null</i> if an error occurred
+         */
+        T getDocument() {
+            return document;
+        }
+
+        /**
+         * @return the error which occurred while loading or <i>null</i> if the file was loaded successfully
+         */
+        Exception getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Counter for naming the worker threads
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Seconds after which idle worker threads terminate
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Shared worker pool or <i>null</i> if it has not been created yet or has been shut down
+     */
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * Returns the configured number of worker threads
+     * @return number of worker threads (at least 1)
+     */
+    private static int getPoolSize() {
+        return Math.max(1, PropertiesManager.getPreferences().getInt(PropertiesManager.EXTERNAL_KEYS.LOADER_THREADS));
+    }
+
+    /**
+     * Returns the shared worker pool, which is created on first use. The pool is resized if the configured number of worker threads has changed.
+     * @param poolSize configured number of worker threads
+     * @return the shared worker pool
+     */
+    private static synchronized ThreadPoolExecutor getExecutor(int poolSize) {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "AgileReview XML Loader " + THREAD_COUNTER.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        } else if (executor.getMaximumPoolSize() != poolSize) {
+            // the core size must never exceed the maximum size
+            if (poolSize > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(poolSize);
+                executor.setCorePoolSize(poolSize);
+            } else {
+                executor.setCorePoolSize(poolSize);
+                executor.setMaximumPoolSize(poolSize);
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Shuts down the shared worker pool. Running loads are interrupted. Should be called when the plugin is stopped.
+     */
+    static synchronized void shutdown() {
+        if (executor != null) {
+            // queued loads would never complete otherwise
+            for (Runnable r : executor.shutdownNow()) {
+                if (r instanceof Future<?>) {
+                    ((Future<?>) r).cancel(false);
+                }
+            }
+            executor = null;
+        }
+    }
+
+    /**
+     * Loads and parses the given files. If more than one worker thread is configured, the files are parsed in parallel. This method returns when all
+     * files have been processed.
+     * @param <T> type of the parsed documents
+     * @param files files to be loaded
+     * @param parser parser for the documents
+     * @return one result for each given file in the order of the given files
+     */
+    static <T> List<Result<T>> load(List<IFile> files, final DocumentParser<T> parser) {
+        return load(files, new DocumentLoader<T>() {
+            @Override
+            public T load(IFile file) throws Exception {
+                InputStream stream = file.getContents(true);
+                try {
+                    return parser.parse(stream);
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the comments documents of the given author files from the given storage. If more than one worker thread is configured, the documents
+     * are loaded in parallel. This method returns when all documents have been processed.
+     * @param files author files of the documents to be loaded
+     * @param storage storage backend of the documents
+     * @return one result for each given file in the order of the given files
+     */
+    static List<Result<CommentsDocument>> load(List<IFile> files, final CommentStorage storage) {
+        return load(files, new DocumentLoader<CommentsDocument>() {
+            @Override
+            public CommentsDocument load(IFile file) throws Exception {
+                return storage.load(file);
+            }
+        });
+    }
+
+    /**
+     * Loads the documents of the given files with the given loader
+     * @param <T> type of the loaded documents
+     * @param files files to be loaded
+     * @param loader loader for the documents
+     * @return one result for each given file in the order of the given files
+     */
+    private static <T> List<Result<T>> load(List<IFile> files, final DocumentLoader<T> loader) {
+        List<Result<T>> results = new ArrayList<Result<T>>(files.size());
+        int poolSize = getPoolSize();
+
+        if (poolSize <= 1 || files.size() <= 1) {
+            // not worth a thread pool
+            for (IFile f : files) {
+                results.add(loadFile(f, loader));
+            }
+            return results;
+        }
+
+        ThreadPoolExecutor pool = getExecutor(poolSize);
+        List<Future<Result<T>>> futures = new ArrayList<Future<Result<T>>>(files.size());
+        for (final IFile f : files) {
+            FutureTask<Result<T>> task = new FutureTask<Result<T>>(new Callable<Result<T>>() {
+                @Override
+                public Result<T> call() {
+                    return loadFile(f, loader);
+                }
+            });
+            try {
+                pool.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the pool has been shut down concurrently
+                task.run();
+            }
+            futures.add(task);
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                PluginLogger.logWarning(ParallelXmlLoader.class.toString(), "load", "Interrupted while waiting for file " + files.get(i));
+                Thread.currentThread().interrupt();
+                // report this and all remaining files as failed, the shared pool must not keep working on them
+                for (int j = i; j < files.size(); j++) {
+                    futures.get(j).cancel(true);
+                    results.add(new Result<T>(files.get(j), null, e));
+                }
+                break;
+            } catch (CancellationException e) {
+                results.add(new Result<T>(files.get(i), null, e));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                results.add(new Result<T>(files.get(i), null, cause instanceof Exception ? (Exception) cause : e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Loads a single file
+     * @param <T> type of the loaded document
+     * @param file file to be loaded
+     * @param loader loader for the document
+     * @return the result of loading the file
+     */
+    private static <T> Result<T> loadFile(IFile file, DocumentLoader<T> loader) {
+        try {
+            return new Result<T>(file, loader.load(file), null);
+        } catch (Exception e) {
+            return new Result<T>(file, null, e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package de.tukl.cs.softech.agilereview.dataaccess;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
 import org.apache.xmlbeans.XmlCursor;
@@ -24,6 +28,7 @@ import agileReview.softech.tukl.de.FileDocument.File;
 import agileReview.softech.tukl.de.FilesDocument.Files;
 import agileReview.softech.tukl.de.FolderDocument.Folder;
 import agileReview.softech.tukl.de.ProjectDocument.Project;
+import de.tukl.cs.softech.agilereview.plugincontrol.exceptions.NoReviewSourceFolderException;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 
 
@@ -40,6 +45,10 @@ public class RefactoringAccess {
      * Instance of the review file model
      */
     private final ReviewFileModel rFileModel = new ReviewFileModel();
+    /**
+     * Index for resolving paths within the loaded comments documents
+     */
+    private final XmlPathIndex pathIndex = new XmlPathIndex();
     /**
      * String representations of documents before they are refactored.
      */
@@ -56,11 +65,39 @@ public class RefactoringAccess {
      * List of files that could not be parsed
      */
     private final HashMap<IFile, Exception> failedFiles = new HashMap<IFile, Exception>();
+    /**
+     * Documents of the author files of all review archives (archive -> name of the author file -> document)
+     */
+    private final HashMap<IFile, LinkedHashMap<String, CommentsDocument>> archivedDocuments = new HashMap<IFile, LinkedHashMap<String, CommentsDocument>>();
+    /**
+     * List of archives that are affected by the refactoring.
+     */
+    private final Collection<IFile> affectedArchivesBuffer = new HashSet<IFile>();
+    /**
+     * Contents of the archives after they were refactored.
+     */
+    private final HashMap<IFile, byte[]> postArchives = new HashMap<IFile, byte[]>();
+    /**
+     * Storage backend of the comments, if it is not refactored by text changes of the author files (<i>null</i> otherwise)
+     */
+    private final CommentStorage storage = ReviewAccess.getStorage().isWorkspaceBacked() ? null : ReviewAccess.getStorage();
+    /**
+     * Indicates whether the refactoring affects comments kept by the {@link #storage}
+     */
+    private boolean storageAffected = false;
+    /**
+     * Moves of the refactoring in the order they have been simulated ({oldPath, newPath, moveAllChilds}), which will be applied to the
+     * {@link #storage}
+     */
+    private final ArrayList<Object[]> storageMoves = new ArrayList<Object[]>();
     
     /**
-     * Constructor of the RefactoringAccess. Initially loads all comments from the database.
+     * Constructor of the RefactoringAccess. Initially writes all pending changes and loads all comments from the database.
      */
     public RefactoringAccess() {
+        // the files on disk have to be up to date before they are read
+        ra.compactJournals();
+        ra.flushPendingSaves();
         loadAllComments();
     }
     
@@ -81,9 +118,84 @@ public class RefactoringAccess {
         }
         
         affectedFilesBuffer.addAll(affectedFiles);
+        
+        // comments which are not kept in author files are counted by the storage backend
+        if (storage != null && !storageAffected && ra.isCurrentSourceValid()) {
+            try {
+                storageAffected = storage.rewritePaths(ra.getCurrentSourceFolder(), toCommentPath(refactoringTarget.getFullPath().toOSString()), null,
+                        true) > 0;
+            } catch (IOException e) {
+                PluginLogger.logError(this.getClass().toString(), "getAffectedFiles", "IOException while counting the comments of "
+                        + refactoringTarget, e);
+                // rather try to refactor than lose the comments
+                storageAffected = true;
+            }
+        }
+        
+        for (Entry<IFile, LinkedHashMap<String, CommentsDocument>> archive : archivedDocuments.entrySet()) {
+            for (CommentsDocument doc : archive.getValue().values()) {
+                if (findXmlPath(doc, refactoringTarget.getFullPath().toOSString(), type, false) != null) {
+                    affectedArchivesBuffer.add(archive.getKey());
+                    break;
+                }
+            }
+        }
         return affectedFilesBuffer;
     }
     
+    /**
+     * Returns the review archives that have to be refactored. Their author files cannot be changed by text edits, so the archives have to be
+     * replaced as a whole by the contents returned by {@link #getPostArchives()}.
+     * @return a list of archives that have to be refactored (filled by {@link #getAffectedFiles(IResource, int)})
+     */
+    public Collection<IFile> getAffectedArchives() {
+        return affectedArchivesBuffer;
+    }
+    
+    /**
+     * States whether the refactoring affects comments which are not stored in author files. Those comments are refactored by
+     * {@link #performStorageRefactoring(boolean)} instead of text changes.
+     * @return <i>true</i> if comments of the storage backend are affected (determined by {@link #getAffectedFiles(IResource, int)}),
+     *         <i>false</i> otherwise
+     */
+    public boolean isStorageAffected() {
+        return storageAffected;
+    }
+    
+    /**
+     * Applies all simulated moves to the comments of the storage backend (or reverts them) and reloads the open reviews afterwards
+     * @param undo <i>true</i> if the moves should be reverted, <i>false</i> if they should be applied
+     * @throws IOException if the stored paths could not be rewritten
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    public void performStorageRefactoring(boolean undo) throws IOException, NoReviewSourceFolderException {
+        if (storage == null) { return; }
+        if (!ra.isCurrentSourceValid()) throw new NoReviewSourceFolderException();
+        // the loaded documents have to be stored before, as they still contain the old paths
+        ra.compactJournals();
+        ra.flushPendingSaves();
+        int count = 0;
+        for (int i = 0; i < storageMoves.size(); i++) {
+            Object[] move = storageMoves.get(undo ? storageMoves.size() - 1 - i : i);
+            String from = (String) (undo ? move[1] : move[0]);
+            String to = (String) (undo ? move[0] : move[1]);
+            count += storage.rewritePaths(ra.getCurrentSourceFolder(), from, to, (Boolean) move[2]);
+        }
+        PluginLogger.log(this.getClass().toString(), "performStorageRefactoring", count + " stored comment paths rewritten");
+        if (count > 0) {
+            ra.doGlobalRefresh();
+        }
+    }
+    
+    /**
+     * Returns the contents of all archives after they were refactored
+     * @return contents of the archives after they were refactored (filled by
+     *         {@link #getPostDocumentsOfRefactoring(String, String, int, boolean)})
+     */
+    public HashMap<IFile, byte[]> getPostArchives() {
+        return postArchives;
+    }
+    
     /**
      * Returns a String representation of documents before they were refactored.
      * @return String representation of documents before they were refactored.
@@ -123,54 +235,101 @@ public class RefactoringAccess {
         // do the refactoring on the internal structure
         //XXX assumption: getAffectedFiles was called beforehand
         for (IFile f : affectedFilesBuffer) {
-            // Find old path
-            XmlObject oldObject = findXmlPath(rFileModel.getCommentsDoc(f), oldPath, type, false);
-            // If not found in document, then no refactoring has to be done
-            if (oldObject != null) {
-                // Select all items to move
-                String xPath = "declare namespace s='http://de.tukl.softech.agileReview'; ";
-                if (moveAllChilds) {
-                    xPath += "$this/*";
-                } else {
-                    xPath += "$this/s:comment | $this/s:file";
-                }
-                
-                XmlObject[] xPathResultCopy = oldObject.copy().selectPath(xPath);
-                // now that we have a copy, remove the old originals directly
-                XmlObject[] xPathResult = oldObject.selectPath(xPath);
-                for (int i = 0; i < xPathResult.length; i++) {
-                    cleanXmlPath(xPathResult[i]);
-                }
-                
-                // create new path
-                XmlObject newObject = findXmlPath(rFileModel.getCommentsDoc(f), newPath, type, true);
-                // create cursor and point to the place where content will be placed (inside of new node)
-                XmlCursor newC = newObject.newCursor();
-                if (!newC.toFirstChild()) {
-                    newC.toEndToken();
-                }
-                
-                boolean newIsEmpty = true;
-                
-                // move all children of old node to new node
-                for (int i = 0; i < xPathResultCopy.length; i++) {
-                    // copy object to new location
-                    XmlCursor x = xPathResultCopy[i].newCursor();
-                    x.copyXml(newC);
-                    x.dispose();
-                    // new node is no longer empty
-                    newIsEmpty = false;
-                }
-                
-                // Clean up
-                newC.dispose();
-                if (newIsEmpty) {
-                    cleanXmlPath(newObject);
-                }
-                
+            if (moveXmlPath(rFileModel.getCommentsDoc(f), oldPath, newPath, type, moveAllChilds)) {
+                rFileModel.markDirty(f);
             }
             saveToString(rFileModel.getCommentsDoc(f), f, false);
         }
+        if (storageAffected) {
+            storageMoves.add(new Object[] { toCommentPath(oldPath), toCommentPath(newPath), moveAllChilds });
+        }
+        // the author files of archives are refactored as well and packed into a new archive
+        for (IFile archive : affectedArchivesBuffer) {
+            boolean moved = false;
+            for (CommentsDocument doc : archivedDocuments.get(archive).values()) {
+                moved |= moveXmlPath(doc, oldPath, newPath, type, moveAllChilds);
+            }
+            if (moved) {
+                LinkedHashMap<String, byte[]> authorFiles = new LinkedHashMap<String, byte[]>();
+                for (Entry<String, CommentsDocument> e : archivedDocuments.get(archive).entrySet()) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    e.getValue().save(out, new XmlOptions().setSavePrettyPrint().setCharacterEncoding("UTF-8"));
+                    authorFiles.put(e.getKey(), out.toByteArray());
+                }
+                postArchives.put(archive, ReviewArchive.pack(authorFiles));
+            }
+        }
+        // parts of the documents have been moved -> cached paths are no longer valid
+        ReviewAccess.invalidateAllPaths();
+    }
+    
+    /**
+     * Moves the children of the old path to the new path within the given document
+     * @param doc document to be refactored
+     * @param oldPath old path of the refactored item
+     * @param newPath new path of the refactored item
+     * @param type type of the refactored item (see static fields PROJECT, FOLDER, FILE in {@link IResource})
+     * @param moveAllChilds indicates whether all children of oldPath should be moved to newPath
+     * @return <i>true</i> if the old path has been found and moved, <i>false</i> otherwise
+     */
+    private boolean moveXmlPath(CommentsDocument doc, String oldPath, String newPath, int type, boolean moveAllChilds) {
+        // Find old path
+        XmlObject oldObject = findXmlPath(doc, oldPath, type, false);
+        // If not found in document, then no refactoring has to be done
+        if (oldObject == null) { return false; }
+        
+        // Select all items to move
+        String xPath = "declare namespace s='http://de.tukl.softech.agileReview'; ";
+        if (moveAllChilds) {
+            xPath += "$this/*";
+        } else {
+            xPath += "$this/s:comment | $this/s:file";
+        }
+        
+        XmlObject[] xPathResultCopy = oldObject.copy().selectPath(xPath);
+        // now that we have a copy, remove the old originals directly
+        XmlObject[] xPathResult = oldObject.selectPath(xPath);
+        for (int i = 0; i < xPathResult.length; i++) {
+            cleanXmlPath(xPathResult[i]);
+        }
+        
+        // create new path
+        XmlObject newObject = findXmlPath(doc, newPath, type, true);
+        // create cursor and point to the place where content will be placed (inside of new node)
+        XmlCursor newC = newObject.newCursor();
+        if (!newC.toFirstChild()) {
+            newC.toEndToken();
+        }
+        
+        boolean newIsEmpty = true;
+        
+        // move all children of old node to new node
+        for (int i = 0; i < xPathResultCopy.length; i++) {
+            // copy object to new location
+            XmlCursor x = xPathResultCopy[i].newCursor();
+            x.copyXml(newC);
+            x.dispose();
+            // new node is no longer empty
+            newIsEmpty = false;
+        }
+        
+        // Clean up
+        newC.dispose();
+        // the children of the new node have been copied without the index
+        pathIndex.forget(newObject);
+        if (newIsEmpty) {
+            cleanXmlPath(newObject);
+        }
+        return true;
+    }
+    
+    /**
+     * Converts the given workspace path into the form computed by {@link ReviewAccess#computePath(XmlObject)}
+     * @param path full path of a resource in the workspace
+     * @return path without leading separator
+     */
+    private static String toCommentPath(String path) {
+        return path.startsWith(System.getProperty("file.separator")) ? path.substring(System.getProperty("file.separator").length()) : path;
     }
     
     /**
@@ -220,11 +379,11 @@ public class RefactoringAccess {
         // Iterate path and stop one position before end
         String[] pathArray = path.split(Pattern.quote(System.getProperty("file.separator")));
         for (int i = 0; i < pathArray.length; i++) {
-            String xPathQuery = "declare namespace s='http://de.tukl.softech.agileReview'; $this/s:*[@name=\"" + pathArray[i] + "\"]";
-            XmlObject[] xPathResult = currObject.selectPath(xPathQuery);
+            XmlObject parent = currObject;
+            XmlObject child = pathIndex.getChild(parent, pathArray[i]);
             
             // if no result is found, the corresponding object has to be created
-            if (xPathResult.length == 0) {
+            if (child == null) {
                 
                 if (!createPath) {
                     return null;
@@ -248,9 +407,9 @@ public class RefactoringAccess {
                     // As we do neither consider the last element nor the first, we always create a folder
                     currObject = createXmlFolder(currObject, pathArray[i]);
                 }
+                pathIndex.add(parent, pathArray[i], currObject);
             } else {
-                // Only one result should be found then
-                currObject = xPathResult[0];
+                currObject = child;
             }
         }
         return currObject;
@@ -262,7 +421,8 @@ public class RefactoringAccess {
     private void loadAllComments() {
         // Get all relevant folders in the review repository
         try {
-            if (ra.isCurrentSourceValid()) {
+            // comments which are not stored in author files are refactored by the storage backend
+            if (ra.isCurrentSourceValid() && storage == null) {
                 IResource[] allFolders = ra.getCurrentSourceFolder().members();
                 // Iterate all folders
                 for (IResource currFolder : allFolders) {
@@ -272,9 +432,11 @@ public class RefactoringAccess {
                         for (IResource currFile : allFiles) {
                             if (currFile instanceof IFile) {
                                 // Open file and read basic information
-                                if (!((IFile) currFile).getName().equals("review.xml")) {
+                                if (ReviewArchive.isArchive(currFile)) {
+                                    loadArchive((IFolder) currFolder, (IFile) currFile);
+                                } else if (!((IFile) currFile).getName().equals("review.xml")) {
                                     try {
-                                        CommentsDocument doc = CommentsDocument.Factory.parse(((IFile) currFile).getContents());
+                                        CommentsDocument doc = CommentsDocument.Factory.parse(((IFile) currFile).getContents(true));
                                         rFileModel.addXmlDocument(doc, (IFile) currFile);
                                         saveToString(doc, (IFile) currFile, true);
                                     } catch (Exception e) {
@@ -301,6 +463,30 @@ public class RefactoringAccess {
         }
     }
     
+    /**
+     * Parses all author files of the given review archive, so that the paths of archived reviews are refactored as well
+     * @param reviewFolder review folder of the archive
+     * @param archiveFile the archive
+     */
+    private void loadArchive(IFolder reviewFolder, IFile archiveFile) {
+        try {
+            ReviewArchive archive = ReviewArchive.open(reviewFolder);
+            if (archive == null) { return; }
+            try {
+                LinkedHashMap<String, CommentsDocument> docs = new LinkedHashMap<String, CommentsDocument>();
+                for (String authorFile : archive.getAuthorFiles()) {
+                    docs.put(authorFile, archive.parseAuthorFile(authorFile));
+                }
+                archivedDocuments.put(archiveFile, docs);
+            } finally {
+                archive.close();
+            }
+        } catch (Exception e) {
+            // catch all exceptions as they might influence the refactoring process
+            failedFiles.put(archiveFile, e);
+        }
+    }
+    
     /**
      * Creates a Project as child of the given XmlObject (if possible)
      * @param parent parent XmlObject (should be Files)
@@ -361,9 +547,13 @@ public class RefactoringAccess {
         // Remove xml
         XmlCursor c = pathObject.newCursor();
         // Remove <comment> node
+        ReviewAccess.invalidatePath(pathObject);
+        pathIndex.remove(pathObject);
         c.removeXml();
         // Recursively check parents
         while (c.toParent() && !c.toFirstChild() && !(c.getObject() instanceof Files)) {
+            ReviewAccess.invalidatePath(c.getObject());
+            pathIndex.remove(c.getObject());
             c.removeXml();
         }
         c.dispose();
@@ -2,30 +2,45 @@ package de.tukl.cs.softech.agilereview.dataaccess;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
-import javax.xml.namespace.QName;
-
 import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 
+import agileReview.softech.tukl.de.CommentDocument;
 import agileReview.softech.tukl.de.CommentDocument.Comment;
 import agileReview.softech.tukl.de.CommentsDocument;
 import agileReview.softech.tukl.de.CommentsDocument.Comments;
@@ -36,6 +51,7 @@ import agileReview.softech.tukl.de.PersonInChargeDocument.PersonInCharge;
 import agileReview.softech.tukl.de.ProjectDocument.Project;
 import agileReview.softech.tukl.de.ReviewDocument;
 import agileReview.softech.tukl.de.ReviewDocument.Review;
+import de.tukl.cs.softech.agilereview.Activator;
 import de.tukl.cs.softech.agilereview.plugincontrol.ExceptionHandler;
 import de.tukl.cs.softech.agilereview.plugincontrol.exceptions.NoReviewSourceFolderException;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
@@ -64,25 +80,78 @@ public class ReviewAccess {
      */
     private static volatile IProject REVIEW_REPO_FOLDER = null;
     
+    /**
+     * Storage backend of the comments documents (replaced when a source project is loaded after another backend has been configured)
+     */
+    private static volatile CommentStorage STORAGE = createStorage();
+    
     /**
      * Simple object for synchronization
      */
     private static final Object syncObj = new Object();
     
     /**
-     * Instance of the comment model
+     * Instance of the comment model (swapped when switching the source project, see {@link #sourceProjectCache})
+     */
+    private volatile ReviewModel rModel = new ReviewModel();
+    
+    /**
+     * Instance of the review file model (swapped when switching the source project, see {@link #sourceProjectCache})
+     */
+    private volatile ReviewFileModel rFileModel = new ReviewFileModel(STORAGE);
+    
+    /**
+     * Index for resolving paths within the loaded comments documents (swapped when switching the source project, see {@link #sourceProjectCache})
+     */
+    private volatile XmlPathIndex pathIndex = new XmlPathIndex();
+    
+    /**
+     * Models of the recently used source projects
+     */
+    private final SourceProjectCache sourceProjectCache = new SourceProjectCache();
+    
+    /**
+     * Background parser for the author files of closed reviews
      */
-    private final ReviewModel rModel = new ReviewModel();
+    private final CommentPrefetcher prefetcher = new CommentPrefetcher();
     
     /**
-     * Instance of the review file model
+     * Cache for the paths of comments, files and folders
      */
-    private final ReviewFileModel rFileModel = new ReviewFileModel();
+    private static final XmlPathCache PATH_CACHE = new XmlPathCache();
     
     /**
-     * Flag indicating that we just stored our data on disk.
+     * Result of an incremental refresh: no review or comment file has been changed
      */
-    private static volatile Boolean RECENTLY_SAVED = false;
+    private static final int REFRESHED_NOTHING = 0;
+    /**
+     * Result of an incremental refresh: only comment files have been changed (the changes have been posted to the {@link ModelEventBus})
+     */
+    private static final int REFRESHED_COMMENTS = 1;
+    /**
+     * Result of an incremental refresh: review files have been changed
+     */
+    private static final int REFRESHED_REVIEWS = 2;
+    
+    /**
+     * Lock serializing refreshes of the model from the file system
+     */
+    private final Object refreshLock = new Object();
+    /**
+     * Job loading the open reviews of the current source project (if any has been scheduled yet)
+     */
+    private volatile ReviewLoadJob loadJob;
+    /**
+     * Background job compacting the journals shortly after changes have been journaled, so that the shared author files are kept up to date
+     */
+    private final Job journalCompactionJob = new Job("Compacting AgileReview journals") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            compactJournals();
+            flushPendingSaves();
+            return Status.OK_STATUS;
+        }
+    };
     
     // //////////////////
     // static methods //
@@ -95,12 +164,11 @@ public class ReviewAccess {
      * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
      */
     private static IFile createCommentFile(String reviewId, String author) throws NoReviewSourceFolderException {
-        IFile file = ReviewAccess.createReviewFolder(reviewId).getFile("author_" + author + ".xml");
-        if (!file.exists()) {
+        IFile file = getCommentFile(reviewId, author);
+        // comments documents of other backends do not have to exist in the workspace
+        if (!file.exists() && STORAGE.isWorkspaceBacked()) {
             try {
-                file.create(new ByteArrayInputStream("".getBytes()), IResource.NONE, null);
-                while (!file.exists()) {
-                };
+                createFile(file);
             } catch (final CoreException e) {
                 PluginLogger.logError(ReviewAccess.class.toString(), "createCommentFile", "CoreException while creating comment file", e);
                 Display.getDefault().syncExec(new Runnable() {
@@ -115,6 +183,18 @@ public class ReviewAccess {
         return file;
     }
     
+    /**
+     * Returns the file for storing comments based on the given reviewId/author pair without creating it
+     * @param reviewId
+     * @param author
+     * @return File for the given parameter pair (might not exist)
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    private static IFile getCommentFile(String reviewId, String author) throws NoReviewSourceFolderException {
+        if (REVIEW_REPO_FOLDER == null) throw new NoReviewSourceFolderException();
+        return REVIEW_REPO_FOLDER.getFolder("review." + reviewId).getFile("author_" + author + ".xml");
+    }
+    
     /**
      * Creates a File object which represents the folder of the given review
      * @param reviewId
@@ -127,8 +207,6 @@ public class ReviewAccess {
         if (!folder.exists()) {
             try {
                 folder.create(IResource.NONE, true, null);
-                while (!folder.exists()) {
-                }
             } catch (final CoreException e) {
                 PluginLogger.logError(ReviewAccess.class.toString(), "createReviewFolder", "CoreException while creating review folder", e);
                 Display.getDefault().syncExec(new Runnable() {
@@ -150,12 +228,11 @@ public class ReviewAccess {
      * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
      */
     private static IFile createReviewFile(String reviewId) throws NoReviewSourceFolderException {
-        IFile file = ReviewAccess.createReviewFolder(reviewId).getFile("review.xml");
+        if (REVIEW_REPO_FOLDER == null) throw new NoReviewSourceFolderException();
+        IFile file = REVIEW_REPO_FOLDER.getFolder("review." + reviewId).getFile("review.xml");
         if (!file.exists()) {
             try {
-                file.create(new ByteArrayInputStream("".getBytes()), IResource.NONE, null);
-                while (!file.exists()) {
-                }
+                createFile(file);
             } catch (final CoreException e) {
                 PluginLogger.logError(ReviewAccess.class.toString(), "createReviewFile", "CoreException while creating review file", e);
                 Display.getDefault().syncExec(new Runnable() {
@@ -170,6 +247,69 @@ public class ReviewAccess {
         return file;
     }
     
+    /**
+     * Creates the given empty file and its review folder (if not existent) in one workspace operation, so that only one resource delta is
+     * reported. The operation is scheduled on the project of the file.
+     * @param file file to be created
+     * @throws CoreException if the folder or the file could not be created
+     */
+    private static void createFile(final IFile file) throws CoreException {
+        IWorkspaceRunnable creation = new IWorkspaceRunnable() {
+            @Override
+            public void run(IProgressMonitor monitor) throws CoreException {
+                IContainer parent = file.getParent();
+                if (parent instanceof IFolder && !parent.exists()) {
+                    ((IFolder) parent).create(IResource.NONE, true, monitor);
+                }
+                if (!file.exists()) {
+                    // the checksum of the empty content is 0
+                    OwnWriteTracker.getInstance().written(file, 0, 0);
+                    file.create(new ByteArrayInputStream("".getBytes()), IResource.NONE, monitor);
+                }
+            }
+        };
+        ResourcesPlugin.getWorkspace().run(creation, file.getProject(), IWorkspace.AVOID_UPDATE, null);
+    }
+    
+    /**
+     * Runs the given operation as one atomic workspace operation on the current AgileReview source project. All resources created or changed by
+     * the operation (e.g. a new review together with its first comment) are reported in a single resource delta after the operation has finished.
+     * The operation must not modify resources outside of the AgileReview source project.
+     * @param operation operation to be run
+     * @throws CoreException if the operation failed
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    public static void runInSourceProject(IWorkspaceRunnable operation) throws CoreException, NoReviewSourceFolderException {
+        if (REVIEW_REPO_FOLDER == null) throw new NoReviewSourceFolderException();
+        ResourcesPlugin.getWorkspace().run(operation, REVIEW_REPO_FOLDER, IWorkspace.AVOID_UPDATE, null);
+    }
+    
+    /**
+     * Creates the configured storage backend of the comments documents
+     * @return the {@link EmbeddedCommentStorage} if configured, the {@link XmlCommentStorage} otherwise
+     */
+    private static CommentStorage createStorage() {
+        if (isEmbeddedStorageConfigured()) { return new EmbeddedCommentStorage(); }
+        return new XmlCommentStorage();
+    }
+    
+    /**
+     * Checks whether the embedded database is configured as storage backend
+     * @return <i>true</i> if the embedded database is configured, <i>false</i> for the xml files
+     */
+    private static boolean isEmbeddedStorageConfigured() {
+        return PropertiesManager.STORAGE_BACKEND_EMBEDDED.equals(PropertiesManager.getPreferences().getString(
+                PropertiesManager.EXTERNAL_KEYS.STORAGE_BACKEND));
+    }
+    
+    /**
+     * Returns the current storage backend of the comments documents
+     * @return the current storage backend
+     */
+    static CommentStorage getStorage() {
+        return STORAGE;
+    }
+    
     /**
      * Creates a Project as child of the given XmlObject (if possible)
      * @param parent parent XmlObject (should be Files)
@@ -228,16 +368,49 @@ public class ReviewAccess {
      * @return path of the item (excluding the item itself)
      */
     public static String computePath(XmlObject item) {
-        XmlCursor c = item.newCursor();
-        c.toParent();
-        String path = c.getAttributeText(new QName("name"));
-        
-        while (c.toParent() && !(c.getObject() instanceof Files)) {
-            path = c.getAttributeText(new QName("name")) + System.getProperty("file.separator") + path;
+        return PATH_CACHE.getPath(item);
+    }
+    
+    /**
+     * Persists the state of the data access layer which should survive a restart of the IDE (e.g. pending saves and journals) and releases its
+     * resources. Should be called when the plugin is stopped.
+     */
+    public static void shutdown() {
+        if (RA != null) {
+            ReviewLoadJob job = RA.loadJob;
+            if (job != null) {
+                job.cancel();
+            }
+            RA.prefetcher.cancel();
+            RA.journalCompactionJob.cancel();
+            RA.compactJournals();
+            RA.flushPendingSaves();
         }
-        c.dispose();
-        
-        return path;
+        ParallelXmlLoader.shutdown();
+        STORAGE.close();
+    }
+    
+    /**
+     * Removes the given item from the path cache. Has to be called before the item is removed from its document.
+     * @param item comment, file, folder or project
+     */
+    static void invalidatePath(XmlObject item) {
+        PATH_CACHE.invalidate(item);
+    }
+    
+    /**
+     * Removes all items of the given document from the path cache. Has to be called when the document is replaced or removed from the models.
+     * @param document comments document
+     */
+    public static void invalidateDocumentPaths(XmlObject document) {
+        PATH_CACHE.invalidateDocument(document);
+    }
+    
+    /**
+     * Clears the path cache. Has to be called whenever parts of the comment documents have been moved.
+     */
+    static void invalidateAllPaths() {
+        PATH_CACHE.clear();
     }
     
     /**
@@ -248,26 +421,28 @@ public class ReviewAccess {
     public static boolean createAndOpenReviewProject(String projectName) {
         boolean result = true;
         IWorkspaceRoot workspaceRoot = ResourcesPlugin.getWorkspace().getRoot();
-        IProject p = workspaceRoot.getProject(projectName);
+        final IProject p = workspaceRoot.getProject(projectName);
         
         try {
-            // Create a new Project, if necessary
-            if (!p.exists()) {
-                p.create(null);// TODO: Use ProgressMonitor
-                while (!p.exists()) {
+            // Create, open and configure the project in one workspace operation (creating a project needs the workspace root as rule)
+            ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+                @Override
+                public void run(IProgressMonitor monitor) throws CoreException {
+                    // Create a new Project, if necessary
+                    if (!p.exists()) {
+                        p.create(monitor);
+                    }
+                    
+                    // Open the Project, if necessary
+                    if (!p.isOpen()) {
+                        p.open(monitor);
+                    }
+                    
+                    // Set project description
+                    setProjectNatures(p, new String[] { PropertiesManager.getInstance().getInternalProperty(
+                            PropertiesManager.INTERNAL_KEYS.AGILEREVIEW_NATURE) });
                 }
-            }
-            
-            // Open the Project, if necessary
-            if (!p.isOpen()) {
-                p.open(null);// TODO: Use ProgressMonitor
-            }
-            while (!p.isOpen()) {
-            }
-            
-            // Set project description
-            setProjectNatures(p, new String[] { PropertiesManager.getInstance().getInternalProperty(
-                    PropertiesManager.INTERNAL_KEYS.AGILEREVIEW_NATURE) });
+            }, workspaceRoot, IWorkspace.AVOID_UPDATE, null);
         } catch (final CoreException e) {
             PluginLogger.logError(ReviewAccess.class.toString(), "createReviewProject", "CoreException in ReviewAccess constructor", e);
             Display.getDefault().syncExec(new Runnable() {
@@ -348,6 +523,7 @@ public class ReviewAccess {
      * Constructor: Sets the directory where to look for the xml-Files
      */
     private ReviewAccess() {
+        this.journalCompactionJob.setSystem(true);
         PluginLogger.log(this.getClass().toString(), "constructor", "ReviewAccess created");
     }
     
@@ -355,8 +531,13 @@ public class ReviewAccess {
      * Clears all used models
      */
     private void clearAllModels() {
+        // write pending changes before the documents are dropped
+        compactJournals();
+        flushPendingSaves();
         this.rFileModel.clearModel();
         this.rModel.clearModel();
+        this.pathIndex.clear();
+        invalidateAllPaths();
         System.gc();
     }
     
@@ -395,11 +576,28 @@ public class ReviewAccess {
         if (!p.exists() || !p.isOpen()) {
             return false;
         } else {
-            // remove active nature from old project
-            unloadCurrentReviewSourceProject();
+            // cancel the load of a previous source project
+            ReviewLoadJob previous = this.loadJob;
+            if (previous != null) {
+                previous.cancel();
+            }
             
-            // set new project
-            REVIEW_REPO_FOLDER = p;
+            boolean restored;
+            synchronized (this.refreshLock) {
+                // remove active nature from old project
+                IProject oldProject = unloadCurrentReviewSourceProject();
+                
+                // park the models of the old project and restore the models of the new project, if they are still up to date
+                if (oldProject != null && !oldProject.equals(p)) {
+                    parkModels(oldProject);
+                }
+                updateStorage();
+                restored = restoreModels(p);
+                this.prefetcher.clear();
+                
+                // set new project
+                REVIEW_REPO_FOLDER = p;
+            }
             PropertiesManager.getPreferences().setValue(PropertiesManager.EXTERNAL_KEYS.SOURCE_FOLDER, p.getName());
             // add active nature to new project
             setProjectNatures(p, new String[] { PropertiesManager.getInstance().getInternalProperty(
@@ -408,23 +606,84 @@ public class ReviewAccess {
             Display.getDefault().asyncExec(new Runnable() {
                 @Override
                 public void run() {
-                    while (PlatformUI.getWorkbench() == null) {
-                    }
+                    if (!PlatformUI.isWorkbenchRunning()) { return; }
                     PlatformUI.getWorkbench().getDecoratorManager().update("de.tukl.cs.softech.agilereview.active_decorator");
                 }
             });
             
-            // Load open reviews initially
-            try {
-                fillDatabaseForOpenReviews();
-            } catch (NoReviewSourceFolderException e) {
-                // does not occur as REVIEW_REPO_FOLDER is set beforehand
-            }
+            // Load open reviews initially (in the background), restored models only need to load newly opened reviews
+            this.loadJob = new ReviewLoadJob(this, p, restored);
+            this.loadJob.schedule();
             
             return true;
         }
     }
     
+    /**
+     * Parks the current models in the {@link SourceProjectCache}. Has to be called with the refresh lock held.
+     * @param project source project the current models belong to
+     */
+    private void parkModels(IProject project) {
+        // write pending changes before the stamps of the files are recorded
+        compactJournals();
+        flushPendingSaves();
+        ArrayList<String> loadedReviews = new ArrayList<String>();
+        for (String reviewId : pm.getOpenReviews()) {
+            if (this.rModel.containsReview(reviewId, true)) {
+                loadedReviews.add(reviewId);
+            }
+        }
+        this.sourceProjectCache.park(project, new SourceProjectCache.Entry(this.rModel, this.rFileModel, this.pathIndex, loadedReviews
+                .toArray(new String[loadedReviews.size()])));
+        this.rModel = new ReviewModel();
+        this.rFileModel = new ReviewFileModel(STORAGE);
+        this.pathIndex = new XmlPathIndex();
+    }
+    
+    /**
+     * Replaces the storage backend, if another one has been configured in the meantime. All loaded and parked models belong to the old backend
+     * and are dropped. Comments stored in the embedded database are written back into their author files when switching to the xml files. Has to
+     * be called with the refresh lock held.
+     */
+    private void updateStorage() {
+        if (isEmbeddedStorageConfigured() == (STORAGE instanceof EmbeddedCommentStorage)) { return; }
+        // write pending changes to the old backend before its models are dropped
+        compactJournals();
+        flushPendingSaves();
+        if (STORAGE instanceof EmbeddedCommentStorage) {
+            // the author files have not been updated while the comments were stored in the database
+            ((EmbeddedCommentStorage) STORAGE).writeBack();
+        }
+        STORAGE.close();
+        STORAGE = createStorage();
+        PluginLogger.log(this.getClass().toString(), "updateStorage", "Storage backend changed to " + STORAGE.getClass().getSimpleName());
+        this.sourceProjectCache.clear();
+        this.rModel = new ReviewModel();
+        this.rFileModel = new ReviewFileModel(STORAGE);
+        this.pathIndex = new XmlPathIndex();
+        invalidateAllPaths();
+    }
+    
+    /**
+     * Replaces the current models by the parked models of the given project, if there are valid ones. The reviews which were open when the models
+     * have been parked are marked as open again. Has to be called with the refresh lock held.
+     * @param project source project to be loaded
+     * @return <i>true</i> if the parked models have been restored, <i>false</i> if the project has to be loaded from scratch
+     */
+    private boolean restoreModels(IProject project) {
+        SourceProjectCache.Entry entry = this.sourceProjectCache.take(project);
+        if (entry == null) { return false; }
+        // the current models will not be used anymore
+        flushPendingSaves();
+        this.rModel = entry.rModel;
+        this.rFileModel = entry.rFileModel;
+        this.pathIndex = entry.pathIndex;
+        for (String reviewId : entry.openReviews) {
+            pm.addToOpenReviews(reviewId);
+        }
+        return true;
+    }
+    
     /**
      * Fills the comment model
      * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
@@ -436,40 +695,16 @@ public class ReviewAccess {
         // Get all relevant folders in the review repository
         try {
             IResource[] allFolders = REVIEW_REPO_FOLDER.members();
-            // Iterate all folders
-            LinkedList<IResource> errorFiles = new LinkedList<IResource>();
+            // Collect the comment files of all folders
+            ArrayList<IFile> commentFiles = new ArrayList<IFile>();
             for (IResource currFolder : allFolders) {
                 if (currFolder instanceof IFolder) {
-                    IResource[] allFiles = ((IFolder) currFolder).members();
-                    // Iterate all files in the current folder
-                    for (IResource currFile : allFiles) {
-                        if (currFile instanceof IFile) {
-                            // Open file and read basic information
-                            if (!((IFile) currFile).getName().equals("review.xml")) {
-                                try {
-                                    InputStream stream = ((IFile) currFile).getContents();
-                                    CommentsDocument doc = CommentsDocument.Factory.parse(stream);
-                                    stream.close();
-                                    this.rFileModel.addXmlDocument(doc, (IFile) currFile);
-                                    readCommentsDocument(doc);
-                                } catch (final CoreException e) {
-                                    PluginLogger.logError(ReviewAccess.class.toString(), "loadAllComment", "CoreException while loading comments", e);
-                                    Display.getDefault().syncExec(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not open files", e
-                                                    .getLocalizedMessage());
-                                        }
-                                    });
-                                } catch (Exception e) {
-                                    PluginLogger.logError(ReviewAccess.class.toString(), "loadAllComment", "Could not load file " + currFile, e);
-                                    errorFiles.add(currFile);
-                                }
-                            }
-                        }
-                    }
+                    collectCommentFiles((IFolder) currFolder, commentFiles);
                 }
             }
+            // Parse them (in parallel) and store them in the models
+            LinkedList<IResource> errorFiles = new LinkedList<IResource>();
+            storeCommentsDocuments(commentFiles, "loadAllComment", errorFiles, false);
             // Show errors to user
             if (!errorFiles.isEmpty()) {
                 String message = "AgileReview could not load the following files:\n\n";
@@ -506,40 +741,44 @@ public class ReviewAccess {
         // Get all relevant folders in the review repository
         try {
             IResource[] allFolders = REVIEW_REPO_FOLDER.members();
-            // Iterate all folders
-            LinkedList<IResource> errorFiles = new LinkedList<IResource>();
+            // Collect the review files of all folders
+            ArrayList<IFile> reviewFiles = new ArrayList<IFile>();
             for (IResource currFolder : allFolders) {
                 if (currFolder instanceof IFolder) {
                     // Get all relevant files in the review repository (only review files(no "." in author names allowed))
                     IResource[] allFiles = ((IFolder) currFolder).members();
-                    // Fill internal database
                     // Iterate all review-files in directory (should only be one) // TODO: performance enhancement: take review file directly
                     for (int i = 0; i < allFiles.length; i++) {
                         if (allFiles[i] instanceof IFile && ((IFile) allFiles[i]).getName().equals("review.xml")) {
-                            try {
-                                // Open file and store review
-                                InputStream stream = ((IFile) allFiles[i]).getContents();
-                                ReviewDocument doc = ReviewDocument.Factory.parse(stream);
-                                stream.close();
-                                this.rFileModel.addXmlDocument(doc, (IFile) allFiles[i]);
-                                rModel.addReview(doc.getReview());
-                            } catch (final CoreException e) {
-                                PluginLogger.logError(ReviewAccess.class.toString(), "loadAllReviews", "CoreException while filling review model", e);
-                                Display.getDefault().syncExec(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not open files", e
-                                                .getLocalizedMessage());
-                                    }
-                                });
-                            } catch (Exception e) {
-                                PluginLogger.logError(ReviewAccess.class.toString(), "loadAllReviews", "Could not load file " + allFiles[i], e);
-                                errorFiles.add(allFiles[i]);
-                            }
+                            reviewFiles.add((IFile) allFiles[i]);
                         }
                     }
                 }
             }
+            // Parse them (in parallel) and fill internal database
+            LinkedList<IResource> errorFiles = new LinkedList<IResource>();
+            for (ParallelXmlLoader.Result<ReviewDocument> r : ParallelXmlLoader.load(reviewFiles, ParallelXmlLoader.REVIEW_PARSER)) {
+                try {
+                    if (r.getError() != null) {
+                        throw r.getError();
+                    }
+                    // Store review
+                    this.rFileModel.addXmlDocument(r.getDocument(), r.getFile());
+                    rModel.addReview(r.getDocument().getReview());
+                } catch (final CoreException e) {
+                    PluginLogger.logError(ReviewAccess.class.toString(), "loadAllReviews", "CoreException while filling review model", e);
+                    Display.getDefault().syncExec(new Runnable() {
+                        @Override
+                        public void run() {
+                            MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not open files", e
+                                    .getLocalizedMessage());
+                        }
+                    });
+                } catch (Exception e) {
+                    PluginLogger.logError(ReviewAccess.class.toString(), "loadAllReviews", "Could not load file " + r.getFile(), e);
+                    errorFiles.add(r.getFile());
+                }
+            }
             // Show errors to user
             if (!errorFiles.isEmpty()) {
                 String message = "AgileReview could not load the following review files:\n\n";
@@ -547,7 +786,13 @@ public class ReviewAccess {
                     message += file.getLocation().toOSString() + "\n";
                 }
                 message += "\nThese files may be corrupted (i.e. empty). Please check them.\nComments of a review cannot be loaded without working review file.";
-                MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not load files", message);
+                final String finalMessage = message;
+                Display.getDefault().syncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not load files", finalMessage);
+                    }
+                });
             }
         } catch (final CoreException e) {
             PluginLogger.logError(ReviewAccess.class.toString(), "loadAllReviews", "CoreException while filling review model", e);
@@ -560,19 +805,146 @@ public class ReviewAccess {
         }
     }
     
+    /**
+     * Adds the comment files of all comments documents of the given review folder stored in the current {@link CommentStorage} to the given list
+     * @param reviewFolder review folder
+     * @param commentFiles list the comment files will be added to
+     * @throws CoreException if the stored documents could not be determined
+     */
+    private void collectCommentFiles(IFolder reviewFolder, ArrayList<IFile> commentFiles) throws CoreException {
+        commentFiles.addAll(STORAGE.list(reviewFolder));
+    }
+    
+    /**
+     * Loads the given comment files from the current {@link CommentStorage} (in parallel, see {@link ParallelXmlLoader}) and stores the loaded
+     * documents and their comments in the models.
+     * This commit step is done sequentially on the calling thread.
+     * @param commentFiles comment files to be loaded
+     * @param methodName name of the calling method (for logging purposes)
+     * @param errorFiles list the files, which could not be loaded, will be added to
+     * @param notify whether the replaced and the newly loaded comments should be posted to the {@link ModelEventBus}
+     */
+    private void storeCommentsDocuments(ArrayList<IFile> commentFiles, String methodName, LinkedList<IResource> errorFiles, boolean notify) {
+        storeCommentsDocuments(ParallelXmlLoader.load(commentFiles, STORAGE), methodName, errorFiles, notify);
+    }
+    
+    /**
+     * Stores the given parsed comment files and their comments in the models. This commit step is done sequentially on the calling thread.
+     * @param results parse results of the comment files
+     * @param methodName name of the calling method (for logging purposes)
+     * @param errorFiles list the files, which could not be loaded, will be added to
+     * @param notify whether the replaced and the newly loaded comments should be posted to the {@link ModelEventBus}
+     */
+    private void storeCommentsDocuments(List<ParallelXmlLoader.Result<CommentsDocument>> results, String methodName, LinkedList<IResource> errorFiles,
+            boolean notify) {
+        for (ParallelXmlLoader.Result<CommentsDocument> r : results) {
+            try {
+                if (r.getError() != null) {
+                    throw r.getError();
+                }
+                // Replace the comments of a previously loaded version of this file
+                CommentsDocument oldDoc = this.rFileModel.getCommentsDoc(r.getFile());
+                if (oldDoc != null) {
+                    postComments(ModelEvent.Type.COMMENT_REMOVED, removeCommentsDocument(oldDoc), notify);
+                }
+                // Apply changes which have not yet been compacted into the file
+                replayJournal(r.getFile(), r.getDocument());
+                this.rFileModel.addXmlDocument(r.getDocument(), r.getFile());
+                postComments(ModelEvent.Type.COMMENT_ADDED, readCommentsDocument(r.getDocument()), notify);
+            } catch (final CoreException e) {
+                PluginLogger.logError(ReviewAccess.class.toString(), methodName, "CoreException while loading comments from file " + r.getFile(), e);
+                Display.getDefault().syncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not open files", e.getLocalizedMessage());
+                    }
+                });
+            } catch (Exception e) {
+                PluginLogger.logError(ReviewAccess.class.toString(), methodName, "Could not load file " + r.getFile(), e);
+                errorFiles.add(r.getFile());
+            }
+        }
+    }
+    
     /**
      * Loads all comments of the given document into the database
      * @param doc document to read
+     * @return the loaded comments
      */
-    private void readCommentsDocument(CommentsDocument doc) {
-        Comments currComments = doc.getComments();
-        
+    private ArrayList<Comment> readCommentsDocument(CommentsDocument doc) {
         // Find all comments in this file and store them
-        XmlObject[] xPathResult = currComments.selectPath("declare namespace s='http://de.tukl.softech.agileReview'; $this//s:comment");
-        for (int j = 0; j < xPathResult.length; j++) {
-            Comment c = (Comment) xPathResult[j];
+        ArrayList<Comment> comments = collectComments(doc);
+        for (Comment c : comments) {
             this.rModel.addComment(c);
         }
+        return comments;
+    }
+    
+    /**
+     * Removes all comments of the given document from the database
+     * @param doc document whose comments should be removed
+     * @return the removed comments
+     */
+    private ArrayList<Comment> removeCommentsDocument(CommentsDocument doc) {
+        ArrayList<Comment> comments = collectComments(doc);
+        for (Comment c : comments) {
+            this.rModel.removeComment(c);
+        }
+        if (doc.getComments() != null && doc.getComments().getFiles() != null) {
+            this.pathIndex.forget(doc.getComments().getFiles());
+        }
+        invalidateDocumentPaths(doc);
+        return comments;
+    }
+    
+    /**
+     * Posts an event of the given type for each of the given comments
+     * @param type type of the events
+     * @param comments affected comments
+     * @param notify whether the events should be posted at all
+     */
+    private static void postComments(ModelEvent.Type type, List<Comment> comments, boolean notify) {
+        if (!notify) { return; }
+        for (Comment c : comments) {
+            ModelEventBus.post(ModelEvent.commentEvent(type, c));
+        }
+    }
+    
+    /**
+     * Collects all comments of the given document in document order. The document is walked with a cursor along the project, folder and file
+     * nodes, which is considerably cheaper than evaluating the equivalent XPath expression <code>$this//s:comment</code>.
+     * @param doc document to be searched
+     * @return all comments of the document
+     */
+    private static ArrayList<Comment> collectComments(CommentsDocument doc) {
+        ArrayList<Comment> result = new ArrayList<Comment>();
+        Files files = doc.getComments() == null ? null : doc.getComments().getFiles();
+        if (files == null) { return result; }
+        XmlCursor c = files.newCursor();
+        try {
+            collectComments(c, result);
+        } finally {
+            c.dispose();
+        }
+        return result;
+    }
+    
+    /**
+     * Collects all comments below the node the given cursor is pointing to. The cursor will point to the same node afterwards.
+     * @param c cursor pointing to the files, a project, folder or file node
+     * @param result list the found comments will be added to
+     */
+    private static void collectComments(XmlCursor c, ArrayList<Comment> result) {
+        if (!c.toFirstChild()) { return; }
+        do {
+            XmlObject o = c.getObject();
+            if (o instanceof Comment) {
+                result.add((Comment) o);
+            } else if (o instanceof Project || o instanceof Folder || o instanceof File) {
+                collectComments(c, result);
+            }
+        } while (c.toNextSibling());
+        c.toParent();
     }
     
     /**
@@ -595,10 +967,10 @@ public class ReviewAccess {
         // Iterate path and stop one position before end
         String[] pathArray = path.split(Pattern.quote(System.getProperty("file.separator")));
         for (int i = 0; i < pathArray.length; i++) {
-            String xPathQuery = "declare namespace s='http://de.tukl.softech.agileReview'; $this/s:*[@name=\"" + pathArray[i] + "\"]";
-            XmlObject[] xPathResult = currObject.selectPath(xPathQuery);
+            XmlObject parent = currObject;
+            XmlObject child = pathIndex.getChild(parent, pathArray[i]);
             // if no result is found, the corresponding object has to be created
-            if (xPathResult.length == 0) {
+            if (child == null) {
                 if (!createPath) {
                     return null;
                 } else if (i == 0) {
@@ -621,10 +993,10 @@ public class ReviewAccess {
                     // As we do neither consider the last element nor the first, we always create a folder
                     currObject = createXmlFolder(currObject, pathArray[i]);
                 }
+                pathIndex.add(parent, pathArray[i], currObject);
                 
             } else {
-                // Only one result should be found then
-                currObject = xPathResult[0];
+                currObject = child;
             }
         }
         
@@ -639,9 +1011,13 @@ public class ReviewAccess {
         // Remove xml
         XmlCursor c = pathObject.newCursor();
         // Remove <comment> node
+        invalidatePath(pathObject);
+        this.pathIndex.remove(pathObject);
         c.removeXml();
         // Recursively check parents
         while (c.toParent() && !c.toFirstChild() && !(c.getObject() instanceof Files)) {
+            invalidatePath(c.getObject());
+            this.pathIndex.remove(c.getObject());
             c.removeXml();
         }
         c.dispose();
@@ -681,7 +1057,8 @@ public class ReviewAccess {
         // Check if file for this author in this review does already exist (assumption: database and file system are synch)
         IFile commentFile = ReviewAccess.createCommentFile(reviewId, author);
         // Check if file for this author does already exist
-        if (!this.rFileModel.containsFile(commentFile)) {
+        boolean newFile = !this.rFileModel.containsFile(commentFile);
+        if (newFile) {
             // No file exists. So we have to create one
             CommentsDocument commentsDoc = CommentsDocument.Factory.newInstance();
             Comments comments = commentsDoc.addNewComments();
@@ -697,31 +1074,39 @@ public class ReviewAccess {
         
         // Prepare new Comment
         Comment result = currFile.addNewComment();
-        // Find the next id
-        Integer newKey = this.rModel.getNextCommentIdFor(reviewId, author);
-        result.setId("c" + newKey);
-        
-        // Fill attributes
-        result.setAuthor(author);
-        result.setReviewID(reviewId);
-        Calendar currCal = Calendar.getInstance();
-        result.setCreationDate(currCal);
-        result.setLastModified(currCal);
-        result.setPriority(0);
-        result.setRecipient("");
-        result.setStatus(0);
-        result.setRevision(0);
-        
-        // Fill children
-        result.setText("");
-        // Reference will be set when saved
-        result.addNewReplies();
-        
-        // Store comment in database
-        this.rModel.addComment(result);
+        // Find the next id and store the comment atomically, so that concurrently created comments get distinct ids
+        this.rModel.writeLock().lock();
+        try {
+            Integer newKey = this.rModel.getNextCommentIdFor(reviewId, author);
+            result.setId("c" + newKey);
+            
+            // Fill attributes
+            result.setAuthor(author);
+            result.setReviewID(reviewId);
+            Calendar currCal = Calendar.getInstance();
+            result.setCreationDate(currCal);
+            result.setLastModified(currCal);
+            result.setPriority(0);
+            result.setRecipient("");
+            result.setStatus(0);
+            result.setRevision(0);
+            
+            // Fill children
+            result.setText("");
+            // Reference will be set when saved
+            result.addNewReplies();
+            
+            // Store comment in database
+            this.rModel.addComment(result);
+        } finally {
+            this.rModel.writeLock().unlock();
+        }
+        ModelEventBus.post(ModelEvent.commentEvent(ModelEvent.Type.COMMENT_ADDED, result));
         
-        // Save and return the new empty comment
-        save(result);
+        // Save and return the new empty comment (a new file always has to be written completely)
+        if (newFile || !journal(CommentJournal.Operation.CREATE, result)) {
+            saveToFile(result);
+        }
         return result;
     }
     
@@ -735,20 +1120,37 @@ public class ReviewAccess {
     public void deleteComment(String reviewId, String author, String commentId) throws NoReviewSourceFolderException {
         PluginLogger.log(this.getClass().toString(), "deleteComment", "Following comment deleted:\n reviewId: " + reviewId + " \n author: " + author
                 + " \n commentId: " + commentId);
-        // Find comment in database
-        Comment delCom = this.rModel.getComment(reviewId, author, commentId);
-        
-        // Remove xml nodes
-        cleanXmlPath(delCom);
         IFile changedFile = ReviewAccess.createCommentFile(reviewId, author);
+        boolean lastComment;
+        Comment delCom;
+        this.rModel.writeLock().lock();
+        try {
+            // Find comment in database
+            delCom = this.rModel.getComment(reviewId, author, commentId);
+            if (delCom == null) {
+                PluginLogger.logWarning(this.getClass().toString(), "deleteComment", "Comment to be deleted is not loaded anymore: " + reviewId
+                        + "|" + author + "|" + commentId);
+                return;
+            }
+            
+            // Remove xml nodes
+            cleanXmlPath(delCom);
+            
+            // Remove from database
+            lastComment = this.rModel.removeComment(reviewId, author, commentId);
+        } finally {
+            this.rModel.writeLock().unlock();
+        }
+        ModelEventBus.post(ModelEvent.commentEvent(ModelEvent.Type.COMMENT_REMOVED, delCom));
         
-        // Remove from database and eventually from file system
-        if (this.rModel.removeComment(reviewId, author, commentId)) {
+        // Eventually remove from file system
+        if (lastComment) {
             // Last comment of this author in this review has been deleted
             // -> Remove from file system
             this.rFileModel.removeXmlDocument(changedFile);
-        } else {
+        } else if (!journal(changedFile, CommentJournal.Operation.DELETE, "", commentId, null)) {
             // There are still comments in this file --> save the changes
+            this.rFileModel.markDirty(changedFile);
             try {
                 this.rFileModel.save(changedFile);
             } catch (IOException e) {
@@ -769,14 +1171,75 @@ public class ReviewAccess {
     }
     
     /**
+     * Deletes all given comments in one batch. The comments are grouped by their author files. All comments are removed from the documents first
+     * and afterwards each touched author file is saved (or deleted, if no comment is left) exactly once within a single workspace operation.
      * @see ReviewAccess#deleteComment(String, String, String)
-     * @param comments
+     * @param comments comments to be deleted
+     * @return author files which could not be saved or deleted mapped to the occurred exception (empty if all files have been written)
      * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
      */
-    public void deleteComments(Collection<Comment> comments) throws NoReviewSourceFolderException {
-        for (Comment c : comments) {
-            deleteComment(c.getReviewID(), c.getAuthor(), c.getId());
+    public Map<IFile, Exception> deleteComments(Collection<Comment> comments) throws NoReviewSourceFolderException {
+        final Map<IFile, Exception> failures = new LinkedHashMap<IFile, Exception>();
+        if (comments.isEmpty()) { return failures; }
+        PluginLogger.log(this.getClass().toString(), "deleteComments", "Deleting " + comments.size() + " comments");
+        
+        // Remove all comments from the documents and the database (author file -> no comment left)
+        final LinkedHashMap<IFile, Boolean> touchedFiles = new LinkedHashMap<IFile, Boolean>();
+        this.rModel.writeLock().lock();
+        try {
+            for (Comment c : comments) {
+                String reviewId = c.getReviewID();
+                String author = c.getAuthor();
+                String commentId = c.getId();
+                Comment delCom = this.rModel.getComment(reviewId, author, commentId);
+                if (delCom == null) {
+                    continue;
+                }
+                cleanXmlPath(delCom);
+                boolean empty = this.rModel.removeComment(reviewId, author, commentId);
+                IFile file = getCommentFile(reviewId, author);
+                touchedFiles.put(file, empty || Boolean.TRUE.equals(touchedFiles.get(file)));
+                ModelEventBus.post(ModelEvent.commentEvent(ModelEvent.Type.COMMENT_REMOVED, delCom));
+            }
+        } finally {
+            this.rModel.writeLock().unlock();
         }
+        
+        // Save each touched file once
+        IWorkspaceRunnable runnable = new IWorkspaceRunnable() {
+            @Override
+            public void run(IProgressMonitor monitor) {
+                for (Entry<IFile, Boolean> e : touchedFiles.entrySet()) {
+                    IFile file = e.getKey();
+                    if (e.getValue()) {
+                        // Last comment of this author in this review has been deleted
+                        rFileModel.removeXmlDocument(file);
+                    } else {
+                        rFileModel.markDirty(file);
+                        try {
+                            rFileModel.saveNow(file);
+                        } catch (IOException ex) {
+                            PluginLogger.logError(ReviewAccess.class.toString(), "deleteComments", "IOException occured while saving file " + file,
+                                    ex);
+                            failures.put(file, ex);
+                        }
+                    }
+                }
+            }
+        };
+        try {
+            runInSourceProject(runnable);
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "deleteComments", "CoreException while saving the changed comment files", e);
+            for (IFile file : touchedFiles.keySet()) {
+                if (!failures.containsKey(file)) {
+                    failures.put(file, e);
+                }
+            }
+        }
+        PluginLogger.log(this.getClass().toString(), "deleteComments", touchedFiles.size() + " author files touched, " + failures.size()
+                + " failed");
+        return failures;
     }
     
     /**
@@ -784,7 +1247,16 @@ public class ReviewAccess {
      * @return all Comments
      */
     public ArrayList<Comment> getAllComments() {
-        return this.rModel.getAllComments();
+        return new ArrayList<Comment>(this.rModel.getSnapshot().getComments());
+    }
+    
+    /**
+     * Returns an immutable snapshot of all comments. The snapshot is shared, so no comments are copied. As long as the comments are not changed,
+     * the same instance is returned, so callers can compare snapshots by reference in order to detect changes.
+     * @return snapshot of all comments
+     */
+    public CommentSnapshot getCommentSnapshot() {
+        return this.rModel.getSnapshot();
     }
     
     /**
@@ -806,6 +1278,71 @@ public class ReviewAccess {
         return this.rModel.getComments(reviewId, path);
     }
     
+    /**
+     * Returns all loaded comments with the given status
+     * @param status
+     * @return all loaded comments with the given status
+     */
+    public ArrayList<Comment> getCommentsByStatus(int status) {
+        return this.rModel.getCommentsByStatus(status);
+    }
+    
+    /**
+     * Returns the cached sort, filter and label keys of the given comment as captured when it was added to the model or re-indexed last. Should be
+     * used by the views for sorting and filtering; the views still display and edit the XmlBeans comment itself.
+     * @param comment
+     * @return the value of the comment
+     */
+    public CommentValue getValue(Comment comment) {
+        return this.rModel.getValue(comment);
+    }
+    
+    /**
+     * Returns a short report about the {@link SymbolTable}, whose savings are computed from the strings currently held by the loaded comments
+     * @return report of the symbol table
+     */
+    public String getSymbolReport() {
+        return SymbolTable.getReport(this.rModel.getSymbolReferences());
+    }
+    
+    /**
+     * Searches the loaded comments using the full-text index, which is updated with every change of a comment. Supported are substrings
+     * (<code>view</code>), phrases (<code>null pointer</code>) and exact phrases (<code>"null pointer"</code>), all case insensitive.
+     * @param query search query
+     * @param fields fields to be searched
+     * @return the matching comments (identity based) or <i>null</i> if the query does not contain any token (i.e. only consists of punctuation)
+     */
+    public Set<Comment> searchComments(String query, Collection<CommentTextIndex.Field> fields) {
+        return this.rModel.searchComments(query, fields);
+    }
+    
+    /**
+     * Returns the statistics of all loaded comments. The counters are updated on every modification of the comments, so they can be queried
+     * instead of iterating the comments of a review.
+     * @return statistics of all loaded comments
+     */
+    public ReviewStatistics getStatistics() {
+        return this.rModel.getStatistics();
+    }
+    
+    /**
+     * Returns all loaded comments addressed to the given recipient
+     * @param recipient
+     * @return all loaded comments addressed to the given recipient
+     */
+    public ArrayList<Comment> getCommentsByRecipient(String recipient) {
+        return this.rModel.getCommentsByRecipient(recipient);
+    }
+    
+    /**
+     * Returns all loaded comments of the given author
+     * @param author
+     * @return all loaded comments of the given author
+     */
+    public ArrayList<Comment> getCommentsByAuthor(String author) {
+        return this.rModel.getCommentsByAuthor(author);
+    }
+    
     /**
      * Returns the comment specified by the given tupel
      * @param reviewId
@@ -880,9 +1417,6 @@ public class ReviewAccess {
     public Review createNewReview(String reviewId) throws IOException, NoReviewSourceFolderException {
         PluginLogger.log(this.getClass().toString(), "createNewReview", "Create new review: " + reviewId);
         
-        // Create the folder and file for this review
-        IFile revFile = ReviewAccess.createReviewFile(reviewId);
-        
         // Create the new review
         ReviewDocument revDoc = ReviewDocument.Factory.newInstance();
         Review result = revDoc.addNewReview();
@@ -896,16 +1430,20 @@ public class ReviewAccess {
         
         // Add review to model,
         // return null in case of the reviewId being already in use
-        if (!rModel.addReview(result)) { return null; }
-        this.rModel.createModelEntry(reviewId);
-        
-        // save new review file
-        synchronized (RECENTLY_SAVED) {
-            RECENTLY_SAVED = true;
-            this.rFileModel.addXmlDocument(revDoc, revFile);
-            this.rFileModel.save(revFile);
+        this.rModel.writeLock().lock();
+        try {
+            if (!rModel.addReview(result)) { return null; }
+            this.rModel.createModelEntry(reviewId);
+        } finally {
+            this.rModel.writeLock().unlock();
         }
         
+        // Create the folder and file for this review and save it
+        IFile revFile = ReviewAccess.createReviewFile(reviewId);
+        this.rFileModel.addXmlDocument(revDoc, revFile);
+        this.rFileModel.markDirty(revFile);
+        this.rFileModel.save(revFile);
+        
         return result;
     }
     
@@ -936,38 +1474,21 @@ public class ReviewAccess {
         IFolder currFolder = ReviewAccess.createReviewFolder(reviewId);
         
         try {
-            IResource[] allFiles = currFolder.members();
-            
+            // archived reviews have to be restored before their comments can be changed
+            unpackArchive(currFolder);
             this.rModel.createModelEntry(reviewId);
             LinkedList<IResource> errorFiles = new LinkedList<IResource>();
-            // Iterate all files in the current folder
-            for (IResource currFile : allFiles) {
-                if (currFile instanceof IFile) {
-                    if (!((IFile) currFile).getName().equals("review.xml")) {
-                        // Open file and read basic information
-                        try {
-                            InputStream stream = ((IFile) currFile).getContents();
-                            CommentsDocument doc = CommentsDocument.Factory.parse(stream);
-                            stream.close();
-                            this.rFileModel.addXmlDocument(doc, (IFile) currFile);
-                            readCommentsDocument(doc);
-                        } catch (final CoreException e) {
-                            PluginLogger.logError(ReviewAccess.class.toString(), "loadReviewComments",
-                                    "CoreException while loading comments from file " + currFile, e);
-                            Display.getDefault().syncExec(new Runnable() {
-                                @Override
-                                public void run() {
-                                    MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not open files", e
-                                            .getLocalizedMessage());
-                                }
-                            });
-                        } catch (Exception e) {
-                            PluginLogger.logError(ReviewAccess.class.toString(), "loadReviewComments", "Could not load file " + currFile, e);
-                            errorFiles.add(currFile);
-                        }
-                    }
-                }
+            ArrayList<IFile> commentFiles = new ArrayList<IFile>();
+            collectCommentFiles(currFolder, commentFiles);
+            // Commit the prefetched documents, if they are still up to date, otherwise parse them (in parallel) and store them in the models
+            List<ParallelXmlLoader.Result<CommentsDocument>> prefetched = this.prefetcher.take(currFolder, commentFiles);
+            if (prefetched != null) {
+                PluginLogger.log(this.getClass().toString(), "loadReviewComments", "Using prefetched comments of review " + reviewId);
+                storeCommentsDocuments(prefetched, "loadReviewComments", errorFiles, false);
+            } else {
+                storeCommentsDocuments(commentFiles, "loadReviewComments", errorFiles, false);
             }
+            ModelEventBus.post(ModelEvent.reviewEvent(ModelEvent.Type.REVIEW_OPENED, reviewId));
             // Show errors to user
             if (!errorFiles.isEmpty()) {
                 String message = "AgileReview could not load the following files:\n\n";
@@ -975,7 +1496,13 @@ public class ReviewAccess {
                     message += file.getLocation().toOSString() + "\n";
                 }
                 message += "\nThese files may be corrupted (i.e. empty). Please check them.";
-                MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not load files", message);
+                final String finalMessage = message;
+                Display.getDefault().syncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not load files", finalMessage);
+                    }
+                });
             }
         } catch (final CoreException e) {
             PluginLogger.logError(ReviewAccess.class.toString(), "loadReviewComments", "CoreException while loading comments of review " + reviewId
@@ -997,9 +1524,240 @@ public class ReviewAccess {
         PluginLogger.log(this.getClass().toString(), "unloadReviewComments", "Unload comments of review: " + reviewId);
         // Remove the given review from the models
         this.rModel.removeReview(reviewId, false);
+        // the author files of a closed review should not lag behind its journals
+        compactJournals(reviewId);
+        flushPendingSaves();
+        // the documents stay in the file model, but their paths are not needed until the review is loaded again
+        for (IFile f : this.rFileModel.getAllCommentFiles()) {
+            if (f.getParent().getName().equals("review." + reviewId)) {
+                CommentsDocument doc = this.rFileModel.getCommentsDoc(f);
+                if (doc != null) {
+                    invalidateDocumentPaths(doc);
+                }
+            }
+        }
+        ModelEventBus.post(ModelEvent.reviewEvent(ModelEvent.Type.REVIEW_CLOSED, reviewId));
         // TODO: Erstmal nicht aus dem anderen Model rauslöschen. Dazu muss es cleverer werden
     }
     
+    /**
+     * Starts parsing the comments of the given closed review in the background, so that a following {@link #loadReviewComments(String)} does not
+     * have to parse them anymore. Nothing will be done if the review is already loaded or does not exist or if the comments are not stored in
+     * author files.
+     * @param reviewId
+     */
+    public void prefetchReviewComments(String reviewId) {
+        IProject project = REVIEW_REPO_FOLDER;
+        if (project == null || !STORAGE.isWorkspaceBacked() || isReviewLoaded(reviewId) || !reviewExists(reviewId) || isReviewArchived(reviewId)) { return; }
+        this.prefetcher.request(project.getFolder("review." + reviewId));
+    }
+    
+    /**
+     * Reads the stored comments matching all given criteria from the current {@link CommentStorage} and from the {@link ReviewArchive}s without
+     * loading them into the models. Pending saves are written before, changes which have only been journaled are not reflected.
+     * @param reviewId id of the review or <i>null</i> for all reviews
+     * @param path path of the commented file (see {@link #computePath(XmlObject)}) or <i>null</i> for all files
+     * @param status status of the comments or {@link CommentStorage#ANY_STATUS}
+     * @param visitor visitor to be informed about every matching comment
+     * @return number of matching comments
+     * @throws Exception if the stored comments could not be read
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    public int queryComments(final String reviewId, final String path, final int status, final StreamingCommentReader.CommentVisitor visitor)
+            throws Exception, NoReviewSourceFolderException {
+        IProject project = REVIEW_REPO_FOLDER;
+        if (project == null) throw new NoReviewSourceFolderException();
+        flushPendingSaves();
+        int count = STORAGE.query(project, reviewId, path, status, visitor);
+        
+        // archived comments are not part of the comment storage, so the archives are streamed as well
+        final int[] matches = new int[1];
+        StreamingCommentReader.CommentVisitor filter = new StreamingCommentReader.CommentVisitor() {
+            @Override
+            public void visitComment(StreamingCommentReader.StreamedComment comment) {
+                if ((reviewId == null || reviewId.equals(comment.getReviewId())) && (path == null || path.equals(comment.getPath()))
+                        && (status == CommentStorage.ANY_STATUS || status == comment.getStatus())) {
+                    matches[0]++;
+                    visitor.visitComment(comment);
+                }
+            }
+        };
+        for (IResource r : project.members()) {
+            if (r instanceof IFolder && (reviewId == null ? r.getName().startsWith("review.") : r.getName().equals("review." + reviewId))) {
+                ReviewArchive archive = ReviewArchive.open((IFolder) r);
+                if (archive != null) {
+                    try {
+                        archive.readAllComments(filter);
+                    } finally {
+                        archive.close();
+                    }
+                }
+            }
+        }
+        return count + matches[0];
+    }
+    
+    /**
+     * Counts the stored comments of the given review (including archived ones) without loading them into the models, e.g. for closed or archived
+     * reviews. Other than the statistics returned by {@link #getStatistics()}, the result is not updated on modifications.
+     * @param reviewId
+     * @return statistics of the stored comments of the review
+     * @throws Exception if the stored comments could not be read
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    public ReviewStatistics computeStatistics(String reviewId) throws Exception, NoReviewSourceFolderException {
+        final ReviewStatistics result = new ReviewStatistics(new ReentrantLock());
+        queryComments(reviewId, null, CommentStorage.ANY_STATUS, new StreamingCommentReader.CommentVisitor() {
+            @Override
+            public void visitComment(StreamingCommentReader.StreamedComment comment) {
+                result.add(comment);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Returns a stamp of the stored comments of the given review, which changes whenever the author files, the archive or the database file
+     * storing the comments of the review are changed. Can be used to cache values computed from the stored comments (e.g. by
+     * {@link #computeStatistics(String)}).
+     * @param reviewId
+     * @return stamp of the stored comments or {@link IResource#NULL_STAMP} if the stamp could not be determined
+     */
+    public long getCommentsStamp(String reviewId) {
+        IProject project = REVIEW_REPO_FOLDER;
+        if (project == null) { return IResource.NULL_STAMP; }
+        long stamp = project.getFile(EmbeddedCommentStorage.STORE_NAME).getModificationStamp();
+        try {
+            IFolder folder = project.getFolder("review." + reviewId);
+            if (!folder.exists()) { return IResource.NULL_STAMP; }
+            for (IResource r : folder.members()) {
+                stamp = 31 * stamp + r.getName().hashCode();
+                stamp = 31 * stamp + r.getModificationStamp();
+            }
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "getCommentsStamp", "CoreException while listing the files of review " + reviewId, e);
+            return IResource.NULL_STAMP;
+        }
+        return stamp;
+    }
+    
+    /**
+     * Checks whether the comments of the given review have been packed into a {@link ReviewArchive}
+     * @param reviewId
+     * @return <i>true</i> if the review is archived, <i>false</i> otherwise
+     */
+    public boolean isReviewArchived(String reviewId) {
+        IProject project = REVIEW_REPO_FOLDER;
+        return project != null && project.getFolder("review." + reviewId).getFile(ReviewArchive.ARCHIVE_NAME).exists();
+    }
+    
+    /**
+     * Opens the archive of the given review for read-only access. The comments of an archived review can be read without loading the review.
+     * @param reviewId
+     * @return the opened archive (has to be closed by the caller) or <i>null</i> if the review is not archived
+     * @throws IOException if the archive could not be opened
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    public ReviewArchive openArchive(String reviewId) throws IOException, NoReviewSourceFolderException {
+        if (REVIEW_REPO_FOLDER == null) throw new NoReviewSourceFolderException();
+        return ReviewArchive.open(REVIEW_REPO_FOLDER.getFolder("review." + reviewId));
+    }
+    
+    /**
+     * Packs all author files of the given closed review into a compressed {@link ReviewArchive} and deletes the author files afterwards. The
+     * review file stays untouched, so the review is still listed. Loading the review restores the author files.
+     * @param reviewId
+     * @return <i>true</i> if the review has been archived, <i>false</i> if it is loaded, does not exist, is already archived or has no comments or
+     *         if the comments are not stored in author files
+     * @throws CoreException if the author files could not be read, packed or deleted
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    public boolean archiveReview(String reviewId) throws CoreException, NoReviewSourceFolderException {
+        if (REVIEW_REPO_FOLDER == null) throw new NoReviewSourceFolderException();
+        if (!STORAGE.isWorkspaceBacked() || isReviewLoaded(reviewId) || !reviewExists(reviewId) || isReviewArchived(reviewId)) { return false; }
+        PluginLogger.log(this.getClass().toString(), "archiveReview", "Archive review: " + reviewId);
+        IFolder folder = REVIEW_REPO_FOLDER.getFolder("review." + reviewId);
+        final ArrayList<IFile> authorFiles = new ArrayList<IFile>();
+        collectCommentFiles(folder, authorFiles);
+        if (authorFiles.isEmpty()) { return false; }
+        
+        final IFile archive = folder.getFile(ReviewArchive.ARCHIVE_NAME);
+        try {
+            // the archive has to contain the latest state of every author file
+            flushPendingSaves();
+            for (IFile f : authorFiles) {
+                if (CommentJournal.getInstance().hasEntries(f)) {
+                    CommentsDocument doc = CommentsDocument.Factory.parse(f.getContents(true));
+                    replayJournal(f, doc);
+                    this.rFileModel.addXmlDocument(doc, f);
+                    this.rFileModel.saveNow(f);
+                }
+            }
+            ReviewArchive.pack(authorFiles, archive.getLocation().toFile());
+        } catch (IOException e) {
+            archive.getLocation().toFile().delete();
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not archive review " + reviewId, e));
+        } catch (XmlException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not archive review " + reviewId, e));
+        }
+        
+        runInSourceProject(new IWorkspaceRunnable() {
+            @Override
+            public void run(IProgressMonitor monitor) throws CoreException {
+                archive.refreshLocal(IResource.DEPTH_ZERO, monitor);
+                for (IFile f : authorFiles) {
+                    CommentsDocument doc = rFileModel.getCommentsDoc(f);
+                    if (doc != null) {
+                        removeCommentsDocument(doc);
+                    }
+                    // deletes the file as own change and drops its journal
+                    rFileModel.removeXmlDocument(f);
+                }
+            }
+        });
+        PluginLogger.log(this.getClass().toString(), "archiveReview", authorFiles.size() + " author files of review " + reviewId + " archived");
+        return true;
+    }
+    
+    /**
+     * Restores the author files of the given review folder from its archive and deletes the archive. Nothing will be done if the review is not
+     * archived.
+     * @param reviewFolder review folder
+     * @throws CoreException if the archive could not be unpacked
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    private void unpackArchive(final IFolder reviewFolder) throws CoreException, NoReviewSourceFolderException {
+        final ReviewArchive archive;
+        try {
+            archive = ReviewArchive.open(reviewFolder);
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not open archive of " + reviewFolder, e));
+        }
+        if (archive == null) { return; }
+        try {
+            runInSourceProject(new IWorkspaceRunnable() {
+                @Override
+                public void run(IProgressMonitor monitor) throws CoreException {
+                    try {
+                        List<IFile> restored = archive.unpack(reviewFolder);
+                        PluginLogger.log(ReviewAccess.class.toString(), "unpackArchive", restored.size() + " author files of " + reviewFolder
+                                + " restored");
+                    } catch (IOException e) {
+                        throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not unpack archive of " + reviewFolder, e));
+                    } finally {
+                        archive.close();
+                    }
+                    IFile archiveFile = reviewFolder.getFile(ReviewArchive.ARCHIVE_NAME);
+                    OwnWriteTracker.getInstance().deleted(archiveFile);
+                    archiveFile.delete(true, monitor);
+                }
+            });
+        } finally {
+            // closing twice has no effect
+            archive.close();
+        }
+    }
+    
     /**
      * Fills the CommentModel with all found files
      * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
@@ -1032,13 +1790,9 @@ public class ReviewAccess {
         boolean activeReviewFound = false;
         String activeReview = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
         for (String currReview : pm.getOpenReviews()) {
-            if (rModel.containsReview(currReview, false)) {
-                this.loadReviewComments(currReview);
+            if (loadOpenReview(REVIEW_REPO_FOLDER, currReview)) {
                 // Test for active review
                 activeReviewFound = activeReviewFound || currReview.equals(activeReview);
-            } else {
-                // Just remove open, but not existent reviews
-                pm.removeFromOpenReviews(currReview);
             }
         }
         if (!activeReviewFound) {
@@ -1046,6 +1800,40 @@ public class ReviewAccess {
         }
     }
     
+    /**
+     * Clears all models and loads all reviews without their comments. Used by the {@link ReviewLoadJob}, serialized with refreshes.
+     * @param project source project to be loaded (nothing will be done, if it is not the current source project anymore)
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    void reloadReviews(IProject project) throws NoReviewSourceFolderException {
+        synchronized (this.refreshLock) {
+            if (REVIEW_REPO_FOLDER != project) { return; }
+            this.clearAllModels();
+            loadAllReviews();
+        }
+    }
+    
+    /**
+     * Loads the comments of the given review, which is marked as open. If the review does not exist anymore, it will just be removed from the open
+     * reviews. Serialized with refreshes.
+     * @param project source project to be loaded (nothing will be done, if it is not the current source project anymore)
+     * @param reviewId id of an open review
+     * @return <i>true</i> if the comments of the review have been loaded, <i>false</i> if the review does not exist
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    boolean loadOpenReview(IProject project, String reviewId) throws NoReviewSourceFolderException {
+        synchronized (this.refreshLock) {
+            if (REVIEW_REPO_FOLDER != project) { return false; }
+            if (!rModel.containsReview(reviewId, false)) {
+                // Just remove open, but not existent reviews
+                pm.removeFromOpenReviews(reviewId);
+                return false;
+            }
+            this.loadReviewComments(reviewId);
+            return true;
+        }
+    }
+    
     /**
      * Tells the ReviewAccess to get the current ReviewSourceProject (which should have changed) and reload the comments
      * @return true, if something has changed, false otherwise
@@ -1062,70 +1850,378 @@ public class ReviewAccess {
     }
     
     /**
-     * Saves the current xmlBeans objects to files (all in model)
+     * Saves the current xmlBeans objects to files (all in model). In journal mode, changes of comments are only appended to the journal of the
+     * corresponding author file.
      * @param obj The object which changed (to determine which file has to be saved). Has to be a comment or a review
      * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
      */
     public void save(XmlObject obj) throws NoReviewSourceFolderException {
-        // lock for Mantis tracker issue no. 141, Github issue #1
-        synchronized (RECENTLY_SAVED) {
-            RECENTLY_SAVED = true;
-            // Determine the file of this comment
-            IFile file2save = null;
-            if (obj instanceof Comment) {
-                file2save = createCommentFile(((Comment) obj).getReviewID(), ((Comment) obj).getAuthor());
-            } else if (obj instanceof Review) {
-                file2save = createReviewFile(((Review) obj).getId());
+        if (obj instanceof Comment) {
+            // the attributes of the comment might have been changed -> update secondary indices
+            rModel.updateComment((Comment) obj);
+            ModelEventBus.post(ModelEvent.commentEvent(ModelEvent.Type.COMMENT_CHANGED, (Comment) obj));
+            if (journal(CommentJournal.Operation.UPDATE, (Comment) obj)) { return; }
+        }
+        saveToFile(obj);
+    }
+    
+    /**
+     * Saves the file containing the given object completely
+     * @param obj The object which changed (to determine which file has to be saved). Has to be a comment or a review
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    private void saveToFile(XmlObject obj) throws NoReviewSourceFolderException {
+        // Determine the file of this comment
+        IFile file2save = null;
+        if (obj instanceof Comment) {
+            file2save = createCommentFile(((Comment) obj).getReviewID(), ((Comment) obj).getAuthor());
+        } else if (obj instanceof Review) {
+            file2save = createReviewFile(((Review) obj).getId());
+        }
+        try {
+            if (file2save != null) {
+                rFileModel.markDirty(file2save);
+                PluginLogger.log(this.getClass().toString(), "save", "Save file '" + file2save.getName() + "' in order to save comment " + obj);
+                rFileModel.save(file2save);
+            } else {
+                PluginLogger.logError(this.getClass().toString(), "save", obj + " could not be saved, as it is neither a comment nor a review");
             }
-            try {
-                if (file2save != null) {
-                    PluginLogger.log(this.getClass().toString(), "save", "Save file '" + file2save.getName() + "' in order to save comment " + obj);
-                    rFileModel.save(file2save);
-                } else {
-                    PluginLogger.logError(this.getClass().toString(), "save", obj + " could not be saved, as it is neither a comment nor a review");
+        } catch (IOException e) {
+            PluginLogger.logError(this.getClass().toString(), "save", "IOException occured while trying to save to file " + file2save, e);
+        }
+    }
+    
+    /**
+     * Appends the given mutation to the journal of the corresponding author file, if journal mode is enabled. If the journal grows too large, it
+     * will be compacted into the author file.
+     * @param operation performed operation
+     * @param comment changed comment
+     * @return <i>true</i> if the mutation has been journaled, <i>false</i> if the author file has to be saved completely
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    private boolean journal(CommentJournal.Operation operation, Comment comment) throws NoReviewSourceFolderException {
+        if (!CommentJournal.getInstance().isEnabled()) { return false; }
+        return journal(createCommentFile(comment.getReviewID(), comment.getAuthor()), operation, computePath(comment), comment.getId(), comment);
+    }
+    
+    /**
+     * Appends the given mutation to the journal of the given author file. If the journal grows too large, it will be compacted into the author
+     * file.
+     * @param file author file
+     * @param operation performed operation
+     * @param path path of the commented file
+     * @param commentId id of the changed comment
+     * @param comment changed comment (may be <i>null</i> for {@link CommentJournal.Operation#DELETE})
+     * @return <i>true</i> if the mutation has been journaled, <i>false</i> if the author file has to be saved completely
+     */
+    private boolean journal(IFile file, CommentJournal.Operation operation, String path, String commentId, Comment comment) {
+        if (!CommentJournal.getInstance().isEnabled()) { return false; }
+        // the author file does not reflect the change until the journal is compacted
+        this.rFileModel.markDirty(file);
+        try {
+            long size = CommentJournal.getInstance().append(file, operation, path, commentId, comment);
+            if (size > CommentJournal.COMPACTION_THRESHOLD) {
+                PluginLogger.log(this.getClass().toString(), "journal", "Compact journal of file '" + file.getName() + "'");
+                return false;
+            }
+            // does nothing if the job is already waiting, so the journal is compacted at the latest after the delay
+            this.journalCompactionJob.schedule(CommentJournal.COMPACTION_DELAY);
+            return true;
+        } catch (IOException e) {
+            PluginLogger.logError(this.getClass().toString(), "journal", "IOException occured while writing journal of file " + file
+                    + ". Saving the file completely", e);
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the number of review and comment files which have been written to disk since the plugin has been started
+     * @return number of written files
+     */
+    public long getSavedDocumentCount() {
+        return this.rFileModel.getSavedDocumentCount();
+    }
+    
+    /**
+     * Returns the number of saves which have been skipped since the plugin has been started, as the document had not been modified
+     * @return number of skipped saves
+     */
+    public long getSkippedDocumentCount() {
+        return this.rFileModel.getSkippedDocumentCount();
+    }
+    
+    /**
+     * Writes all files which have been marked dirty by a delayed save. The resulting workspace refresh will not trigger a reload of the model.
+     */
+    void flushPendingSaves() {
+        if (this.rFileModel.hasPendingWrites()) {
+            this.rFileModel.flush();
+        }
+    }
+    
+    /**
+     * Compacts all journals of loaded author files into the author files
+     */
+    void compactJournals() {
+        compactJournals(null);
+    }
+    
+    /**
+     * Compacts the journals of the loaded author files of the given review into the author files
+     * @param reviewId id of the review or <i>null</i> for all reviews
+     */
+    private void compactJournals(String reviewId) {
+        for (IFile f : CommentJournal.getInstance().getJournaledFiles()) {
+            if (reviewId != null && !f.getParent().getName().equals("review." + reviewId)) {
+                continue;
+            }
+            if (this.rFileModel.getCommentsDoc(f) != null) {
+                try {
+                    PluginLogger.log(this.getClass().toString(), "compactJournals", "Compact journal of file '" + f.getName() + "'");
+                    this.rFileModel.save(f);
+                } catch (IOException e) {
+                    PluginLogger.logError(this.getClass().toString(), "compactJournals", "IOException occured while compacting journal of file "
+                            + f, e);
                 }
-            } catch (IOException e) {
-                PluginLogger.logError(this.getClass().toString(), "save", "IOException occured while trying to save to file " + file2save, e);
             }
         }
     }
     
     /**
-     * Do a global refresh if but not if we are currently changing it.
+     * Replays the journal of the given author file on the given (freshly parsed) document
+     * @param file author file
+     * @param doc document parsed from the author file
+     */
+    private void replayJournal(IFile file, CommentsDocument doc) {
+        List<CommentJournal.JournalEntry> entries = CommentJournal.getInstance().read(file);
+        if (entries.isEmpty()) { return; }
+        // the document differs from the author file after the replay
+        this.rFileModel.markDirty(file);
+        PluginLogger.log(this.getClass().toString(), "replayJournal", "Replay " + entries.size() + " journal entries of file '" + file.getName() + "'");
+        
+        // Index the comments of the document by their id
+        HashMap<String, Comment> comments = new HashMap<String, Comment>();
+        for (Comment c : collectComments(doc)) {
+            comments.put(c.getId(), c);
+        }
+        
+        for (CommentJournal.JournalEntry entry : entries) {
+            Comment existing = comments.get(entry.getCommentId());
+            if (entry.getOperation() == CommentJournal.Operation.DELETE) {
+                if (existing != null) {
+                    cleanXmlPath(existing);
+                    comments.remove(entry.getCommentId());
+                }
+            } else {
+                try {
+                    Comment journaled = CommentDocument.Factory.parse(entry.getCommentXml()).getComment();
+                    if (existing == null) {
+                        existing = ((File) findXmlPath(doc, entry.getPath(), IResource.FILE, true)).addNewComment();
+                        comments.put(entry.getCommentId(), existing);
+                    }
+                    existing.set(journaled);
+                } catch (XmlException e) {
+                    PluginLogger.logError(this.getClass().toString(), "replayJournal", "Skipping corrupt journal entry for comment "
+                            + entry.getCommentId() + " of file " + file, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Do a global refresh of all open reviews.
      * @author Malte Brunnlieb (25.08.2013)
      * @author Peter Reuter (27.10.2014)
      */
     public void doGlobalRefresh() {
-        // lock for Mantis tracker issue no. 141, Github issue #1
-        synchronized (RECENTLY_SAVED) {
-            if (RECENTLY_SAVED) {
-                PluginLogger.log(getClass().toString(), "doGlobalRefresh",
-                        "execution of global refresh canceled due to recently saved. (Loop detection)");
-                // do nothing as we changed the data
-                RECENTLY_SAVED = false;
-            } else {
-                PluginLogger.log(getClass().toString(), "doGlobalRefresh", "execute global refresh");
-                // Refill the database
-                try {
+        doGlobalRefresh(null);
+    }
+    
+    /**
+     * Do a refresh based on the given resource delta of the AgileReview Source Project. Only the review and comment files which have been added,
+     * changed or removed by someone else will be reloaded, changes caused by our own saves are skipped (see {@link OwnWriteTracker}). If no delta
+     * is given, all open reviews will be reloaded.
+     * @param delta resource delta of the AgileReview Source Project or <i>null</i> for a global refresh
+     */
+    public void doGlobalRefresh(IResourceDelta delta) {
+        // Mantis tracker issue no. 141, Github issue #1: deltas caused by our own saves are skipped by refreshChangedFiles (refreshes are
+        // serialized, saves are not blocked by a refresh)
+        synchronized (this.refreshLock) {
+            // Refill the database
+            int refreshed = REFRESHED_REVIEWS;
+            try {
+                if (delta == null) {
+                    PluginLogger.log(getClass().toString(), "doGlobalRefresh", "execute global refresh");
                     fillDatabaseForOpenReviews();
-                    
-                    // Test if active review may have vanished
-                    String activeReview = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
-                    if (!reviewExists(activeReview)) {
-                        if (!isReviewLoaded(activeReview)) {
-                            // Active review has vanished --> deactivate it
-                            PropertiesManager.getPreferences().setToDefault(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
-                        }
+                } else {
+                    PluginLogger.log(getClass().toString(), "doGlobalRefresh", "execute incremental refresh");
+                    refreshed = refreshChangedFiles(delta);
+                    if (refreshed == REFRESHED_NOTHING) {
+                        // nothing relevant changed or we changed the data ourselves
+                        return;
                     }
-                } catch (NoReviewSourceFolderException e) {
-                    ExceptionHandler.handleNoReviewSourceFolderException();
                 }
                 
+                // Test if active review may have vanished
+                String activeReview = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
+                if (!reviewExists(activeReview)) {
+                    if (!isReviewLoaded(activeReview)) {
+                        // Active review has vanished --> deactivate it
+                        PropertiesManager.getPreferences().setToDefault(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
+                    }
+                }
+            } catch (NoReviewSourceFolderException e) {
+                ExceptionHandler.handleNoReviewSourceFolderException();
+            }
+            
+            // Reloaded comment files have been posted to the event bus, whereas changed reviews require the views to be reloaded
+            if (refreshed == REFRESHED_REVIEWS) {
                 ViewControl.refreshViews(ViewControl.ALL_VIEWS, true);
             }
         }
-	}
-
+    }
+    
+    /**
+     * Reloads the review and comment files which have been added, changed or removed according to the given delta and patches the models in place
+     * @param delta resource delta of the AgileReview Source Project
+     * @return {@link #REFRESHED_REVIEWS} if at least one review file has been changed, {@link #REFRESHED_COMMENTS} if only comment files have been
+     *         changed, {@link #REFRESHED_NOTHING} otherwise
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    private int refreshChangedFiles(IResourceDelta delta) throws NoReviewSourceFolderException {
+        if (REVIEW_REPO_FOLDER == null) throw new NoReviewSourceFolderException();
+        
+        // Collect all changed files of the review folders
+        final ArrayList<IFile> changedReviewFiles = new ArrayList<IFile>();
+        final ArrayList<IFile> removedReviewFiles = new ArrayList<IFile>();
+        final ArrayList<IFile> changedCommentFiles = new ArrayList<IFile>();
+        final ArrayList<IFile> removedCommentFiles = new ArrayList<IFile>();
+        final ArrayList<IFile> importedCommentFiles = new ArrayList<IFile>();
+        try {
+            delta.accept(new IResourceDeltaVisitor() {
+                @Override
+                public boolean visit(IResourceDelta d) {
+                    IResource res = d.getResource();
+                    if (res instanceof IProject) { return true; }
+                    if (res instanceof IFolder) { return res.getParent() instanceof IProject && res.getName().startsWith("review."); }
+                    if (!(res instanceof IFile) || !(res.getParent().getParent() instanceof IProject)) { return false; }
+                    // skip exactly the changes we caused by saving or deleting files ourselves
+                    if (OwnWriteTracker.getInstance().isOwnChange(d)) { return false; }
+                    // archives are only read on demand and never loaded into the models
+                    if (ReviewArchive.isArchive(res)) { return false; }
+                    
+                    boolean isReviewFile = res.getName().equals("review.xml");
+                    // other storage backends import changed author files, but keep the comments of removed ones
+                    if (!isReviewFile && !STORAGE.isWorkspaceBacked()) {
+                        if (d.getKind() != IResourceDelta.REMOVED) {
+                            importedCommentFiles.add((IFile) res);
+                        }
+                        return false;
+                    }
+                    if (d.getKind() == IResourceDelta.REMOVED) {
+                        (isReviewFile ? removedReviewFiles : removedCommentFiles).add((IFile) res);
+                    } else if (d.getKind() == IResourceDelta.ADDED
+                            || (d.getKind() == IResourceDelta.CHANGED && (d.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0)) {
+                        (isReviewFile ? changedReviewFiles : changedCommentFiles).add((IFile) res);
+                    }
+                    return false;
+                }
+            });
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "refreshChangedFiles", "CoreException while visiting resource delta", e);
+            fillDatabaseForOpenReviews();
+            return REFRESHED_REVIEWS;
+        }
+        for (IFile f : importedCommentFiles) {
+            try {
+                if (((EmbeddedCommentStorage) STORAGE).importIfChanged(f)) {
+                    changedCommentFiles.add(f);
+                }
+            } catch (IOException e) {
+                PluginLogger.logError(this.getClass().toString(), "refreshChangedFiles", "Could not import " + f + " into the database", e);
+            }
+        }
+        if (changedReviewFiles.isEmpty() && removedReviewFiles.isEmpty() && changedCommentFiles.isEmpty() && removedCommentFiles.isEmpty()) { return REFRESHED_NOTHING; }
+        PluginLogger.log(this.getClass().toString(), "refreshChangedFiles", "Reload " + changedReviewFiles.size() + " and remove "
+                + removedReviewFiles.size() + " review files, reload " + changedCommentFiles.size() + " and remove " + removedCommentFiles.size()
+                + " comment files");
+        
+        // Removed reviews
+        for (IFile f : removedReviewFiles) {
+            ReviewDocument oldDoc = this.rFileModel.getReviewDoc(f);
+            if (oldDoc != null) {
+                this.rModel.removeReview(oldDoc.getReview().getId(), true);
+            }
+            this.rFileModel.forgetXmlDocument(f);
+        }
+        
+        // Removed comment files
+        for (IFile f : removedCommentFiles) {
+            CommentsDocument oldDoc = this.rFileModel.getCommentsDoc(f);
+            if (oldDoc != null) {
+                postComments(ModelEvent.Type.COMMENT_REMOVED, removeCommentsDocument(oldDoc), true);
+            }
+            this.rFileModel.forgetXmlDocument(f);
+        }
+        
+        // Added or changed reviews
+        LinkedList<IResource> errorFiles = new LinkedList<IResource>();
+        HashSet<IFolder> reloadedFolders = new HashSet<IFolder>();
+        for (ParallelXmlLoader.Result<ReviewDocument> r : ParallelXmlLoader.load(changedReviewFiles, ParallelXmlLoader.REVIEW_PARSER)) {
+            try {
+                if (r.getError() != null) {
+                    throw r.getError();
+                }
+                Review review = r.getDocument().getReview();
+                boolean isNew = !this.rModel.containsReview(review.getId(), false);
+                this.rFileModel.addXmlDocument(r.getDocument(), r.getFile());
+                this.rModel.updateReview(review);
+                // Load the comments of new reviews, which are marked as open
+                if (isNew && pm.isReviewOpen(review.getId())) {
+                    loadReviewComments(review.getId());
+                    reloadedFolders.add((IFolder) r.getFile().getParent());
+                }
+            } catch (Exception e) {
+                PluginLogger.logError(ReviewAccess.class.toString(), "refreshChangedFiles", "Could not load file " + r.getFile(), e);
+                errorFiles.add(r.getFile());
+            }
+        }
+        
+        // Added or changed comment files of loaded reviews
+        ArrayList<IFile> commentFilesToLoad = new ArrayList<IFile>();
+        for (IFile f : changedCommentFiles) {
+            if (reloadedFolders.contains(f.getParent())) {
+                continue;
+            }
+            IFile reviewFile = ((IFolder) f.getParent()).getFile("review.xml");
+            ReviewDocument reviewDoc = this.rFileModel.getReviewDoc(reviewFile);
+            if (reviewDoc != null && this.rModel.containsReview(reviewDoc.getReview().getId(), true)) {
+                commentFilesToLoad.add(f);
+            }
+        }
+        storeCommentsDocuments(commentFilesToLoad, "refreshChangedFiles", errorFiles, true);
+        
+        // Parts of the documents have been replaced -> cached paths are no longer valid
+        invalidateAllPaths();
+        
+        // Show errors to user
+        if (!errorFiles.isEmpty()) {
+            String message = "AgileReview could not reload the following files:\n\n";
+            for (IResource file : errorFiles) {
+                message += file.getLocation().toOSString() + "\n";
+            }
+            message += "\nThese files may be corrupted (i.e. empty). Please check them.";
+            final String finalMessage = message;
+            Display.getDefault().syncExec(new Runnable() {
+                @Override
+                public void run() {
+                    MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not load files", finalMessage);
+                }
+            });
+        }
+        return changedReviewFiles.isEmpty() && removedReviewFiles.isEmpty() ? REFRESHED_COMMENTS : REFRESHED_REVIEWS;
+    }
+    
 	/**
 	 * Generates the comment key for the given comment in the following scheme:
 	 * reviewID|author|commendID
@@ -0,0 +1,269 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.xmlbeans.XmlException;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+
+import agileReview.softech.tukl.de.CommentsDocument;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * Read-only archive of the author files of a closed review. All author files of the review folder are packed into one compressed ZIP container
+ * next to the review file. The central directory of the container serves as index of the contained author files, so a single author file can be
+ * read without inflating the others. The comments are read by the {@link StreamingCommentReader}, i.e. without building XmlBeans stores.
+ * Archived reviews have to be unpacked before their comments can be loaded or changed, only refactorings rewrite the paths of an archive.
+ */
+public final class ReviewArchive {
+
+    /**
+     * Name of the archive within a review folder
+     */
+    public static final String ARCHIVE_NAME = "comments.zip";
+
+    /**
+     * Opened container
+     */
+    private final ZipFile zip;
+
+    /**
+     * Opens the given archive
+     * @param zip opened container
+     */
+    private ReviewArchive(ZipFile zip) {
+        this.zip = zip;
+    }
+
+    /**
+     * Checks whether the given resource is a review archive
+     * @param resource resource within a review folder
+     * @return <i>true</i> if the resource is a review archive, <i>false</i> otherwise
+     */
+    static boolean isArchive(IResource resource) {
+        return resource instanceof IFile && resource.getName().equals(ARCHIVE_NAME);
+    }
+
+    /**
+     * Opens the archive of the given review folder
+     * @param reviewFolder review folder
+     * @return the opened archive (has to be closed by the caller) or <i>null</i> if the review is not archived
+     * @throws IOException if the archive could not be opened
+     */
+    static ReviewArchive open(IFolder reviewFolder) throws IOException {
+        IFile file = reviewFolder.getFile(ARCHIVE_NAME);
+        if (!file.exists() || file.getLocation() == null) { return null; }
+        return new ReviewArchive(new ZipFile(file.getLocation().toFile()));
+    }
+
+    /**
+     * Packs the given author files into the given archive file
+     * @param authorFiles author files of a review folder
+     * @param target archive file to be written
+     * @throws IOException if an author file could not be read or the archive could not be written
+     * @throws CoreException if the contents of an author file could not be accessed
+     */
+    static void pack(List<IFile> authorFiles, File target) throws IOException, CoreException {
+        ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+        try {
+            out.setLevel(Deflater.BEST_COMPRESSION);
+            byte[] buffer = new byte[8192];
+            for (IFile f : authorFiles) {
+                writeEntry(out, f.getName(), f.getContents(true), buffer);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Packs the given author file contents into a new archive
+     * @param authorFiles name of the author file -> contents of the author file
+     * @return contents of the archive
+     * @throws IOException if the archive could not be written
+     */
+    static byte[] pack(Map<String, byte[]> authorFiles) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ZipOutputStream out = new ZipOutputStream(result);
+        try {
+            out.setLevel(Deflater.BEST_COMPRESSION);
+            byte[] buffer = new byte[8192];
+            for (Entry<String, byte[]> e : authorFiles.entrySet()) {
+                writeEntry(out, e.getKey(), new ByteArrayInputStream(e.getValue()), buffer);
+            }
+        } finally {
+            out.close();
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Writes the given stream as new entry into the given archive and closes the stream afterwards
+     * @param out archive to be written
+     * @param name name of the entry
+     * @param in contents of the entry
+     * @param buffer copy buffer
+     * @throws IOException if the stream could not be read or the entry could not be written
+     */
+    private static void writeEntry(ZipOutputStream out, String name, InputStream in, byte[] buffer) throws IOException {
+        try {
+            out.putNextEntry(new ZipEntry(name));
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.closeEntry();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the names of all archived author files in the order they have been packed
+     */
+    public List<String> getAuthorFiles() {
+        ArrayList<String> result = new ArrayList<String>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            result.add(entries.nextElement().getName());
+        }
+        return result;
+    }
+
+    /**
+     * Reads the comments of the given archived author file. Only this author file will be inflated.
+     * @param authorFile name of an archived author file
+     * @param visitor visitor to be informed about every comment
+     * @return number of read comments (0 if there is no such author file)
+     * @throws IOException if the archive could not be read
+     * @throws XMLStreamException if the author file is not well-formed
+     */
+    public int readComments(String authorFile, StreamingCommentReader.CommentVisitor visitor) throws IOException, XMLStreamException {
+        ZipEntry entry = zip.getEntry(authorFile);
+        if (entry == null) { return 0; }
+        InputStream in = new BufferedInputStream(zip.getInputStream(entry));
+        try {
+            return StreamingCommentReader.read(in, visitor);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parses the given archived author file into a detached document. Other than {@link #readComments(String, StreamingCommentReader.CommentVisitor)}
+     * this builds an XmlBeans store, so it should only be used by consumers which need the XmlBeans representation of the comments.
+     * @param authorFile name of an archived author file
+     * @return the parsed document or <i>null</i> if there is no such author file
+     * @throws IOException if the archive could not be read
+     * @throws XmlException if the author file is not well-formed
+     */
+    public CommentsDocument parseAuthorFile(String authorFile) throws IOException, XmlException {
+        ZipEntry entry = zip.getEntry(authorFile);
+        if (entry == null) { return null; }
+        InputStream in = new BufferedInputStream(zip.getInputStream(entry));
+        try {
+            return CommentsDocument.Factory.parse(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the comments of all archived author files
+     * @param visitor visitor to be informed about every comment
+     * @return number of read comments
+     * @throws IOException if the archive could not be read
+     * @throws XMLStreamException if an author file is not well-formed
+     */
+    public int readAllComments(StreamingCommentReader.CommentVisitor visitor) throws IOException, XMLStreamException {
+        int count = 0;
+        for (String authorFile : getAuthorFiles()) {
+            count += readComments(authorFile, visitor);
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the given entry name is a plain author file name, i.e. <code>author_&lt;name&gt;.xml</code> without any path segments
+     * @param name name of an archive entry
+     * @return <i>true</i> if the name denotes an author file directly within the review folder, <i>false</i> otherwise
+     */
+    private static boolean isAuthorFileName(String name) {
+        return name.startsWith("author_") && name.endsWith(".xml") && name.length() > "author_.xml".length() && name.indexOf('/') < 0
+                && name.indexOf('\\') < 0 && name.indexOf(':') < 0 && !name.contains("..");
+    }
+
+    /**
+     * Restores all archived author files into the given review folder. Each restored file is reported to the {@link OwnWriteTracker}. All entry
+     * names are validated before any file is written, so an archive containing anything else than plain author files (e.g. paths leading out of
+     * the review folder) is rejected as a whole.
+     * @param reviewFolder review folder of this archive
+     * @return the restored author files
+     * @throws IOException if the archive could not be read or contains an entry which is not a plain author file
+     * @throws CoreException if an author file could not be created
+     */
+    List<IFile> unpack(IFolder reviewFolder) throws IOException, CoreException {
+        List<? extends ZipEntry> entries = Collections.list(zip.entries());
+        for (ZipEntry entry : entries) {
+            if (entry.isDirectory() || !isAuthorFileName(entry.getName())) {
+                throw new IOException("Archive " + zip.getName() + " contains the unexpected entry \"" + entry.getName()
+                        + "\", nothing has been restored");
+            }
+        }
+        ArrayList<IFile> result = new ArrayList<IFile>();
+        for (ZipEntry entry : entries) {
+            IFile file = reviewFolder.getFile(entry.getName());
+            ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.max(entry.getSize(), 0));
+            InputStream in = zip.getInputStream(entry);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+            OwnWriteTracker.getInstance().written(file, entry.getCrc(), content.size());
+            if (file.exists()) {
+                file.setContents(new ByteArrayInputStream(content.toByteArray()), true, false, null);
+            } else {
+                file.create(new ByteArrayInputStream(content.toByteArray()), true, null);
+            }
+            result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Closes this archive
+     */
+    public void close() {
+        try {
+            zip.close();
+        } catch (IOException e) {
+            PluginLogger.logError(this.getClass().toString(), "close", "IOException while closing archive " + zip.getName(), e);
+        }
+    }
+}
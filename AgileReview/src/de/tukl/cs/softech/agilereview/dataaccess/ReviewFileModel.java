@@ -1,41 +1,130 @@
 package de.tukl.cs.softech.agilereview.dataaccess;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.XmlTokenSource;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.ide.ResourceUtil;
 
 import agileReview.softech.tukl.de.CommentsDocument;
 import agileReview.softech.tukl.de.ReviewDocument;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
+import de.tukl.cs.softech.agilereview.views.ViewControl;
 
 /**
- * Model which holds the files in which the comments and reviews are stored and provides saving functions
+ * Model which holds the files in which the comments and reviews are stored and provides saving functions. The documents may be looked up from
+ * any thread.
  */
 class ReviewFileModel {
     
     /**
      * Maps the files to the corresponding review document (for saving)
      */
-    private final HashMap<IFile, ReviewDocument> xmlReviewDocuments = new HashMap<IFile, ReviewDocument>();
+    private final ConcurrentHashMap<IFile, ReviewDocument> xmlReviewDocuments = new ConcurrentHashMap<IFile, ReviewDocument>();
     
     /**
      * Maps the file-paths to the corresponding comment document (for saving)
      */
-    private final HashMap<IFile, CommentsDocument> xmlCommentDocuments = new HashMap<IFile, CommentsDocument>();
+    private final ConcurrentHashMap<IFile, CommentsDocument> xmlCommentDocuments = new ConcurrentHashMap<IFile, CommentsDocument>();
+    
+    /**
+     * Documents which have been marked dirty and will be written by the next flush (file -> document)
+     */
+    private final LinkedHashMap<IFile, XmlTokenSource> pendingSaves = new LinkedHashMap<IFile, XmlTokenSource>();
+    
+    /**
+     * Files which have been written by a flush, but not yet refreshed in the workspace
+     */
+    private final LinkedHashSet<IFile> unrefreshedFiles = new LinkedHashSet<IFile>();
+    
+    /**
+     * Files whose documents have been modified since they were loaded or written last (file -> modification version)
+     */
+    private final HashMap<IFile, Long> dirtyVersions = new HashMap<IFile, Long>();
+    
+    /**
+     * Source for modification versions
+     */
+    private final AtomicLong versionCounter = new AtomicLong();
+    
+    /**
+     * Number of documents written to disk
+     */
+    private final AtomicLong savedDocuments = new AtomicLong();
+    
+    /**
+     * Number of documents not written to disk as they had not been modified
+     */
+    private final AtomicLong skippedDocuments = new AtomicLong();
+    
+    /**
+     * Storage backend of the comments documents
+     */
+    private final CommentStorage storage;
+    
+    /**
+     * Lock which is held while documents are written to disk
+     */
+    private final Object writeLock = new Object();
+    
+    /**
+     * Background job flushing the dirty documents after the configured delay
+     */
+    private final Job flushJob = new Job("Saving AgileReview files") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            // flush this model directly, it might have been parked in the SourceProjectCache in the meantime
+            flush();
+            return Status.OK_STATUS;
+        }
+    };
+    
+    //////////////////
+    // Constructors //
+    //////////////////
+    
+    /**
+     * Creates a new ReviewFileModel storing the comments documents in their author files
+     */
+    ReviewFileModel() {
+        this(new XmlCommentStorage());
+    }
+    
+    /**
+     * Creates a new ReviewFileModel
+     * @param storage storage backend of the comments documents
+     */
+    ReviewFileModel(CommentStorage storage) {
+        this.storage = storage;
+        flushJob.setSystem(true);
+    }
+    
+    /////////////
+    // private //
+    /////////////
     
     /**
      * Saving method for a given XML document / File pair
@@ -43,13 +132,73 @@ class ReviewFileModel {
      * @param filePath
      * @throws IOException
      */
-    private void save(XmlTokenSource document, IFile filePath) throws IOException {
-        document.save(filePath.getLocation().toFile(), new XmlOptions().setSavePrettyPrint());
+    private boolean save(XmlTokenSource document, IFile filePath) throws IOException {
+        boolean written;
+        synchronized (writeLock) {
+            written = write(document, filePath);
+        }
+        if (written && isInWorkspace(document)) {
+            refresh(filePath);
+        }
+        return written;
+    }
+    
+    /**
+     * Writes the given document to the given file without refreshing the workspace, if it has been modified
+     * @param document
+     * @param filePath
+     * @return <i>true</i> if the document has been written, <i>false</i> if it has not been modified
+     * @throws IOException
+     */
+    private boolean write(XmlTokenSource document, IFile filePath) throws IOException {
+        // do not let the document be changed while it is serialized
+        synchronized (document.monitor()) {
+            Long version;
+            synchronized (dirtyVersions) {
+                version = dirtyVersions.get(filePath);
+            }
+            if (version == null) {
+                skippedDocuments.incrementAndGet();
+                return false;
+            }
+            if (document instanceof CommentsDocument) {
+                storage.save(filePath, (CommentsDocument) document);
+            } else {
+                XmlCommentStorage.writeFile(document, filePath);
+            }
+            // the file contains all changes now
+            CommentJournal.getInstance().clear(filePath);
+            synchronized (dirtyVersions) {
+                // modifications recorded while serializing keep the document dirty
+                if (version.equals(dirtyVersions.get(filePath))) {
+                    dirtyVersions.remove(filePath);
+                }
+            }
+        }
+        savedDocuments.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * States whether the given document is stored in its file in the workspace, i.e. the file has to be refreshed after writing
+     * @param document
+     * @return <i>true</i> for review documents and for comments documents of a workspace backed storage, <i>false</i> otherwise
+     */
+    private boolean isInWorkspace(XmlTokenSource document) {
+        return !(document instanceof CommentsDocument) || storage.isWorkspaceBacked();
+    }
+    
+    /**
+     * Refreshes the given file in the workspace after it has been written
+     * @param filePath
+     */
+    private void refresh(IFile filePath) {
         try {
             filePath.refreshLocal(IResource.DEPTH_INFINITE, null);
         } catch (final CoreException e) {
             PluginLogger.logError(ReviewAccess.class.toString(), "save", "CoreException while saving " + filePath.getLocation().toOSString(), e);
-            Display.getDefault().syncExec(new Runnable() {
+            // asynchronous, as this might be called from the flush job
+            Display.getDefault().asyncExec(new Runnable() {
                 @Override
                 public void run() {
                     MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could save AgileReview files", e
@@ -59,6 +208,34 @@ class ReviewFileModel {
         }
     }
     
+    /**
+     * Returns the configured delay for coalescing saves
+     * @return delay in milliseconds (0 for saving synchronously)
+     */
+    private static long getSaveDelay() {
+        return Math.max(0, PropertiesManager.getPreferences().getInt(PropertiesManager.EXTERNAL_KEYS.SAVE_DELAY));
+    }
+    
+    /**
+     * Removes the given file from the pending saves
+     * @param file
+     */
+    private void discardPendingSave(IFile file) {
+        synchronized (pendingSaves) {
+            pendingSaves.remove(file);
+        }
+    }
+    
+    /**
+     * Removes the given file from the dirty files
+     * @param file
+     */
+    private void discardModification(IFile file) {
+        synchronized (dirtyVersions) {
+            dirtyVersions.remove(file);
+        }
+    }
+    
     /**
      * Deletes the given file
      * @param delFile
@@ -66,23 +243,28 @@ class ReviewFileModel {
     private void deleteResource(final IResource delFile) {
         try {
             if (delFile instanceof IFile) {
+                CommentJournal.getInstance().clear((IFile) delFile);
+                // author files kept by a backend which is not workspace backed may not exist and are not deleted by it
+                if (delFile.exists() && (this.storage.isWorkspaceBacked() || delFile.getName().equals("review.xml"))) {
+                    OwnWriteTracker.getInstance().deleted((IFile) delFile);
+                }
                 Display.getDefault().syncExec(new Runnable() {
                     @Override
                     public void run() {
-                        while (PlatformUI.getWorkbench() == null) {
-                        }
-                        while (PlatformUI.getWorkbench().getActiveWorkbenchWindow() == null) {
-                        }
-                        while (PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage() == null) {
-                        }
-                        IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
+                        // without an active page, there is no editor to be closed
+                        IWorkbenchPage page = ViewControl.getActivePage();
+                        if (page == null) { return; }
                         IEditorPart editor = ResourceUtil.findEditor(page, (IFile) delFile);
                         if (editor != null) {
                             page.closeEditor(editor, false);
                         }
                     }
                 });
-                delFile.delete(true, null);
+                if (delFile.getName().equals("review.xml")) {
+                    delFile.delete(true, null);
+                } else {
+                    this.storage.delete((IFile) delFile);
+                }
             } else if (delFile instanceof IFolder) {
                 for (IResource r : ((IFolder) delFile).members()) {
                     deleteResource(r);
@@ -115,10 +297,19 @@ class ReviewFileModel {
      * @param path
      */
     void addXmlDocument(XmlTokenSource doc, IFile path) {
+        // a pending save of a replaced document must not overwrite the new one
+        synchronized (pendingSaves) {
+            if (pendingSaves.containsKey(path) && pendingSaves.get(path) != doc) {
+                pendingSaves.remove(path);
+            }
+        }
         if (doc instanceof ReviewDocument) {
             this.xmlReviewDocuments.put(path, (ReviewDocument) doc);
         } else if (doc instanceof CommentsDocument) {
-            this.xmlCommentDocuments.put(path, (CommentsDocument) doc);
+            CommentsDocument oldDoc = this.xmlCommentDocuments.put(path, (CommentsDocument) doc);
+            if (oldDoc != null && oldDoc != doc) {
+                ReviewAccess.invalidateDocumentPaths(oldDoc);
+            }
         }
         
     }
@@ -128,16 +319,27 @@ class ReviewFileModel {
      * @param file
      */
     void removeXmlDocument(IFile file) {
+        discardPendingSave(file);
+        discardModification(file);
         // Delete the given file
         this.deleteResource(file);
         // If it was a review-file, delete the whole review
-        if (this.xmlCommentDocuments.remove(file) == null && this.xmlReviewDocuments.remove(file) != null) {
+        CommentsDocument commentsDoc = this.xmlCommentDocuments.remove(file);
+        if (commentsDoc != null) {
+            ReviewAccess.invalidateDocumentPaths(commentsDoc);
+        } else if (this.xmlReviewDocuments.remove(file) != null) {
             // Get the parent Folder
             IResource delFolder = file.getParent();
             
             // Delete all files in the review folder
             if (delFolder instanceof IFolder) {
                 try {
+                    // the comments documents might not be stored in the review folder
+                    if (!this.storage.isWorkspaceBacked()) {
+                        for (IFile f : this.storage.list((IFolder) delFolder)) {
+                            this.removeXmlDocument(f);
+                        }
+                    }
                     for (IResource f : ((IFolder) delFolder).members()) {
                         if (f instanceof IFile) this.removeXmlDocument((IFile) f);
                     }
@@ -159,21 +361,67 @@ class ReviewFileModel {
         }
     }
     
+    /**
+     * Removes this file from the model without deleting it (e.g. because it has already been deleted)
+     * @param file
+     */
+    void forgetXmlDocument(IFile file) {
+        discardPendingSave(file);
+        discardModification(file);
+        CommentsDocument commentsDoc = this.xmlCommentDocuments.remove(file);
+        if (commentsDoc != null) {
+            ReviewAccess.invalidateDocumentPaths(commentsDoc);
+        }
+        this.xmlReviewDocuments.remove(file);
+    }
+    
     /**
      * Clears this model
      */
     void clearModel() {
         PluginLogger.log(this.getClass().toString(), "clearModel", "Review and Comment file model cleared");
         this.xmlReviewDocuments.clear();
+        for (CommentsDocument doc : this.xmlCommentDocuments.values()) {
+            ReviewAccess.invalidateDocumentPaths(doc);
+        }
         this.xmlCommentDocuments.clear();
+        synchronized (dirtyVersions) {
+            dirtyVersions.clear();
+        }
+    }
+    
+    /**
+     * Marks the document of the given file as modified. Has to be called for every change of a document, as only modified documents will be
+     * written by {@link #save(IFile)} and {@link #saveAll()}.
+     * @param file
+     */
+    void markDirty(IFile file) {
+        synchronized (dirtyVersions) {
+            dirtyVersions.put(file, versionCounter.incrementAndGet());
+        }
+    }
+    
+    /**
+     * Checks whether the document of the given file has been modified since it was loaded or written last
+     * @param file
+     * @return <i>true</i> if the document has been modified, <i>false</i> otherwise
+     */
+    boolean isModified(IFile file) {
+        synchronized (dirtyVersions) {
+            return dirtyVersions.containsKey(file);
+        }
     }
     
     /**
-     * Saves the given File
+     * Saves the given File, if its document has been modified (see {@link #markDirty(IFile)}). If a save delay is configured, the file is only
+     * queued and will be written by a background job after the delay. All saves of the same file within this delay are coalesced. Files which are
+     * still empty on disk are always written immediately.
      * @param f
+     * @return <i>true</i> if the file has been written immediately, <i>false</i> if it has been queued only, has not been modified or is not part
+     *         of this model
      * @throws IOException
      */
-    void save(IFile f) throws IOException {
+    boolean save(IFile f) throws IOException {
         XmlTokenSource document = null;
         // Try comment-file
         document = this.xmlCommentDocuments.get(f);
@@ -182,15 +430,133 @@ class ReviewFileModel {
         }
         
         if (document != null) {
-            this.save(document, f);
+            if (!isModified(f)) {
+                skippedDocuments.incrementAndGet();
+                return false;
+            }
+            long delay = getSaveDelay();
+            if (delay == 0 || (isInWorkspace(document) && f.getLocation().toFile().length() == 0)) {
+                discardPendingSave(f);
+                return this.save(document, f);
+            } else {
+                synchronized (pendingSaves) {
+                    pendingSaves.put(f, document);
+                }
+                // does nothing if the job is already waiting, so saves within the delay are coalesced
+                flushJob.schedule(delay);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Saves the given file immediately (ignoring the configured save delay), if its document has been modified (see {@link #markDirty(IFile)}).
+     * A pending delayed save of this file is dropped.
+     * @param f
+     * @return <i>true</i> if the file has been written, <i>false</i> if it has not been modified or is not part of this model
+     * @throws IOException
+     */
+    boolean saveNow(IFile f) throws IOException {
+        XmlTokenSource document = this.xmlCommentDocuments.get(f);
+        if (document == null) {
+            document = this.xmlReviewDocuments.get(f);
+        }
+        if (document == null) { return false; }
+        discardPendingSave(f);
+        return this.save(document, f);
+    }
+    
+    /**
+     * Checks whether there are files which have been marked dirty or which have been written but not yet refreshed
+     * @return <i>true</i> if a {@link #flush()} has work to do, <i>false</i> otherwise
+     */
+    boolean hasPendingWrites() {
+        synchronized (pendingSaves) {
+            return !pendingSaves.isEmpty() || !unrefreshedFiles.isEmpty();
+        }
+    }
+    
+    /**
+     * Writes all dirty documents to disk and refreshes the written files in one workspace operation. When this method returns, no dirty document of
+     * this model is left unwritten (also not by a concurrently running flush job). If the workspace is currently locked (e.g. during a resource
+     * change notification), the refresh is postponed to the flush job.
+     */
+    void flush() {
+        synchronized (writeLock) {
+            LinkedHashMap<IFile, XmlTokenSource> toWrite;
+            synchronized (pendingSaves) {
+                toWrite = new LinkedHashMap<IFile, XmlTokenSource>(pendingSaves);
+                pendingSaves.clear();
+            }
+            int written = 0;
+            for (Entry<IFile, XmlTokenSource> e : toWrite.entrySet()) {
+                try {
+                    if (write(e.getValue(), e.getKey())) {
+                        written++;
+                        if (isInWorkspace(e.getValue())) {
+                            synchronized (pendingSaves) {
+                                unrefreshedFiles.add(e.getKey());
+                            }
+                        }
+                    }
+                } catch (final IOException ex) {
+                    PluginLogger.logError(this.getClass().toString(), "flush", "IOException occured while trying to save to file " + e.getKey(), ex);
+                    Display.getDefault().asyncExec(new Runnable() {
+                        @Override
+                        public void run() {
+                            MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could save AgileReview files", ex
+                                    .getLocalizedMessage());
+                        }
+                    });
+                }
+            }
+            if (!toWrite.isEmpty()) {
+                PluginLogger.log(this.getClass().toString(), "flush", written + " file(s) written");
+            }
+        }
+        
+        final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        if (workspace.isTreeLocked()) {
+            flushJob.schedule();
+            return;
+        }
+        final ArrayList<IFile> toRefresh;
+        synchronized (pendingSaves) {
+            toRefresh = new ArrayList<IFile>(unrefreshedFiles);
+            unrefreshedFiles.clear();
+        }
+        if (toRefresh.isEmpty()) { return; }
+        try {
+            workspace.run(new IWorkspaceRunnable() {
+                @Override
+                public void run(IProgressMonitor monitor) throws CoreException {
+                    for (IFile f : toRefresh) {
+                        f.refreshLocal(IResource.DEPTH_ZERO, monitor);
+                    }
+                }
+            }, null);
+        } catch (final CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "flush", "CoreException while refreshing saved files", e);
+            Display.getDefault().asyncExec(new Runnable() {
+                @Override
+                public void run() {
+                    MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could save AgileReview files", e
+                            .getLocalizedMessage());
+                }
+            });
         }
     }
     
     /**
-     * Saves all files of this model
+     * Saves all modified files of this model
      * @throws IOException
      */
     void saveAll() throws IOException {
+        synchronized (pendingSaves) {
+            pendingSaves.clear();
+        }
+        long saved = savedDocuments.get();
+        long skipped = skippedDocuments.get();
         // First the reviews
         for (Entry<IFile, ReviewDocument> currEntry : this.xmlReviewDocuments.entrySet()) {
             this.save(currEntry.getValue(), currEntry.getKey());
@@ -200,12 +566,30 @@ class ReviewFileModel {
         for (Entry<IFile, CommentsDocument> currEntry : this.xmlCommentDocuments.entrySet()) {
             this.save(currEntry.getValue(), currEntry.getKey());
         }
+        PluginLogger.log(this.getClass().toString(), "saveAll", (savedDocuments.get() - saved) + " document(s) saved, "
+                + (skippedDocuments.get() - skipped) + " unmodified document(s) skipped");
     }
     
     ////////////
     // Getter //
     ////////////
     
+    /**
+     * Returns the number of documents which have been written to disk
+     * @return number of written documents
+     */
+    long getSavedDocumentCount() {
+        return savedDocuments.get();
+    }
+    
+    /**
+     * Returns the number of saves which have been skipped, as the document had not been modified
+     * @return number of skipped saves
+     */
+    long getSkippedDocumentCount() {
+        return skippedDocuments.get();
+    }
+    
     /**
      * Returns all files saving comments persistently
      * @return all files saving comments persistently
@@ -223,6 +607,15 @@ class ReviewFileModel {
         return this.xmlCommentDocuments.get(file);
     }
     
+    /**
+     * Returns the Review document which is represented by the given file
+     * @param file
+     * @return Review document represented by this file
+     */
+    ReviewDocument getReviewDoc(IFile file) {
+        return this.xmlReviewDocuments.get(file);
+    }
+    
     /**
      * Checks whether this file is stored in this model
      * @param file
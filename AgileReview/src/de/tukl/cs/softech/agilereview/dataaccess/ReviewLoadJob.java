@@ -0,0 +1,161 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
+
+import de.tukl.cs.softech.agilereview.plugincontrol.exceptions.NoReviewSourceFolderException;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
+import de.tukl.cs.softech.agilereview.views.ViewControl;
+
+/**
+ * Background job loading the AgileReview Source Project. First all reviews are loaded and shown, afterwards the comments of the open reviews are
+ * loaded one review after another. Each loaded review is announced by a {@link ModelEvent.Type#REVIEW_OPENED} event, so the views populate
+ * incrementally. When the job is canceled, the reviews which have not been loaded yet are closed. If the models of the source project have been
+ * restored from the {@link SourceProjectCache}, only the open reviews which are not loaded yet will be loaded. A job whose source project is not
+ * the current one anymore stops without any changes.
+ */
+public class ReviewLoadJob extends Job {
+
+    /**
+     * Family of all load jobs (e.g. for showing views as busy while loading)
+     */
+    public static final String FAMILY = "de.tukl.cs.softech.agilereview.loadJobs";
+
+    /**
+     * Rule ensuring that load jobs never run concurrently
+     */
+    private static final ISchedulingRule MUTEX = new ISchedulingRule() {
+        @Override
+        public boolean isConflicting(ISchedulingRule rule) {
+            return rule == this;
+        }
+
+        @Override
+        public boolean contains(ISchedulingRule rule) {
+            return rule == this;
+        }
+    };
+
+    /**
+     * ReviewAccess to be filled
+     */
+    private final ReviewAccess ra;
+
+    /**
+     * Source project to be loaded
+     */
+    private final IProject project;
+
+    /**
+     * Whether the models of the source project have been restored (and only the missing open reviews have to be loaded)
+     */
+    private final boolean restored;
+
+    /**
+     * Creates a new job loading the current source project of the given ReviewAccess
+     * @param ra ReviewAccess to be filled
+     * @param project source project to be loaded
+     * @param restored whether the models of the source project have been restored from the {@link SourceProjectCache}
+     */
+    ReviewLoadJob(ReviewAccess ra, IProject project, boolean restored) {
+        super("Loading AgileReview Source Project");
+        this.ra = ra;
+        this.project = project;
+        this.restored = restored;
+        setRule(MUTEX);
+    }
+
+    @Override
+    public boolean belongsTo(Object family) {
+        return FAMILY.equals(family);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+        PropertiesManager pm = PropertiesManager.getInstance();
+        String[] openReviews = pm.getOpenReviews();
+        monitor.beginTask(getName(), openReviews.length + 1);
+        try {
+            if (monitor.isCanceled()) { return Status.CANCEL_STATUS; }
+            if (!restored) {
+                monitor.subTask("Loading reviews");
+                ra.reloadReviews(project);
+            }
+            refreshViews();
+            monitor.worked(1);
+
+            // Load all comments from open reviews
+            boolean activeReviewFound = false;
+            String activeReview = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
+            for (int i = 0; i < openReviews.length; i++) {
+                if (isSourceSwitched()) { return Status.CANCEL_STATUS; }
+                if (monitor.isCanceled()) {
+                    closeReviews(openReviews, i);
+                    return Status.CANCEL_STATUS;
+                }
+                monitor.subTask("Loading comments of review " + openReviews[i]);
+                if (restored && ra.isReviewLoaded(openReviews[i])) {
+                    // still loaded in the restored models
+                    activeReviewFound = activeReviewFound || openReviews[i].equals(activeReview);
+                } else if (ra.loadOpenReview(project, openReviews[i])) {
+                    // Test for active review
+                    activeReviewFound = activeReviewFound || openReviews[i].equals(activeReview);
+                }
+                monitor.worked(1);
+            }
+            if (isSourceSwitched()) { return Status.CANCEL_STATUS; }
+            if (!activeReviewFound) {
+                PropertiesManager.getPreferences().setToDefault(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
+            }
+            PluginLogger.log(this.getClass().toString(), "run", "Loaded " + openReviews.length + " open reviews");
+        } catch (NoReviewSourceFolderException e) {
+            // the source project has been unloaded in the meantime
+            PluginLogger.log(this.getClass().toString(), "run", "Loading canceled as there is no review source folder anymore");
+            return Status.CANCEL_STATUS;
+        } finally {
+            monitor.done();
+        }
+        return Status.OK_STATUS;
+    }
+
+    /**
+     * @return <i>true</i> if the source project of this job is not the current source project anymore
+     */
+    private boolean isSourceSwitched() {
+        return ra.getCurrentSourceFolder() != project;
+    }
+
+    /**
+     * Closes the given open reviews, whose comments have not been loaded due to a cancellation
+     * @param openReviews reviews marked as open
+     * @param start index of the first review which has not been loaded
+     */
+    private void closeReviews(String[] openReviews, int start) {
+        PluginLogger.log(this.getClass().toString(), "closeReviews", "Loading canceled, " + (openReviews.length - start)
+                + " open reviews will be closed");
+        for (int i = start; i < openReviews.length; i++) {
+            PropertiesManager.getInstance().removeFromOpenReviews(openReviews[i]);
+            ModelEventBus.post(ModelEvent.reviewEvent(ModelEvent.Type.REVIEW_CLOSED, openReviews[i]));
+        }
+    }
+
+    /**
+     * Reloads the inputs of all views in the UI thread
+     */
+    private static void refreshViews() {
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                if (!PlatformUI.isWorkbenchRunning()) { return; }
+                ViewControl.refreshViews(ViewControl.ALL_VIEWS, true);
+            }
+        });
+    }
+}
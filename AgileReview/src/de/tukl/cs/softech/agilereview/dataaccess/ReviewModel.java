@@ -1,16 +1,23 @@
 package de.tukl.cs.softech.agilereview.dataaccess;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
 import agileReview.softech.tukl.de.ReviewDocument.Review;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 
 /**
- * Model which holds all comments and provides some query functions.
+ * Model which holds all comments and provides some query functions. All functions are thread-safe: queries may run concurrently (e.g. views and
+ * exports), modifications are exclusive. All queries return new collections, so they can be iterated while the model is modified.
  */
 class ReviewModel {
     
@@ -25,10 +32,76 @@ class ReviewModel {
      */
     private final HashMap<String, Review> rModel = new HashMap<String, Review>();
     
+    /**
+     * Secondary index: ReviewId -> prefix trie over the paths of all comments of this review
+     */
+    private final HashMap<String, CommentPathIndex> pathIndex = new HashMap<String, CommentPathIndex>();
+    
+    /**
+     * Secondary index: Status -> Comments with this status
+     */
+    private final HashMap<Integer, Set<Comment>> statusIndex = new HashMap<Integer, Set<Comment>>();
+    
+    /**
+     * Secondary index: Recipient -> Comments addressed to this recipient
+     */
+    private final HashMap<String, Set<Comment>> recipientIndex = new HashMap<String, Set<Comment>>();
+    
+    /**
+     * Secondary index: Author -> Comments of this author (over all loaded reviews)
+     */
+    private final HashMap<String, Set<Comment>> authorIndex = new HashMap<String, Set<Comment>>();
+    
+    /**
+     * Cached keys of all comments, kept next to the live comments (not a snapshot). The values also provide the keys under which each comment is
+     * currently stored in the secondary indices, which are needed in order to remove a comment from the indices after its attributes have been
+     * changed. (Identity based, as XmlObjects compare by value)
+     */
+    private final IdentityHashMap<Comment, CommentValue> values = new IdentityHashMap<Comment, CommentValue>();
+    
+    /**
+     * Full-text index over the text fields of all comments
+     */
+    private final CommentTextIndex textIndex = new CommentTextIndex();
+    
+    /**
+     * Lock guarding all data of this model. Readers (e.g. views, exports) may access the model concurrently, modifications are exclusive.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Aggregated counters of the comments, guarded by {@link #lock}
+     */
+    private final ReviewStatistics statistics = new ReviewStatistics(lock.readLock());
+    
+    /**
+     * Version of the comments of this model, increased by every change (guarded by the write lock)
+     */
+    private long version = 0;
+    
+    /**
+     * Snapshot of all comments of the current version or <i>null</i> if it has not been taken yet
+     */
+    private volatile CommentSnapshot snapshot;
+    
     //////////////////
     // Constructors //
     //////////////////
     
+    /////////////
+    // locking //
+    /////////////
+    
+    /**
+     * Returns the lock which has to be held for modifying this model. Has to be acquired by callers which need several modifications (or reads
+     * followed by modifications) to appear atomically. Must not be held while waiting for the workspace (e.g. while creating or refreshing
+     * resources), as resource listeners modify the model as well.
+     * @return the write lock of this model
+     */
+    Lock writeLock() {
+        return lock.writeLock();
+    }
+    
     /////////////
     // private //
     /////////////
@@ -42,6 +115,119 @@ class ReviewModel {
         return new Integer(strIntegerId);
     }
     
+    /**
+     * Returns the instance to be used as key for putting the given string into the given map. A map keeps its existing key instance, so only new
+     * keys are taken from the {@link SymbolTable}.
+     * @param map map the key will be put into
+     * @param key key
+     * @return the key itself, if it is already contained in the map, its canonical instance otherwise
+     */
+    private static String keyFor(Map<String, ?> map, String key) {
+        return map.containsKey(key) ? key : SymbolTable.intern(key);
+    }
+    
+    /**
+     * Captures the current value of the given comment and adds the comment to all secondary indices
+     * @param comment Comment to be indexed
+     */
+    private void index(Comment comment) {
+        unindex(comment);
+        changed();
+        CommentValue value = new CommentValue(comment);
+        values.put(comment, value);
+        
+        CommentPathIndex trie = pathIndex.get(value.getReviewId());
+        if (trie == null) {
+            trie = new CommentPathIndex();
+            pathIndex.put(value.getReviewId(), trie);
+        }
+        trie.add(value.getPath(), comment);
+        
+        addToIndex(statusIndex, value.getStatus(), comment);
+        addToIndex(recipientIndex, value.getRecipient(), comment);
+        addToIndex(authorIndex, value.getAuthor(), comment);
+        textIndex.add(comment, value);
+        statistics.add(value);
+    }
+    
+    /**
+     * Removes the given comment from all secondary indices using the keys of its last value
+     * @param comment Comment to be removed from the indices
+     */
+    private void unindex(Comment comment) {
+        CommentValue value = values.remove(comment);
+        if (value == null) { return; }
+        changed();
+        
+        CommentPathIndex trie = pathIndex.get(value.getReviewId());
+        if (trie != null) {
+            trie.remove(value.getPath(), comment);
+            if (trie.isEmpty()) {
+                pathIndex.remove(value.getReviewId());
+            }
+        }
+        
+        removeFromIndex(statusIndex, value.getStatus(), comment);
+        removeFromIndex(recipientIndex, value.getRecipient(), comment);
+        removeFromIndex(authorIndex, value.getAuthor(), comment);
+        textIndex.remove(comment);
+        statistics.remove(value);
+    }
+    
+    /**
+     * Starts a new version of the comments. The snapshot of the previous version will not be handed out anymore. Has to be called with the write
+     * lock held whenever comments are added, removed or changed.
+     */
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+    
+    /**
+     * Adds the comment to the bucket of the given key
+     * @param <K> key type
+     * @param index index to be modified
+     * @param key key of the bucket
+     * @param comment Comment to be added
+     */
+    private <K> void addToIndex(HashMap<K, Set<Comment>> index, K key, Comment comment) {
+        Set<Comment> bucket = index.get(key);
+        if (bucket == null) {
+            bucket = Collections.newSetFromMap(new IdentityHashMap<Comment, Boolean>());
+            index.put(key, bucket);
+        }
+        bucket.add(comment);
+    }
+    
+    /**
+     * Removes the comment from the bucket of the given key. Empty buckets will be removed.
+     * @param <K> key type
+     * @param index index to be modified
+     * @param key key of the bucket
+     * @param comment Comment to be removed
+     */
+    private <K> void removeFromIndex(HashMap<K, Set<Comment>> index, K key, Comment comment) {
+        Set<Comment> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(comment);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Returns a copy of the bucket stored for the given key
+     * @param <K> key type
+     * @param index index to be queried
+     * @param key key of the bucket
+     * @return a copy of the bucket or an empty list if no such bucket exists
+     */
+    private <K> ArrayList<Comment> queryIndex(HashMap<K, Set<Comment>> index, K key) {
+        Set<Comment> bucket = index.get(key);
+        return bucket == null ? new ArrayList<Comment>() : new ArrayList<Comment>(bucket);
+    }
+    
     ////////////
     // Setter //
     ////////////
@@ -51,32 +237,59 @@ class ReviewModel {
      * @param comment Comment to be added
      */
     protected void addComment(Comment comment) {
-        String key1 = comment.getReviewID();
-        String key2 = comment.getAuthor();
-        int key3 = this.parseCommentId(comment.getId());
-        
-        if (commentDB.containsKey(key1)) // review already exists
-        {
-            HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(key1);
-            if (authorMap.containsKey(key2)) // author already exists
+        lock.writeLock().lock();
+        try {
+            // only keys which are added to the maps are interned
+            String key1 = comment.getReviewID();
+            String key2 = comment.getAuthor();
+            int key3 = this.parseCommentId(comment.getId());
+            
+            if (commentDB.containsKey(key1)) // review already exists
             {
-                authorMap.get(key2).put(key3, comment);
-            } else // author does not exist
+                HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(key1);
+                if (authorMap.containsKey(key2)) // author already exists
+                {
+                    Comment previous = authorMap.get(key2).put(key3, comment);
+                    if (previous != null) {
+                        unindex(previous);
+                    }
+                } else // author does not exist
+                {
+                    TreeMap<Integer, Comment> tmpTreeMap = new TreeMap<Integer, Comment>();
+                    tmpTreeMap.put(key3, comment);
+                
+                    authorMap.put(SymbolTable.intern(key2), tmpTreeMap);
+                }
+            } else // review did not exist
             {
                 TreeMap<Integer, Comment> tmpTreeMap = new TreeMap<Integer, Comment>();
                 tmpTreeMap.put(key3, comment);
-                
-                authorMap.put(key2, tmpTreeMap);
-            }
-        } else // review did not exist
-        {
-            TreeMap<Integer, Comment> tmpTreeMap = new TreeMap<Integer, Comment>();
-            tmpTreeMap.put(key3, comment);
             
-            HashMap<String, TreeMap<Integer, Comment>> tmpAuthorMap = new HashMap<String, TreeMap<Integer, Comment>>();
-            tmpAuthorMap.put(key2, tmpTreeMap);
+                HashMap<String, TreeMap<Integer, Comment>> tmpAuthorMap = new HashMap<String, TreeMap<Integer, Comment>>();
+                tmpAuthorMap.put(SymbolTable.intern(key2), tmpTreeMap);
+            
+                commentDB.put(SymbolTable.intern(key1), tmpAuthorMap);
+            }
             
-            commentDB.put(key1, tmpAuthorMap);
+            index(comment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Updates the secondary indices for the given comment. Has to be called whenever the path, status, recipient or author of a comment, which is
+     * already stored in this model, has been changed.
+     * @param comment Comment which has been changed
+     */
+    protected void updateComment(Comment comment) {
+        lock.writeLock().lock();
+        try {
+            if (values.containsKey(comment)) {
+                index(comment);
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     
@@ -85,21 +298,55 @@ class ReviewModel {
      * @param reviewId
      * @param author
      * @param commentId
-     * @return <i>true</i> if the deleted comment was the last comment for this review and author, <i>false</i> otherwise
+     * @return <i>true</i> if the deleted comment was the last comment for this review and author, <i>false</i> otherwise (also if the review or
+     *         author is not contained in the database)
      */
     protected boolean removeComment(String reviewId, String author, String commentId) {
-        boolean result = false;
-        TreeMap<Integer, Comment> tmpMap = commentDB.get(reviewId).get(author);
-        
-        // Remove comment
-        tmpMap.remove(parseCommentId(commentId));
-        
-        // If Map is empty, remove the author-Map
-        if (tmpMap.isEmpty()) {
-            commentDB.get(reviewId).remove(author);
-            result = true;
+        lock.writeLock().lock();
+        try {
+            boolean result = false;
+            HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(reviewId);
+            if (authorMap == null) { return false; }
+            TreeMap<Integer, Comment> tmpMap = authorMap.get(author);
+            if (tmpMap == null) { return false; }
+            
+            // Remove comment
+            Comment removed = tmpMap.remove(parseCommentId(commentId));
+            if (removed != null) {
+                unindex(removed);
+            }
+            
+            // If Map is empty, remove the author-Map
+            if (tmpMap.isEmpty()) {
+                authorMap.remove(author);
+                result = true;
+            }
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes exactly the given comment instance from the database. If the database stores another comment instance with the same keys (or no
+     * comment at all), nothing will be changed.
+     * @param comment Comment to be removed
+     */
+    protected void removeComment(Comment comment) {
+        lock.writeLock().lock();
+        try {
+            HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(comment.getReviewID());
+            if (authorMap == null) { return; }
+            TreeMap<Integer, Comment> tmpMap = authorMap.get(comment.getAuthor());
+            if (tmpMap == null) { return; }
+            
+            Integer key = parseCommentId(comment.getId());
+            if (tmpMap.get(key) == comment) {
+                removeComment(comment.getReviewID(), comment.getAuthor(), comment.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
-        return result;
     }
     
     /**
@@ -107,7 +354,13 @@ class ReviewModel {
      * @param reviewId
      */
     protected void createModelEntry(String reviewId) {
-        this.commentDB.put(reviewId, new HashMap<String, TreeMap<Integer, Comment>>());
+        lock.writeLock().lock();
+        try {
+            this.commentDB.put(keyFor(this.commentDB, reviewId), new HashMap<String, TreeMap<Integer, Comment>>());
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     /**
@@ -116,12 +369,30 @@ class ReviewModel {
      * @return <i>false</i> if a review with this name does already exist (review will not be added then). <i>true</i> otherwise.
      */
     protected boolean addReview(Review r) {
-        boolean result = false;
-        if (!containsCaseInsensitive(rModel.keySet(), r.getId())) {
-            this.rModel.put(r.getId(), r);
-            result = true;
+        lock.writeLock().lock();
+        try {
+            boolean result = false;
+            if (!containsCaseInsensitive(rModel.keySet(), r.getId())) {
+                this.rModel.put(SymbolTable.intern(r.getId()), r);
+                result = true;
+            }
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Replaces the review with the same id by the given review. If no such review exists, the given review will be added.
+     * @param r
+     */
+    protected void updateReview(Review r) {
+        lock.writeLock().lock();
+        try {
+            this.rModel.put(keyFor(this.rModel, r.getId()), r);
+        } finally {
+            lock.writeLock().unlock();
         }
-        return result;
     }
     
     /**
@@ -130,12 +401,24 @@ class ReviewModel {
      * @param completely if true, the review will be removed completely, if false, it will only be deleted from
      */
     protected void removeReview(String reviewId, boolean completely) {
-        // Remove the review from the commentDB
-        this.commentDB.remove(reviewId);
-        
-        if (completely) {
-            // Remove the review itself
-            this.rModel.remove(reviewId);
+        lock.writeLock().lock();
+        try {
+            // Remove the review from the commentDB
+            HashMap<String, TreeMap<Integer, Comment>> authorMap = this.commentDB.remove(reviewId);
+            if (authorMap != null) {
+                for (TreeMap<Integer, Comment> comments : authorMap.values()) {
+                    for (Comment c : comments.values()) {
+                        unindex(c);
+                    }
+                }
+            }
+            
+            if (completely) {
+                // Remove the review itself
+                this.rModel.remove(reviewId);
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     
@@ -143,9 +426,22 @@ class ReviewModel {
      * Clears the model
      */
     protected void clearModel() {
-        PluginLogger.log(this.getClass().toString(), "clearModel", "Review and Comment model cleared");
-        commentDB.clear();
-        rModel.clear();
+        lock.writeLock().lock();
+        try {
+            PluginLogger.log(this.getClass().toString(), "clearModel", "Review and Comment model cleared");
+            commentDB.clear();
+            rModel.clear();
+            pathIndex.clear();
+            statusIndex.clear();
+            recipientIndex.clear();
+            authorIndex.clear();
+            values.clear();
+            textIndex.clear();
+            statistics.clear();
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     ////////////
@@ -158,15 +454,20 @@ class ReviewModel {
      * @return next free id
      */
     protected Integer getNextCommentIdFor(String reviewId, String author) {
-        Integer result = 0;
-        // If an entry does already exist, give back the highest key+1
-        if (commentDB.containsKey(reviewId)) {
-            if (commentDB.get(reviewId).containsKey(author)) {
-                result = commentDB.get(reviewId).get(author).lastKey() + 1;
-            }
+        lock.readLock().lock();
+        try {
+            Integer result = 0;
+            // If an entry does already exist, give back the highest key+1
+            if (commentDB.containsKey(reviewId)) {
+                if (commentDB.get(reviewId).containsKey(author)) {
+                    result = commentDB.get(reviewId).get(author).lastKey() + 1;
+                }
             
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
         }
-        return result;
     }
     
     /**
@@ -174,10 +475,19 @@ class ReviewModel {
      * @param reviewId
      * @param author
      * @param commentId
-     * @return Comment specified by the given combination
+     * @return Comment specified by the given combination or <i>null</i> if no such comment is contained in the database
      */
     protected Comment getComment(String reviewId, String author, String commentId) {
-        return commentDB.get(reviewId).get(author).get(parseCommentId(commentId));
+        lock.readLock().lock();
+        try {
+            HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(reviewId);
+            if (authorMap == null) { return null; }
+            TreeMap<Integer, Comment> tmpMap = authorMap.get(author);
+            if (tmpMap == null) { return null; }
+            return tmpMap.get(parseCommentId(commentId));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
@@ -187,15 +497,60 @@ class ReviewModel {
      * @return All Comments as Collection or an empty Collection, if no Comments exist
      */
     protected ArrayList<Comment> getComments(String reviewId, String path) {
-        ArrayList<Comment> result = new ArrayList<Comment>();
-        
-        ArrayList<Comment> allForReviewId = getComments(reviewId);
-        for (Comment c : allForReviewId) {
-            if (ReviewAccess.computePath(c).startsWith(path)) {
-                result.add(c);
+        lock.readLock().lock();
+        try {
+            ArrayList<Comment> result = new ArrayList<Comment>();
+            
+            CommentPathIndex trie = pathIndex.get(reviewId);
+            if (trie != null) {
+                trie.collect(path, result);
             }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns all loaded Comments with the given status
+     * @param status
+     * @return All Comments as Collection or an empty Collection, if no Comments exist
+     */
+    protected ArrayList<Comment> getCommentsByStatus(int status) {
+        lock.readLock().lock();
+        try {
+            return queryIndex(statusIndex, status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns all loaded Comments addressed to the given recipient
+     * @param recipient
+     * @return All Comments as Collection or an empty Collection, if no Comments exist
+     */
+    protected ArrayList<Comment> getCommentsByRecipient(String recipient) {
+        lock.readLock().lock();
+        try {
+            return queryIndex(recipientIndex, recipient);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns all loaded Comments of the given author (over all loaded reviews)
+     * @param author
+     * @return All Comments as Collection or an empty Collection, if no Comments exist
+     */
+    protected ArrayList<Comment> getCommentsByAuthor(String author) {
+        lock.readLock().lock();
+        try {
+            return queryIndex(authorIndex, author);
+        } finally {
+            lock.readLock().unlock();
         }
-        return result;
     }
     
     /**
@@ -204,15 +559,79 @@ class ReviewModel {
      * @return Returns all Comments as Collection or an empty Collection, if no Comments exist
      */
     protected ArrayList<Comment> getComments(String reviewId) {
-        ArrayList<Comment> result = new ArrayList<Comment>();
-        
-        HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(reviewId);
-        if (authorMap != null) {
-            for (TreeMap<Integer, Comment> x : authorMap.values()) {
-                result.addAll(x.values());
+        lock.readLock().lock();
+        try {
+            ArrayList<Comment> result = new ArrayList<Comment>();
+            
+            HashMap<String, TreeMap<Integer, Comment>> authorMap = commentDB.get(reviewId);
+            if (authorMap != null) {
+                for (TreeMap<Integer, Comment> x : authorMap.values()) {
+                    result.addAll(x.values());
+                }
             }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the strings which are held by the cached keys of all loaded comments (review id, author, recipient and path of every comment,
+     * including duplicates). Used for computing the savings of the {@link SymbolTable} from live references.
+     * @return the strings held by the cached keys of all loaded comments
+     */
+    protected ArrayList<String> getSymbolReferences() {
+        lock.readLock().lock();
+        try {
+            ArrayList<String> result = new ArrayList<String>(values.size() * 4);
+            for (CommentValue value : values.values()) {
+                result.add(value.getReviewId());
+                result.add(value.getAuthor());
+                result.add(value.getRecipient());
+                result.add(value.getPath());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the cached keys of the given comment as captured when it was added or re-indexed last
+     * @param comment
+     * @return the value of the comment (freshly captured if the comment is not part of the model)
+     */
+    protected CommentValue getValue(Comment comment) {
+        lock.readLock().lock();
+        try {
+            CommentValue value = values.get(comment);
+            return value == null ? new CommentValue(comment) : value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Searches the full-text index
+     * @param query token substring, phrase or exact phrase (see {@link CommentTextIndex})
+     * @param fields fields to be searched
+     * @return the matching comments (identity based) or <i>null</i> if the query does not contain any token
+     */
+    protected Set<Comment> searchComments(String query, Collection<CommentTextIndex.Field> fields) {
+        lock.readLock().lock();
+        try {
+            return textIndex.search(query, fields);
+        } finally {
+            lock.readLock().unlock();
         }
-        return result;
+    }
+    
+    /**
+     * Returns the statistics of the comments, which are kept up to date on every modification
+     * @return statistics of the comments
+     */
+    protected ReviewStatistics getStatistics() {
+        return statistics;
     }
     
     /**
@@ -220,12 +639,39 @@ class ReviewModel {
      * @return All comments or an empty Collection if no comments exist
      */
     protected ArrayList<Comment> getAllComments() {
-        ArrayList<Comment> result = new ArrayList<Comment>();
-        
-        for (String currReviewId : commentDB.keySet()) {
-            result.addAll(this.getComments(currReviewId));
+        lock.readLock().lock();
+        try {
+            ArrayList<Comment> result = new ArrayList<Comment>();
+            
+            for (String currReviewId : commentDB.keySet()) {
+                result.addAll(this.getComments(currReviewId));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the snapshot of all comments of the current version. The snapshot is taken on the first request after a change, all further
+     * requests return the same instance until the next change.
+     * @return snapshot of all comments
+     */
+    protected CommentSnapshot getSnapshot() {
+        CommentSnapshot result = snapshot;
+        if (result != null) { return result; }
+        lock.readLock().lock();
+        try {
+            // several readers may hold the read lock, so only one of them should take the snapshot
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = new CommentSnapshot(version, Collections.unmodifiableList(getAllComments()));
+                }
+                return snapshot;
+            }
+        } finally {
+            lock.readLock().unlock();
         }
-        return result;
     }
     
     /**
@@ -235,13 +681,18 @@ class ReviewModel {
      * @return <i>true</i> if the model contains such a reviewId, <i>false</i> otherwise.
      */
     protected boolean containsReview(String reviewId, boolean checkLoaded) {
-        boolean result = containsCaseInsensitive(this.rModel.keySet(), reviewId);
-        
-        if (checkLoaded) {
-            result = result && containsCaseInsensitive(this.commentDB.keySet(), reviewId);
+        lock.readLock().lock();
+        try {
+            boolean result = containsCaseInsensitive(this.rModel.keySet(), reviewId);
+            
+            if (checkLoaded) {
+                result = result && containsCaseInsensitive(this.commentDB.keySet(), reviewId);
+            }
+            
+            return result;
+        } finally {
+            lock.readLock().unlock();
         }
-        
-        return result;
     }
     
     /**
@@ -249,9 +700,14 @@ class ReviewModel {
      * @return All Reviews stored in this model
      */
     protected ArrayList<Review> getAllReviews() {
-        ArrayList<Review> result = new ArrayList<Review>();
-        result.addAll(rModel.values());
-        return result;
+        lock.readLock().lock();
+        try {
+            ArrayList<Review> result = new ArrayList<Review>();
+            result.addAll(rModel.values());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
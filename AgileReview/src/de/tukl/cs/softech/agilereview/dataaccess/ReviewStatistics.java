@@ -0,0 +1,248 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.HashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Aggregated numbers of the comments of all loaded reviews (comments per status, priority and author as well as the number of replies). The
+ * counters are maintained incrementally by the {@link ReviewModel} whenever a comment is added, changed or removed, so all queries are answered
+ * in constant time without iterating the comments of a review. Reviews whose comments are not loaded have no comments in terms of these
+ * statistics, their stored comments can be counted by {@link ReviewAccess#computeStatistics(String)}.
+ */
+public final class ReviewStatistics {
+
+    /**
+     * Counters of one review
+     */
+    private static class Counters {
+        /**
+         * Number of comments
+         */
+        private int comments;
+        /**
+         * Number of replies of all comments
+         */
+        private int replies;
+        /**
+         * Status -> number of comments with this status
+         */
+        private final HashMap<Integer, int[]> byStatus = new HashMap<Integer, int[]>();
+        /**
+         * Priority -> number of comments with this priority
+         */
+        private final HashMap<Integer, int[]> byPriority = new HashMap<Integer, int[]>();
+        /**
+         * Author -> number of comments of this author
+         */
+        private final HashMap<String, int[]> byAuthor = new HashMap<String, int[]>();
+    }
+
+    /**
+     * ReviewId -> counters of the review (only for reviews with at least one loaded comment)
+     */
+    private final HashMap<String, Counters> counters = new HashMap<String, Counters>();
+
+    /**
+     * Read lock of the model guarding the counters
+     */
+    private final Lock readLock;
+
+    /**
+     * Creates empty statistics
+     * @param readLock read lock of the model, which holds its write lock while modifying the statistics
+     */
+    ReviewStatistics(Lock readLock) {
+        this.readLock = readLock;
+    }
+
+    /**
+     * Adds the given delta to the counter of the given key
+     * @param <K> key type
+     * @param map counters by key
+     * @param key key of the counter
+     * @param delta value to be added
+     */
+    private static <K> void count(HashMap<K, int[]> map, K key, int delta) {
+        int[] counter = map.get(key);
+        if (counter == null) {
+            counter = new int[1];
+            map.put(key, counter);
+        }
+        counter[0] += delta;
+        if (counter[0] == 0) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Returns the counter of the given key
+     * @param <K> key type
+     * @param map counters by key
+     * @param key key of the counter
+     * @return the value of the counter or 0 if there is no such counter
+     */
+    private static <K> int get(HashMap<K, int[]> map, K key) {
+        int[] counter = map.get(key);
+        return counter == null ? 0 : counter[0];
+    }
+
+    /**
+     * Adds or removes the given comment to or from the counters of its review. Has to be called with the write lock of the model held.
+     * @param value value of the comment
+     * @param delta 1 if the comment has been added, -1 if it has been removed
+     */
+    private void count(CommentValue value, int delta) {
+        count(value.getReviewId(), value.getAuthor(), value.getStatus(), value.getPriority(), value.getReplyCount(), delta);
+    }
+
+    /**
+     * Adds or removes a comment with the given values to or from the counters of its review. Has to be called with the write lock of the model
+     * held.
+     * @param reviewId review of the comment
+     * @param author author of the comment
+     * @param status status of the comment
+     * @param priority priority of the comment
+     * @param replies number of replies of the comment
+     * @param delta 1 if the comment has been added, -1 if it has been removed
+     */
+    private void count(String reviewId, String author, int status, int priority, int replies, int delta) {
+        Counters c = counters.get(reviewId);
+        if (c == null) {
+            c = new Counters();
+            counters.put(reviewId, c);
+        }
+        c.comments += delta;
+        c.replies += delta * replies;
+        count(c.byStatus, status, delta);
+        count(c.byPriority, priority, delta);
+        count(c.byAuthor, author, delta);
+        if (c.comments == 0) {
+            counters.remove(reviewId);
+        }
+    }
+
+    /**
+     * Counts the given comment. Has to be called with the write lock of the model held.
+     * @param value value of the added comment
+     */
+    void add(CommentValue value) {
+        count(value, 1);
+    }
+
+    /**
+     * Counts the given stored comment. Only used for statistics which are computed once from the stored comments and are not maintained by a
+     * model.
+     * @param comment the stored comment
+     */
+    void add(StreamingCommentReader.StreamedComment comment) {
+        count(comment.getReviewId(), comment.getAuthor(), comment.getStatus(), comment.getPriority(), comment.getReplies().size(), 1);
+    }
+
+    /**
+     * Stops counting the given comment. Has to be called with the write lock of the model held.
+     * @param value value of the comment as it was added
+     */
+    void remove(CommentValue value) {
+        count(value, -1);
+    }
+
+    /**
+     * Resets all counters. Has to be called with the write lock of the model held.
+     */
+    void clear() {
+        counters.clear();
+    }
+
+    /**
+     * Returns the number of comments of the given review
+     * @param reviewId
+     * @return number of loaded comments of the review
+     */
+    public int getCommentCount(String reviewId) {
+        readLock.lock();
+        try {
+            Counters c = counters.get(reviewId);
+            return c == null ? 0 : c.comments;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of comments of the given review with the given status
+     * @param reviewId
+     * @param status id of the comment status
+     * @return number of loaded comments of the review with this status
+     */
+    public int getCommentCountByStatus(String reviewId, int status) {
+        readLock.lock();
+        try {
+            Counters c = counters.get(reviewId);
+            return c == null ? 0 : get(c.byStatus, status);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of comments of the given review with the given priority
+     * @param reviewId
+     * @param priority id of the comment priority
+     * @return number of loaded comments of the review with this priority
+     */
+    public int getCommentCountByPriority(String reviewId, int priority) {
+        readLock.lock();
+        try {
+            Counters c = counters.get(reviewId);
+            return c == null ? 0 : get(c.byPriority, priority);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of comments of the given author in the given review
+     * @param reviewId
+     * @param author
+     * @return number of loaded comments of the author in the review
+     */
+    public int getCommentCountByAuthor(String reviewId, String author) {
+        readLock.lock();
+        try {
+            Counters c = counters.get(reviewId);
+            return c == null ? 0 : get(c.byAuthor, author);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of authors of the given review
+     * @param reviewId
+     * @return number of authors with at least one loaded comment in the review
+     */
+    public int getAuthorCount(String reviewId) {
+        readLock.lock();
+        try {
+            Counters c = counters.get(reviewId);
+            return c == null ? 0 : c.byAuthor.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of replies of all comments of the given review
+     * @param reviewId
+     * @return number of replies of the loaded comments of the review
+     */
+    public int getReplyCount(String reviewId) {
+        readLock.lock();
+        try {
+            Counters c = counters.get(reviewId);
+            return c == null ? 0 : c.replies;
+        } finally {
+            readLock.unlock();
+        }
+    }
+}
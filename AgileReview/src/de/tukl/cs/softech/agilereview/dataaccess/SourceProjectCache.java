@@ -0,0 +1,165 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * LRU cache of the fully loaded models of the recently used AgileReview Source Projects. When the source project is switched, the models of the
+ * previous project are parked in this cache, so that switching back only swaps the models instead of parsing all files again. Parked models are
+ * validated by the modification stamps of all files of their project (including the database of the {@link EmbeddedCommentStorage}): if any
+ * file has been added, removed or changed in the meantime, the parked models are dropped and the project is loaded from scratch.
+ */
+class SourceProjectCache {
+
+    /**
+     * Maximal number of parked source projects
+     */
+    static final int CAPACITY = 3;
+
+    /**
+     * Models of one parked source project
+     */
+    static class Entry {
+        /**
+         * Comment model
+         */
+        final ReviewModel rModel;
+        /**
+         * Review file model
+         */
+        final ReviewFileModel rFileModel;
+        /**
+         * Path index of the comments documents
+         */
+        final XmlPathIndex pathIndex;
+        /**
+         * Reviews whose comments are loaded in the comment model
+         */
+        final String[] openReviews;
+        /**
+         * Files of the project mapped to their modification stamps at the time of parking
+         */
+        private HashMap<IResource, Long> stamps;
+
+        /**
+         * Creates a new entry
+         * @param rModel comment model
+         * @param rFileModel review file model
+         * @param pathIndex path index of the comments documents
+         * @param openReviews reviews whose comments are loaded in the comment model
+         */
+        Entry(ReviewModel rModel, ReviewFileModel rFileModel, XmlPathIndex pathIndex, String[] openReviews) {
+            this.rModel = rModel;
+            this.rFileModel = rFileModel;
+            this.pathIndex = pathIndex;
+            this.openReviews = openReviews;
+        }
+    }
+
+    /**
+     * Project name -> parked models (in access order)
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(CAPACITY + 1, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= CAPACITY) { return false; }
+            PluginLogger.log(SourceProjectCache.class.toString(), "removeEldestEntry", "Models of source project " + eldest.getKey() + " evicted");
+            // the path cache still references the documents of the evicted models
+            ReviewAccess.invalidateAllPaths();
+            return true;
+        }
+    };
+
+    /**
+     * Parks the given models of the given project. Previously parked models of the same project are replaced.
+     * @param project source project the models belong to
+     * @param entry models of the project (all pending saves have to be written before)
+     */
+    synchronized void park(IProject project, Entry entry) {
+        try {
+            entry.stamps = collectStamps(project);
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "park", "CoreException while collecting the files of " + project.getName()
+                    + ", its models will not be cached", e);
+            entries.remove(project.getName());
+            return;
+        }
+        entries.put(project.getName(), entry);
+        PluginLogger.log(this.getClass().toString(), "park", "Models of source project " + project.getName() + " parked (" + entries.size() + "/"
+                + CAPACITY + ")");
+    }
+
+    /**
+     * Removes the parked models of the given project from the cache and returns them, if no file of the project has been changed since parking
+     * @param project source project to be loaded
+     * @return the parked models or <i>null</i> if no valid models have been parked for this project
+     */
+    synchronized Entry take(IProject project) {
+        Entry entry = entries.remove(project.getName());
+        if (entry == null) { return null; }
+        try {
+            if (entry.stamps.equals(collectStamps(project))) {
+                PluginLogger.log(this.getClass().toString(), "take", "Parked models of source project " + project.getName() + " restored");
+                return entry;
+            }
+            PluginLogger.log(this.getClass().toString(), "take", "Parked models of source project " + project.getName()
+                    + " are outdated and will be dropped");
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "take", "CoreException while collecting the files of " + project.getName(), e);
+        }
+        ReviewAccess.invalidateAllPaths();
+        return null;
+    }
+
+    /**
+     * Drops all parked models
+     */
+    synchronized void clear() {
+        if (!entries.isEmpty()) {
+            entries.clear();
+            ReviewAccess.invalidateAllPaths();
+        }
+    }
+
+    /**
+     * Collects the modification stamps of all files within the folders of the given project (i.e. review and author files) and of the database
+     * of the {@link EmbeddedCommentStorage}
+     * @param project source project
+     * @return files mapped to their modification stamps
+     * @throws CoreException if the resources of the project could not be visited
+     */
+    private static HashMap<IResource, Long> collectStamps(IProject project) throws CoreException {
+        final HashMap<IResource, Long> result = new HashMap<IResource, Long>();
+        project.accept(new IResourceProxyVisitor() {
+            @Override
+            public boolean visit(IResourceProxy proxy) {
+                if (proxy.getType() == IResource.FILE) {
+                    IResource file = proxy.requestResource();
+                    // files directly in the project (e.g. .project, which changes with the active nature) do not belong to any review
+                    if (file.getParent().getType() != IResource.PROJECT) {
+                        result.put(file, proxy.getModificationStamp());
+                    }
+                }
+                return true;
+            }
+        }, IResource.NONE);
+        // the database is written without refreshing the workspace immediately, so the file system is asked instead of the workspace
+        File store = project.getLocation() == null ? null : project.getLocation().append(EmbeddedCommentStorage.STORE_NAME).toFile();
+        if (store != null && store.exists()) {
+            result.put(project.getFile(EmbeddedCommentStorage.STORE_NAME), store.lastModified() * 31 + store.length());
+        }
+        return result;
+    }
+}
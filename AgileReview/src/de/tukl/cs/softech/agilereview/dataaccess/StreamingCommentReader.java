@@ -0,0 +1,352 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Read-only streaming reader for author files. The comments, their paths and replies are reported in one forward pass over the file without
+ * building an XmlBeans store and without evaluating any XPath expression. Should be used by consumers which only need to read the comments of a
+ * file (e.g. scans or statistics) and do not want to modify them.
+ */
+public class StreamingCommentReader {
+
+    /**
+     * Namespace of the AgileReview documents
+     */
+    private static final String NAMESPACE = "http://de.tukl.softech.agileReview";
+
+    /**
+     * Separator of the path segments (same as used by the {@link ReviewAccess})
+     */
+    private static final String SEPARATOR = System.getProperty("file.separator");
+
+    /**
+     * Shared factory for the stream readers
+     */
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+
+    /**
+     * Visitor which will be informed about every comment of the read file
+     */
+    public interface CommentVisitor {
+        /**
+         * Called for every comment in document order
+         * @param comment the comment which has been read
+         */
+        void visitComment(StreamedComment comment);
+    }
+
+    /**
+     * Read-only representation of a reply
+     */
+    public static class StreamedReply {
+        /**
+         * Author of the reply
+         */
+        private final String author;
+        /**
+         * Creation date of the reply (lexical representation)
+         */
+        private final String creationDate;
+        /**
+         * Text of the reply
+         */
+        private final String text;
+
+        /**
+         * Creates a new reply
+         * @param author author of the reply
+         * @param creationDate creation date of the reply
+         * @param text text of the reply
+         */
+        private StreamedReply(String author, String creationDate, String text) {
+            this.author = author;
+            this.creationDate = creationDate;
+            this.text = text;
+        }
+
+        /**
+         * @return the author of the reply
+         */
+        public String getAuthor() {
+            return author;
+        }
+
+        /**
+         * @return the creation date of the reply (lexical representation)
+         */
+        public String getCreationDate() {
+            return creationDate;
+        }
+
+        /**
+         * @return the text of the reply
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * Read-only representation of a comment
+     */
+    public static class StreamedComment {
+        /**
+         * Path of the commented file
+         */
+        private String path;
+        /**
+         * Id of the comment
+         */
+        private String id;
+        /**
+         * Id of the review of the comment
+         */
+        private String reviewId;
+        /**
+         * Author of the comment
+         */
+        private String author;
+        /**
+         * Recipient of the comment
+         */
+        private String recipient;
+        /**
+         * Status of the comment
+         */
+        private int status;
+        /**
+         * Priority of the comment
+         */
+        private int priority;
+        /**
+         * Revision of the comment
+         */
+        private int revision;
+        /**
+         * Creation date of the comment (lexical representation)
+         */
+        private String creationDate;
+        /**
+         * Last modification date of the comment (lexical representation)
+         */
+        private String lastModified;
+        /**
+         * Text of the comment
+         */
+        private String text = "";
+        /**
+         * Replies of the comment
+         */
+        private final List<StreamedReply> replies = new ArrayList<StreamedReply>();
+
+        /**
+         * @return the path of the commented file
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the id of the comment
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the id of the review of the comment
+         */
+        public String getReviewId() {
+            return reviewId;
+        }
+
+        /**
+         * @return the author of the comment
+         */
+        public String getAuthor() {
+            return author;
+        }
+
+        /**
+         * @return the recipient of the comment (may be <i>null</i>)
+         */
+        public String getRecipient() {
+            return recipient;
+        }
+
+        /**
+         * @return the status of the comment
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the priority of the comment
+         */
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return the revision of the comment
+         */
+        public int getRevision() {
+            return revision;
+        }
+
+        /**
+         * @return the creation date of the comment (lexical representation)
+         */
+        public String getCreationDate() {
+            return creationDate;
+        }
+
+        /**
+         * @return the last modification date of the comment (lexical representation)
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return the text of the comment
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return the replies of the comment in document order
+         */
+        public List<StreamedReply> getReplies() {
+            return Collections.unmodifiableList(replies);
+        }
+    }
+
+    /**
+     * Reads all comments of the given author file contents. The stream will not be closed.
+     * @param stream contents of an author file
+     * @param visitor visitor to be informed about every comment
+     * @return number of read comments
+     * @throws XMLStreamException if the stream is not well-formed
+     */
+    public static int read(InputStream stream, CommentVisitor visitor) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(stream);
+        try {
+            return read(reader, null, visitor);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads all comments of the given stream, which contains comments without the surrounding project, folder and file elements (e.g. a single
+     * comment document). The stream will not be closed.
+     * @param stream xml containing comment elements
+     * @param path path of the commented file of all comments in the stream
+     * @param visitor visitor to be informed about every comment
+     * @return number of read comments
+     * @throws XMLStreamException if the stream is not well-formed
+     */
+    static int read(InputStream stream, String path, CommentVisitor visitor) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(stream);
+        try {
+            return read(reader, path, visitor);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads all comments from the given reader
+     * @param reader reader positioned in front of the root element
+     * @param path path of the comments outside of any file element or <i>null</i>
+     * @param visitor visitor to be informed about every comment
+     * @return number of read comments
+     * @throws XMLStreamException if the stream is not well-formed
+     */
+    private static int read(XMLStreamReader reader, String path, CommentVisitor visitor) throws XMLStreamException {
+        int count = 0;
+        // paths of the currently open project, folder and file elements
+        ArrayList<String> pathStack = new ArrayList<String>();
+        if (path != null) {
+            pathStack.add(SymbolTable.lookup(path));
+        }
+        StreamedComment comment = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (!NAMESPACE.equals(reader.getNamespaceURI())) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (name.equals("project") || name.equals("folder") || name.equals("file")) {
+                    String segment = reader.getAttributeValue(null, "name");
+                    String parent = pathStack.isEmpty() ? null : pathStack.get(pathStack.size() - 1);
+                    pathStack.add(SymbolTable.lookup(parent == null ? segment : parent + SEPARATOR + segment));
+                } else if (name.equals("comment")) {
+                    comment = new StreamedComment();
+                    comment.path = pathStack.isEmpty() ? "" : pathStack.get(pathStack.size() - 1);
+                    comment.id = reader.getAttributeValue(null, "id");
+                    comment.reviewId = SymbolTable.lookup(reader.getAttributeValue(null, "reviewID"));
+                    comment.author = SymbolTable.lookup(reader.getAttributeValue(null, "author"));
+                    comment.recipient = SymbolTable.lookup(reader.getAttributeValue(null, "recipient"));
+                    comment.status = parseInt(reader.getAttributeValue(null, "status"));
+                    comment.priority = parseInt(reader.getAttributeValue(null, "priority"));
+                    comment.revision = parseInt(reader.getAttributeValue(null, "revision"));
+                    comment.creationDate = reader.getAttributeValue(null, "creation-date");
+                    comment.lastModified = reader.getAttributeValue(null, "last-modified");
+                } else if (comment != null && name.equals("text")) {
+                    comment.text = reader.getElementText();
+                } else if (comment != null && name.equals("reply")) {
+                    String author = SymbolTable.lookup(reader.getAttributeValue(null, "author"));
+                    String creationDate = reader.getAttributeValue(null, "creation-date");
+                    comment.replies.add(new StreamedReply(author, creationDate, reader.getElementText()));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (!NAMESPACE.equals(reader.getNamespaceURI())) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (name.equals("project") || name.equals("folder") || name.equals("file")) {
+                    pathStack.remove(pathStack.size() - 1);
+                } else if (name.equals("comment") && comment != null) {
+                    visitor.visitComment(comment);
+                    comment = null;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses the given attribute value
+     * @param value attribute value
+     * @return the parsed value or 0 if no valid value is given
+     */
+    private static int parseInt(String value) {
+        if (value == null) { return 0; }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
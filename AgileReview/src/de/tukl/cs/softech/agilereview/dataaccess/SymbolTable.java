@@ -0,0 +1,88 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Shared table of canonical strings for values which are repeated by many comments (review ids, authors, recipients and paths). All strings kept
+ * by the data access layer for these values should be obtained via {@link #intern(String)}, so that equal values share one instance. In contrast to
+ * {@link String#intern()} the table does not use the permanent generation and symbols which are not referenced anymore are garbage collected.
+ */
+public final class SymbolTable {
+
+    /**
+     * Approximate size of a string object without its characters (object header, fields and array header) in bytes
+     */
+    private static final int STRING_OVERHEAD = 56;
+
+    /**
+     * Symbol -> weak reference to the canonical instance of the symbol
+     */
+    private static final WeakHashMap<String, WeakReference<String>> SYMBOLS = new WeakHashMap<String, WeakReference<String>>();
+
+    /**
+     * Number of interned strings
+     */
+    private static long lookups = 0;
+
+    /**
+     * No instances
+     */
+    private SymbolTable() {
+    }
+
+    /**
+     * Returns the canonical instance of the given string. Should only be used for strings which are kept by the caller, as the given string becomes
+     * the canonical instance if there is none yet. Strings which are only used temporarily have to be passed to {@link #lookup(String)} instead.
+     * @param s string
+     * @return the canonical instance equal to the given string or <i>null</i> if <i>null</i> is given
+     */
+    public static synchronized String intern(String s) {
+        if (s == null) { return null; }
+        lookups++;
+        WeakReference<String> ref = SYMBOLS.get(s);
+        String symbol = ref == null ? null : ref.get();
+        if (symbol == null) {
+            SYMBOLS.put(s, new WeakReference<String>(s));
+            return s;
+        }
+        return symbol;
+    }
+
+    /**
+     * Returns the canonical instance of the given string, if there is one. The string is neither added to the table nor counted in its statistics.
+     * @param s string, which is only used temporarily
+     * @return the canonical instance equal to the given string or the given string itself, if there is no such instance
+     */
+    public static synchronized String lookup(String s) {
+        if (s == null) { return null; }
+        WeakReference<String> ref = SYMBOLS.get(s);
+        String symbol = ref == null ? null : ref.get();
+        return symbol == null ? s : symbol;
+    }
+
+    /**
+     * Returns a short report about the symbol table (number of symbols, lookups, shared references and saved memory). The savings are computed
+     * from the given live references: every reference to an instance which is also referenced elsewhere would be a separate string without the
+     * table. Strings which have been dropped in the meantime are therefore not counted.
+     * @param references strings currently held by long-lived fields (e.g. of the loaded comments), including duplicates
+     * @return report of the symbol table
+     */
+    public static String getReport(Collection<String> references) {
+        IdentityHashMap<String, Boolean> instances = new IdentityHashMap<String, Boolean>();
+        long shared = 0;
+        long savedBytes = 0;
+        for (String s : references) {
+            if (s != null && instances.put(s, Boolean.TRUE) != null) {
+                shared++;
+                savedBytes += STRING_OVERHEAD + 2 * s.length();
+            }
+        }
+        synchronized (SymbolTable.class) {
+            return "Symbols: " + SYMBOLS.size() + "\nLookups: " + lookups + "\nShared references: " + shared + " of " + references.size()
+                    + "\nApprox. saved memory: " + (savedBytes / 1024) + " KB";
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.XmlTokenSource;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+
+import agileReview.softech.tukl.de.CommentsDocument;
+
+/**
+ * Default {@link CommentStorage}: every comments document is stored as xml in its author file, i.e. one file per author per review. Saving a
+ * document rewrites the whole author file.
+ */
+class XmlCommentStorage implements CommentStorage {
+
+    @Override
+    public boolean isWorkspaceBacked() {
+        return true;
+    }
+
+    @Override
+    public List<IFile> list(IFolder reviewFolder) throws CoreException {
+        ArrayList<IFile> result = new ArrayList<IFile>();
+        for (IResource r : reviewFolder.members()) {
+            // the archive of an archived review is not an author file
+            if (r instanceof IFile && !r.getName().equals("review.xml") && !ReviewArchive.isArchive(r)) {
+                result.add((IFile) r);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CommentsDocument load(IFile authorFile) throws Exception {
+        InputStream stream = authorFile.getContents(true);
+        try {
+            return CommentsDocument.Factory.parse(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Override
+    public void save(IFile authorFile, CommentsDocument document) throws IOException {
+        writeFile(document, authorFile);
+    }
+
+    /**
+     * Writes the given document to the given file without refreshing the workspace. The write is reported to the {@link OwnWriteTracker}.
+     * @param document document to be written
+     * @param file target file
+     * @throws IOException if the file could not be written
+     */
+    static void writeFile(XmlTokenSource document, IFile file) throws IOException {
+        // compute the checksum while writing, so that the resulting resource delta can be recognized as our own change
+        CheckedOutputStream out = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(file.getLocation().toFile())), new CRC32());
+        try {
+            document.save(out, new XmlOptions().setSavePrettyPrint());
+        } finally {
+            out.close();
+        }
+        OwnWriteTracker.getInstance().written(file, out.getChecksum().getValue(), file.getLocation().toFile().length());
+    }
+
+    @Override
+    public void delete(IFile authorFile) throws CoreException {
+        if (authorFile.exists()) {
+            authorFile.delete(true, null);
+        }
+    }
+
+    @Override
+    public int rewritePaths(IProject sourceProject, String oldPath, String newPath, boolean moveAllChilds) {
+        // the author files are changed by the refactoring participants
+        return 0;
+    }
+
+    @Override
+    public int query(IProject sourceProject, final String reviewId, final String path, final int status,
+            final StreamingCommentReader.CommentVisitor visitor) throws Exception {
+        // the author files are streamed, the filter is applied to every comment
+        final int[] matches = new int[1];
+        StreamingCommentReader.CommentVisitor filter = new StreamingCommentReader.CommentVisitor() {
+            @Override
+            public void visitComment(StreamingCommentReader.StreamedComment comment) {
+                if ((reviewId == null || reviewId.equals(comment.getReviewId())) && (path == null || path.equals(comment.getPath()))
+                        && (status == ANY_STATUS || status == comment.getStatus())) {
+                    matches[0]++;
+                    visitor.visitComment(comment);
+                }
+            }
+        };
+        for (IResource r : sourceProject.members()) {
+            if (r instanceof IFolder && (reviewId == null ? r.getName().startsWith("review.") : r.getName().equals("review." + reviewId))) {
+                for (IFile f : list((IFolder) r)) {
+                    InputStream stream = f.getContents(true);
+                    try {
+                        StreamingCommentReader.read(stream, filter);
+                    } finally {
+                        stream.close();
+                    }
+                }
+            }
+        }
+        return matches[0];
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
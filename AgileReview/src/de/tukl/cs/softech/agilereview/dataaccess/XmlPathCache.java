@@ -0,0 +1,167 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+
+import agileReview.softech.tukl.de.FilesDocument.Files;
+
+/**
+ * Cache for the paths of comments, files and folders within the comment documents. The cache is keyed by the identity of the XmlObjects (XmlObjects
+ * compare by value) and stores path strings of the {@link SymbolTable}, so that all comments of one file share the same path instance. As the cache
+ * holds its XmlObjects strongly, the entries of a document have to be dropped by {@link #invalidateDocument(XmlObject)} once the document is
+ * replaced or removed from the models.
+ */
+class XmlPathCache {
+
+    /**
+     * QName of the name attribute of projects, folders and files
+     */
+    private static final QName NAME = new QName("name");
+
+    /**
+     * Separator of the path segments
+     */
+    private static final String SEPARATOR = System.getProperty("file.separator");
+
+    /**
+     * Item -> path of the item (excluding the item itself)
+     */
+    private final IdentityHashMap<XmlObject, String> itemPaths = new IdentityHashMap<XmlObject, String>();
+
+    /**
+     * Project, folder or file -> path of the node (including the node itself)
+     */
+    private final IdentityHashMap<XmlObject, String> nodePaths = new IdentityHashMap<XmlObject, String>();
+
+    /**
+     * Cached item or node -> document containing it
+     */
+    private final IdentityHashMap<XmlObject, XmlObject> owners = new IdentityHashMap<XmlObject, XmlObject>();
+
+    /**
+     * Document -> cached items and nodes of the document
+     */
+    private final IdentityHashMap<XmlObject, Set<XmlObject>> documentEntries = new IdentityHashMap<XmlObject, Set<XmlObject>>();
+
+    /**
+     * Returns the path for a given comment, file or folder
+     * @param item comment, file or folder for which the path should be returned
+     * @return path of the item (excluding the item itself)
+     */
+    synchronized String getPath(XmlObject item) {
+        String result = itemPaths.get(item);
+        if (result == null) {
+            XmlCursor c = item.newCursor();
+            c.toParent();
+            ArrayList<XmlObject> computed = new ArrayList<XmlObject>();
+            result = computeNodePath(c, computed);
+            c.toStartDoc();
+            XmlObject document = c.getObject();
+            c.dispose();
+            itemPaths.put(item, result);
+            remember(item, document);
+            for (XmlObject node : computed) {
+                remember(node, document);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Registers the given cached item or node as part of the given document
+     * @param key cached item or node
+     * @param document document containing the key
+     */
+    private void remember(XmlObject key, XmlObject document) {
+        owners.put(key, document);
+        Set<XmlObject> entries = documentEntries.get(document);
+        if (entries == null) {
+            entries = Collections.newSetFromMap(new IdentityHashMap<XmlObject, Boolean>());
+            documentEntries.put(document, entries);
+        }
+        entries.add(key);
+    }
+
+    /**
+     * Computes the path of the node the cursor is pointing to. The cursor will be moved towards the root of the document while computing. All
+     * computed paths of the visited nodes will be cached.
+     * @param c cursor pointing to a project, folder or file
+     * @param computed list the nodes whose paths have been newly computed will be added to
+     * @return path of the node (including the node itself)
+     */
+    private String computeNodePath(XmlCursor c, ArrayList<XmlObject> computed) {
+        // collect all nodes until a cached one or the files node is reached
+        ArrayList<XmlObject> nodes = new ArrayList<XmlObject>();
+        ArrayList<String> names = new ArrayList<String>();
+        String prefix = null;
+        do {
+            XmlObject node = c.getObject();
+            if (node instanceof Files) {
+                break;
+            }
+            prefix = nodePaths.get(node);
+            if (prefix != null) {
+                break;
+            }
+            nodes.add(node);
+            names.add(c.getAttributeText(NAME));
+        } while (c.toParent());
+
+        // build the paths from the top most node down to the requested one
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            prefix = SymbolTable.intern(prefix == null ? names.get(i) : prefix + SEPARATOR + names.get(i));
+            nodePaths.put(nodes.get(i), prefix);
+            computed.add(nodes.get(i));
+        }
+        return prefix;
+    }
+
+    /**
+     * Removes the given item from the cache. Should be called before an item is removed from its document.
+     * @param item comment, file, folder or project
+     */
+    synchronized void invalidate(XmlObject item) {
+        itemPaths.remove(item);
+        nodePaths.remove(item);
+        XmlObject document = owners.remove(item);
+        if (document != null) {
+            Set<XmlObject> entries = documentEntries.get(document);
+            entries.remove(item);
+            if (entries.isEmpty()) {
+                documentEntries.remove(document);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached items and nodes of the given document. Has to be called when the document is replaced or removed from the models, as the
+     * cache would keep its XmlObjects reachable otherwise.
+     * @param document comments document
+     */
+    synchronized void invalidateDocument(XmlObject document) {
+        Set<XmlObject> entries = documentEntries.remove(document);
+        if (entries == null) { return; }
+        for (XmlObject key : entries) {
+            itemPaths.remove(key);
+            nodePaths.remove(key);
+            owners.remove(key);
+        }
+    }
+
+    /**
+     * Clears the whole cache
+     */
+    synchronized void clear() {
+        itemPaths.clear();
+        nodePaths.clear();
+        owners.clear();
+        documentEntries.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package de.tukl.cs.softech.agilereview.dataaccess;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+
+/**
+ * Name based index over the project, folder and file nodes of comments documents. For every node (beginning with the files node of a document) the
+ * children are mapped by their name, so that resolving a path only needs one hash lookup per path segment. The children of a node are indexed
+ * lazily on the first lookup. Insertions and removals of nodes have to be reported to the index.
+ */
+class XmlPathIndex {
+
+    /**
+     * Name attribute of projects, folders and files
+     */
+    private static final QName NAME = new QName("name");
+
+    /**
+     * Node -> (name -> child). As XmlObjects implement value based equality, an identity map has to be used.
+     */
+    private final IdentityHashMap<XmlObject, HashMap<String, XmlObject>> children = new IdentityHashMap<XmlObject, HashMap<String, XmlObject>>();
+
+    /**
+     * Returns the child of the given node with the given name
+     * @param parent files, project or folder node
+     * @param name name of the child
+     * @return the first child with the given name or <i>null</i> if there is no such child
+     */
+    synchronized XmlObject getChild(XmlObject parent, String name) {
+        HashMap<String, XmlObject> map = children.get(parent);
+        if (map == null) {
+            map = new HashMap<String, XmlObject>();
+            XmlCursor c = parent.newCursor();
+            try {
+                if (c.toFirstChild()) {
+                    do {
+                        String childName = c.getAttributeText(NAME);
+                        if (childName != null && !map.containsKey(childName)) {
+                            map.put(childName, c.getObject());
+                        }
+                    } while (c.toNextSibling());
+                }
+            } finally {
+                c.dispose();
+            }
+            children.put(parent, map);
+        }
+        return map.get(name);
+    }
+
+    /**
+     * Reports a newly created child node
+     * @param parent parent of the new node
+     * @param name name of the new node
+     * @param child the new node
+     */
+    synchronized void add(XmlObject parent, String name, XmlObject child) {
+        HashMap<String, XmlObject> map = children.get(parent);
+        if (child != null && map != null && !map.containsKey(name)) {
+            map.put(name, child);
+        }
+    }
+
+    /**
+     * Reports that the given node is going to be removed from its document. Has to be called before the node is removed.
+     * @param node node to be removed
+     */
+    synchronized void remove(XmlObject node) {
+        forget(node);
+        XmlCursor c = node.newCursor();
+        try {
+            String name = c.getAttributeText(NAME);
+            if (name == null || !c.toParent()) { return; }
+            HashMap<String, XmlObject> map = children.get(c.getObject());
+            if (map == null || map.get(name) != node) { return; }
+            map.remove(name);
+            // another sibling with the same name might exist
+            if (c.toFirstChild()) {
+                do {
+                    if (name.equals(c.getAttributeText(NAME)) && c.getObject() != node) {
+                        map.put(name, c.getObject());
+                        break;
+                    }
+                } while (c.toNextSibling());
+            }
+        } finally {
+            c.dispose();
+        }
+    }
+
+    /**
+     * Drops the index of the given node and all its indexed descendants (e.g. because its children have been changed by other means or its
+     * document is not used anymore). The node will be indexed again on the next lookup.
+     * @param node node to be forgotten
+     */
+    synchronized void forget(XmlObject node) {
+        HashMap<String, XmlObject> map = children.remove(node);
+        if (map != null) {
+            for (XmlObject child : map.values()) {
+                forget(child);
+            }
+        }
+    }
+
+    /**
+     * Clears the whole index
+     */
+    synchronized void clear() {
+        children.clear();
+    }
+}
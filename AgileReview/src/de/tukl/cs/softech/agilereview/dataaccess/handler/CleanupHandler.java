@@ -116,7 +116,6 @@ public class CleanupHandler extends AbstractHandler {
             });
         }
         
-        ViewControl.refreshViews(ViewControl.COMMMENT_TABLE_VIEW | ViewControl.REVIEW_EXPLORER, true);
         if (ViewControl.isOpen(CommentTableView.class)) {
             CommentTableView.getInstance().reparseAllEditors();
         }
@@ -139,6 +138,8 @@ public class CleanupHandler extends AbstractHandler {
         pmd.open();
         pmd.run(true, false, new CleanupProjectsProcess(selProjects, deleteComments, onlyClosedComments));
         pmd.close();
+        // the project cleanup reloads all reviews, so the views have to be reloaded as well
+        ViewControl.refreshViews(ViewControl.COMMMENT_TABLE_VIEW | ViewControl.REVIEW_EXPLORER, true);
     }
     
     /**
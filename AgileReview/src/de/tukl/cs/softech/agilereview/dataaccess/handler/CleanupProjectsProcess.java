@@ -1,12 +1,12 @@
 package de.tukl.cs.softech.agilereview.dataaccess.handler;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IFile;
@@ -141,18 +141,16 @@ public class CleanupProjectsProcess implements IRunnableWithProgress {
 			if (this.deleteComments) {
 				monitor.subTask("Deleting comments...");
 				PluginLogger.log(this.getClass().toString(), "execute", "Removing comments from XML");
-				if (this.onlyClosedComments) { // issue #13: add ability to ignore open comments on cleanup
-					for (Comment c : comments) {
-						if (c.getStatus() != 0) {
-							try {
-								ra.deleteComment(c);
-							} catch (IOException e) {
-								throw new InterruptedException("Unable to delete comment " + c.getId() + "of review " + c.getReviewID());
-							}
-						}
+				ArrayList<Comment> delComments = new ArrayList<Comment>();
+				for (Comment c : comments) {
+					if (!this.onlyClosedComments || c.getStatus() != 0) { // issue #13: add ability to ignore open comments on cleanup
+						delComments.add(c);
 					}
-				} else {
-					ra.deleteComments(comments);
+				}
+				// all comments are deleted in one batch, so each author file is only written once
+				Map<IFile, Exception> failures = ra.deleteComments(delComments);
+				if (!failures.isEmpty()) {
+					throw new InterruptedException("Unable to delete comments from " + failures.keySet());
 				}
 			}
 			monitor.worked(90);
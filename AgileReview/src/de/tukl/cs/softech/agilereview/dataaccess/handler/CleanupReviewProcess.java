@@ -1,9 +1,12 @@
 package de.tukl.cs.softech.agilereview.dataaccess.handler;
 
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.operation.IRunnableWithProgress;
@@ -63,23 +66,28 @@ public class CleanupReviewProcess implements IRunnableWithProgress {
 		monitor.subTask("Deleting comments ...");
 		float progressStep = 90f / comments.size();
 		int i = 0;
+		ArrayList<Comment> delComments = new ArrayList<Comment>();
 		for (Comment c : comments) {
 			String key = ra.generateCommentKey(c);
 			if (!onlyClosedComments || c.getStatus() == 1) {
 				TagCleaner.removeTag(new Path(ReviewAccess.computePath(c)), key);
 				if (this.deleteComments) {
-					try {
-						ReviewAccess.getInstance().deleteComment(c);	
-					} catch (IOException e) {
-						PluginLogger.logError(this.getClass().toString(), "execute", "IOException occured while deleting a comment in ReviewAccess: " + c, e);
-					} catch (NoReviewSourceFolderException e) {
-						ExceptionHandler.handleNoReviewSourceFolderException();
-					}
+					delComments.add(c);
 				}
 			}
 			i++;
 			monitor.worked(Math.round(i * progressStep) + 10);
 		}
+		// delete all comments in one batch, so each author file is only written once
+		try {
+			Map<IFile, Exception> failures = ra.deleteComments(delComments);
+			for (Entry<IFile, Exception> e : failures.entrySet()) {
+				PluginLogger.logError(this.getClass().toString(), "execute", "Exception occured while deleting comments of file " + e.getKey(), e
+						.getValue());
+			}
+		} catch (NoReviewSourceFolderException e) {
+			ExceptionHandler.handleNoReviewSourceFolderException();
+		}
 		monitor.worked(100);
 		monitor.done();
 	}
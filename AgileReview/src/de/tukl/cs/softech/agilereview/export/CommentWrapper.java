@@ -11,6 +11,7 @@ import java.util.Calendar;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
 import agileReview.softech.tukl.de.ReplyDocument.Reply;
+import de.tukl.cs.softech.agilereview.dataaccess.SymbolTable;
 
 /**
  * 
@@ -51,14 +52,14 @@ public class CommentWrapper {
      */
     public CommentWrapper(Comment comment, FileExportWrapper file) {
         this.file = file;
-        this.author = comment.getAuthor();
+        this.author = SymbolTable.lookup(comment.getAuthor());
         this.creationDate = comment.getCreationDate();
         this.id = comment.getId();
         this.lastModified = comment.getLastModified();
         this.priority = comment.getPriority();
-        this.recipient = comment.getRecipient();
+        this.recipient = SymbolTable.lookup(comment.getRecipient());
         this.replies = comment.getReplies().getReplyArray();
-        this.reviewID = comment.getReviewID();
+        this.reviewID = SymbolTable.lookup(comment.getReviewID());
         this.status = comment.getStatus();
         this.text = comment.getText();
     }
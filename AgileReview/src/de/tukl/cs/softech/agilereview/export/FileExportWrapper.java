@@ -2,6 +2,7 @@ package de.tukl.cs.softech.agilereview.export;
 
 import agileReview.softech.tukl.de.FileDocument.File;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.SymbolTable;
 
 /**
  * File wrapper in order to get a standardized object with the fitting output informations for an export
@@ -49,10 +50,10 @@ public class FileExportWrapper {
      */
     protected FileExportWrapper(File file, String review, String project) {
         this.filename = file.getName();
-        this.review = review;
-        this.project = project;
+        this.review = SymbolTable.lookup(review);
+        this.project = SymbolTable.lookup(project);
         String p = ReviewAccess.computePath(file);
-        this.path = p.substring(p.indexOf(project) + project.length());
+        this.path = SymbolTable.lookup(p.substring(p.indexOf(project) + project.length()));
         this.fullPath = p;
     }
     
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2011, 2012 AgileReview Development Team and others.
+ * All rights reserved. This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License - v 1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ * Contributors: Malte Brunnlieb, Philipp Diebold, Peter Reuter, Thilo Rauch
+ */
+package de.tukl.cs.softech.agilereview.export;
+
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewStatistics;
+
+/**
+ * Summary of the comments of one review for an export. The numbers are taken from the {@link ReviewStatistics} and not counted from the exported
+ * comments.
+ */
+public class ReviewSummaryWrapper {
+
+    /**
+     * Id of the summarized review
+     */
+    private final String reviewId;
+    /**
+     * Number of comments
+     */
+    private final int comments;
+    /**
+     * Number of comments per status id
+     */
+    private final int[] commentsByStatus;
+    /**
+     * Number of comments per priority id
+     */
+    private final int[] commentsByPriority;
+    /**
+     * Number of authors
+     */
+    private final int authors;
+    /**
+     * Number of replies
+     */
+    private final int replies;
+
+    /**
+     * Creates a summary of the given review
+     * @param stats statistics containing the comments of the review
+     * @param reviewId id of the review to be summarized
+     * @param statusCount number of available comment states
+     * @param priorityCount number of available comment priorities
+     */
+    protected ReviewSummaryWrapper(ReviewStatistics stats, String reviewId, int statusCount, int priorityCount) {
+        this.reviewId = reviewId;
+        this.comments = stats.getCommentCount(reviewId);
+        this.commentsByStatus = new int[statusCount];
+        for (int i = 0; i < statusCount; i++) {
+            this.commentsByStatus[i] = stats.getCommentCountByStatus(reviewId, i);
+        }
+        this.commentsByPriority = new int[priorityCount];
+        for (int i = 0; i < priorityCount; i++) {
+            this.commentsByPriority[i] = stats.getCommentCountByPriority(reviewId, i);
+        }
+        this.authors = stats.getAuthorCount(reviewId);
+        this.replies = stats.getReplyCount(reviewId);
+    }
+
+    /**
+     * @return the id of the summarized review
+     */
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    /**
+     * @return the number of comments
+     */
+    public int getComments() {
+        return comments;
+    }
+
+    /**
+     * @return the number of comments with the initial status (open)
+     */
+    public int getOpenComments() {
+        return commentsByStatus.length > 0 ? commentsByStatus[0] : 0;
+    }
+
+    /**
+     * @return the number of comments per status id
+     */
+    public int[] getCommentsByStatus() {
+        return commentsByStatus.clone();
+    }
+
+    /**
+     * @return the number of comments per priority id
+     */
+    public int[] getCommentsByPriority() {
+        return commentsByPriority.clone();
+    }
+
+    /**
+     * @return the number of authors
+     */
+    public int getAuthors() {
+        return authors;
+    }
+
+    /**
+     * @return the number of replies
+     */
+    public int getReplies() {
+        return replies;
+    }
+}
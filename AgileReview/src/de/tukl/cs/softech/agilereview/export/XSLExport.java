@@ -8,6 +8,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -20,6 +21,7 @@ import net.sf.jxls.transformer.Configuration;
 import net.sf.jxls.transformer.XLSTransformer;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.xmlbeans.XmlException;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -28,12 +30,16 @@ import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.ui.PlatformUI;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
+import agileReview.softech.tukl.de.CommentsDocument;
 import agileReview.softech.tukl.de.FileDocument.File;
 import agileReview.softech.tukl.de.FolderDocument.Folder;
 import agileReview.softech.tukl.de.ProjectDocument.Project;
 import agileReview.softech.tukl.de.ReplyDocument.Reply;
 import agileReview.softech.tukl.de.ReviewDocument.Review;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewArchive;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewStatistics;
+import de.tukl.cs.softech.agilereview.plugincontrol.exceptions.NoReviewSourceFolderException;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
 
@@ -119,8 +125,9 @@ public class XSLExport implements IRunnableWithProgress {
         ArrayList<FileExportWrapper> reviewFiles = new ArrayList<FileExportWrapper>();
         ArrayList<CommentWrapper> comments = new ArrayList<CommentWrapper>();
         HashSet<java.io.File> projects = new HashSet<java.io.File>();
+        ArrayList<CommentsDocument> archivedDocs = new ArrayList<CommentsDocument>();
         for (Review r : reviews) {
-            for (Project p : ra.getProjects(r.getId())) {
+            for (Project p : getProjects(r.getId(), archivedDocs)) {
                 
                 if (workspaceRoot.getProject(p.getName()).exists()) {
                     projects.add(workspaceRoot.getProject(p.getName()).getLocation().toFile());
@@ -137,6 +144,10 @@ public class XSLExport implements IRunnableWithProgress {
         }
         beans.put("reviewFiles", reviewFiles);
         beans.put("comments", comments);
+        // the paths of the archived comments have been computed -> release them
+        for (CommentsDocument doc : archivedDocs) {
+            ReviewAccess.invalidateDocumentPaths(doc);
+        }
         
         // Collect all replies
         ArrayList<ReplyWrapper> replies = new ArrayList<ReplyWrapper>();
@@ -155,6 +166,25 @@ public class XSLExport implements IRunnableWithProgress {
         beans.put("projectFiles", projectFiles);
         beans.put("reviews", reviews);
         
+        // Summaries are read from the incrementally maintained statistics
+        PropertiesManager pm = PropertiesManager.getInstance();
+        int statusCount = pm.getInternalProperty(PropertiesManager.INTERNAL_KEYS.COMMENT_STATUS).split(",").length;
+        int priorityCount = pm.getInternalProperty(PropertiesManager.INTERNAL_KEYS.COMMENT_PRIORITIES).split(",").length;
+        ArrayList<ReviewSummaryWrapper> summaries = new ArrayList<ReviewSummaryWrapper>();
+        for (Review r : reviews) {
+            ReviewStatistics stats = ra.getStatistics();
+            // the comments of closed and archived reviews are counted from the stored comments
+            if (!ra.isReviewLoaded(r.getId())) {
+                try {
+                    stats = ra.computeStatistics(r.getId());
+                } catch (Exception e) {
+                    PluginLogger.logError(this.getClass().toString(), "exportReviews", "Could not read the comments of review " + r.getId(), e);
+                }
+            }
+            summaries.add(new ReviewSummaryWrapper(stats, r.getId(), statusCount, priorityCount));
+        }
+        beans.put("reviewSummaries", summaries);
+        
         Configuration config = new Configuration();
         XLSTransformer transformer = new XLSTransformer(config);
         DateFormat df = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
@@ -169,6 +199,37 @@ public class XSLExport implements IRunnableWithProgress {
         monitor.done();
     }
     
+    /**
+     * Returns all projects containing comments of the given review. The author files of an archived review are parsed from its archive, as the
+     * comments of archived reviews cannot be loaded.
+     * @param reviewId
+     * @param archivedDocs list to which the parsed documents of an archived review will be added
+     * @return all projects containing comments of the given review
+     * @throws IOException if the archive could not be read
+     */
+    private Collection<Project> getProjects(String reviewId, List<CommentsDocument> archivedDocs) throws IOException {
+        if (!ra.isReviewArchived(reviewId)) { return ra.getProjects(reviewId); }
+        ArrayList<Project> result = new ArrayList<Project>();
+        try {
+            ReviewArchive archive = ra.openArchive(reviewId);
+            if (archive == null) { return result; }
+            try {
+                for (String authorFile : archive.getAuthorFiles()) {
+                    CommentsDocument doc = archive.parseAuthorFile(authorFile);
+                    archivedDocs.add(doc);
+                    result.addAll(Arrays.asList(doc.getComments().getFiles().getProjectArray()));
+                }
+            } finally {
+                archive.close();
+            }
+        } catch (XmlException e) {
+            throw new IOException("The archive of review " + reviewId + " could not be parsed", e);
+        } catch (NoReviewSourceFolderException e) {
+            PluginLogger.logError(this.getClass().toString(), "getProjects", "No review source folder while reading archive of " + reviewId, e);
+        }
+        return result;
+    }
+    
     /**
      * @param comments
      * @param r
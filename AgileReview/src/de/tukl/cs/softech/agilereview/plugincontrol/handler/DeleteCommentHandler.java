@@ -103,10 +103,6 @@ public class DeleteCommentHandler extends AbstractHandler {
                     } catch (NoReviewSourceFolderException e) {
                         ExceptionHandler.handleNoReviewSourceFolderException();
                     }
-                    // Refresh the Review Explorer
-                    ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER);
-                    
-                    // XXX Detail view?
                 }
             }
         }
@@ -0,0 +1,32 @@
+package de.tukl.cs.softech.agilereview.plugincontrol.handler;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.SymbolTable;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+
+/**
+ * Handler for the debug command showing the heap usage of AgileReview and the memory saved by the {@link SymbolTable}
+ */
+public class HeapReportHandler extends AbstractHandler {
+    
+    @Override
+    public Object execute(ExecutionEvent event) throws ExecutionException {
+        PluginLogger.log(HeapReportHandler.class.toString(), "execute", "Heap report triggered");
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedHeap = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        String report = "Loaded comments: " + ReviewAccess.getInstance().getCommentSnapshot().getComments().size() + "\nUsed heap: " + usedHeap + " MB of "
+                + (runtime.maxMemory() / (1024 * 1024)) + " MB\n\n" + ReviewAccess.getInstance().getSymbolReport();
+        PluginLogger.log(HeapReportHandler.class.toString(), "execute", report);
+        MessageDialog.openInformation(HandlerUtil.getActiveShell(event), "AgileReview: Heap report", report);
+        // Return must be null (see API)
+        return null;
+    }
+    
+}
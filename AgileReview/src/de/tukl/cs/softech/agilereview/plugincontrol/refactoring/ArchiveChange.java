@@ -0,0 +1,88 @@
+package de.tukl.cs.softech.agilereview.plugincontrol.refactoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+import de.tukl.cs.softech.agilereview.Activator;
+
+/**
+ * Change which replaces the contents of a review archive. The author files of an archive are compressed and cannot be changed by text edits, so
+ * the whole archive is replaced by its refactored version. The undo change restores the previous contents.
+ */
+class ArchiveChange extends Change {
+
+    /**
+     * The archive to be changed
+     */
+    private final IFile archive;
+    /**
+     * New contents of the archive
+     */
+    private final byte[] contents;
+
+    /**
+     * Creates a change replacing the contents of the given archive
+     * @param archive the archive to be changed
+     * @param contents new contents of the archive
+     */
+    ArchiveChange(IFile archive, byte[] contents) {
+        this.archive = archive;
+        this.contents = contents;
+    }
+
+    @Override
+    public String getName() {
+        return "Refactoring of the archived comment paths of " + archive.getParent().getName();
+    }
+
+    @Override
+    public void initializeValidationData(IProgressMonitor pm) {
+        // the archive is replaced as a whole, so there is nothing to be validated beforehand
+    }
+
+    @Override
+    public RefactoringStatus isValid(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+        if (!archive.isAccessible() || archive.isReadOnly()) { return RefactoringStatus.createFatalErrorStatus(archive.getFullPath()
+                + " is not accessible."); }
+        return new RefactoringStatus();
+    }
+
+    @Override
+    public Change perform(IProgressMonitor pm) throws CoreException {
+        byte[] previous;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream in = archive.getContents(true);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+            previous = out.toByteArray();
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not read " + archive.getFullPath(), e));
+        }
+        archive.setContents(new ByteArrayInputStream(contents), true, false, pm);
+        return new ArchiveChange(archive, previous);
+    }
+
+    @Override
+    public Object getModifiedElement() {
+        return archive;
+    }
+}
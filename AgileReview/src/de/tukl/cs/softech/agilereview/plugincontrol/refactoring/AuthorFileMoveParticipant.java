@@ -86,7 +86,7 @@ public class AuthorFileMoveParticipant extends MoveParticipant implements IShara
             return true;
         }
         
-        if (affectedFiles.isEmpty()) {
+        if (affectedFiles.isEmpty() && ra.getAffectedArchives().isEmpty() && !ra.isStorageAffected()) {
             return false;
         } else {
             return true;
@@ -249,6 +249,7 @@ public class AuthorFileMoveParticipant extends MoveParticipant implements IShara
         
         //add context checker which are only there for assuring accessibility for the files to be refactored
         RefactoringKit.addConditionChecker(affectedFiles, context);
+        RefactoringKit.addConditionChecker(ra.getAffectedArchives(), context);
         
         //simulate changes
         try {
@@ -282,6 +283,10 @@ public class AuthorFileMoveParticipant extends MoveParticipant implements IShara
         //no changes to be done if there was an error during initialization
         if (errorWhileInitialization != 0) { return null; }
         
-        return RefactoringKit.createChange(affectedFiles, prevDocs, postDocs, this);
+        Map<String, String> movedPaths = new HashMap<String, String>();
+        for (int i = 0; i < oldPath.size(); i++) {
+            movedPaths.put(oldPath.get(i), newPath.get(i));
+        }
+        return RefactoringKit.createChange(affectedFiles, prevDocs, postDocs, ra, this, movedPaths);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package de.tukl.cs.softech.agilereview.plugincontrol.refactoring;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -92,7 +93,7 @@ public class AuthorFileRenameParticipant extends RenameParticipant implements IS
             prevDocs = ra.getPrevDocuments();
         }
         
-        if (affectedFiles.isEmpty()) {
+        if (affectedFiles.isEmpty() && ra.getAffectedArchives().isEmpty() && !ra.isStorageAffected()) {
             return false;
         } else {
             return true;
@@ -236,6 +237,7 @@ public class AuthorFileRenameParticipant extends RenameParticipant implements IS
         
         //add condition checker which are only there for assuring accessibility for the files to be refactored
         RefactoringKit.addConditionChecker(affectedFiles, context);
+        RefactoringKit.addConditionChecker(ra.getAffectedArchives(), context);
         
         //simulate changes
         try {
@@ -267,6 +269,6 @@ public class AuthorFileRenameParticipant extends RenameParticipant implements IS
         //no changes to be done if there was an error during initialization
         if (errorWhileInitialization != 0) { return null; }
         
-        return RefactoringKit.createChange(affectedFiles, prevDocs, postDocs, this);
+        return RefactoringKit.createChange(affectedFiles, prevDocs, postDocs, ra, this, Collections.singletonMap(oldPath, newPath));
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package de.tukl.cs.softech.agilereview.plugincontrol.refactoring;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.mapping.IResourceChangeDescriptionFactory;
@@ -23,6 +24,9 @@ import org.eclipse.text.edits.MultiTextEdit;
 import org.eclipse.text.edits.ReplaceEdit;
 
 import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEvent;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEventBus;
+import de.tukl.cs.softech.agilereview.dataaccess.RefactoringAccess;
 import de.tukl.cs.softech.agilereview.plugincontrol.refactoring.ComputeDiff.Diff;
 
 /**
@@ -70,12 +74,25 @@ public class RefactoringKit {
      * @param postDocs contents of the files after the refactoring simulation
      * @param participant the reference of the refactoring participant which calls this function in order to get possible changes for each file which
      *            could be done by other participants beforehand
+     * @param ra RefactoringAccess which simulated the refactoring, its refactored archives will replace the archives as a whole and its stored
+     *            comments which are not kept in author files will be moved by the storage backend
+     * @param movedPaths old paths of the refactored items mapped to their new paths, which will be posted to the {@link ModelEventBus} after the
+     *            change has been performed
      * @return a {@link CompositeChange} which comprises all changes
      */
     static Change createChange(Collection<IFile> affectedFiles, Map<IFile, String> prevDocs, Map<IFile, String> postDocs,
-            RefactoringParticipant participant) {
+            RefactoringAccess ra, RefactoringParticipant participant, final Map<String, String> movedPaths) {
         
-        CompositeChange result = new CompositeChange("Refactoring of all affected comment paths");
+        CompositeChange result = new CompositeChange("Refactoring of all affected comment paths") {
+            @Override
+            public Change perform(IProgressMonitor pm) throws CoreException {
+                Change undo = super.perform(pm);
+                for (Entry<String, String> e : movedPaths.entrySet()) {
+                    ModelEventBus.post(ModelEvent.pathMoved(e.getKey(), e.getValue()));
+                }
+                return undo;
+            }
+        };
         ComputeDiff diffProcessor = new ComputeDiff();
         
         for (IFile f : affectedFiles) {
@@ -134,6 +151,13 @@ public class RefactoringKit {
             }
         }
         
+        for (Entry<IFile, byte[]> e : ra.getPostArchives().entrySet()) {
+            result.add(new ArchiveChange(e.getKey(), e.getValue()));
+        }
+        if (ra.isStorageAffected()) {
+            result.add(new StorageChange(ra, false));
+        }
+        
         /* XXX there is the case that we participate on refactoring without changing anything:
          * A package is moved containing no commented files in the next level. However this package contains
          * sub folder which contain commented files. Then the affected author files will be listed so far.
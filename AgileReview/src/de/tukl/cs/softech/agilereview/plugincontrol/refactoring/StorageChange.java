@@ -0,0 +1,73 @@
+package de.tukl.cs.softech.agilereview.plugincontrol.refactoring;
+
+import java.io.IOException;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.dataaccess.RefactoringAccess;
+import de.tukl.cs.softech.agilereview.plugincontrol.exceptions.NoReviewSourceFolderException;
+
+/**
+ * Change which moves the paths of the comments kept by a storage backend, which does not store them in author files. The undo change moves the
+ * paths back.
+ */
+class StorageChange extends Change {
+
+    /**
+     * RefactoringAccess which simulated the refactoring
+     */
+    private final RefactoringAccess ra;
+    /**
+     * Indicates whether this change reverts the refactoring
+     */
+    private final boolean undo;
+
+    /**
+     * Creates a change moving the paths of the stored comments
+     * @param ra RefactoringAccess which simulated the refactoring
+     * @param undo <i>true</i> if the refactoring should be reverted, <i>false</i> if it should be applied
+     */
+    StorageChange(RefactoringAccess ra, boolean undo) {
+        this.ra = ra;
+        this.undo = undo;
+    }
+
+    @Override
+    public String getName() {
+        return undo ? "Revert the refactoring of the stored comment paths" : "Refactoring of the stored comment paths";
+    }
+
+    @Override
+    public void initializeValidationData(IProgressMonitor pm) {
+        // the paths are rewritten by the storage backend, so there is nothing to be validated beforehand
+    }
+
+    @Override
+    public RefactoringStatus isValid(IProgressMonitor pm) throws CoreException, OperationCanceledException {
+        return new RefactoringStatus();
+    }
+
+    @Override
+    public Change perform(IProgressMonitor pm) throws CoreException {
+        try {
+            ra.performStorageRefactoring(undo);
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not rewrite the stored comment paths", e));
+        } catch (NoReviewSourceFolderException e) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not rewrite the stored comment paths", e));
+        }
+        return new StorageChange(ra, !undo);
+    }
+
+    @Override
+    public Object getModifiedElement() {
+        return null;
+    }
+}
@@ -12,6 +12,7 @@ import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.FileFieldEditor;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.IWorkbench;
@@ -139,6 +140,32 @@ public class AgileReviewPreferencePage extends FieldEditorPreferencePage impleme
 
 		addField(exportWrapper);
 
+		// Grouping FieldEditor for performance settings
+		BorderedFieldEditor performanceWrapper = new BorderedFieldEditor(getFieldEditorParent(), "Performance");
+		Composite performanceContainer = performanceWrapper.getContainer();
+
+		IntegerFieldEditor integerLoaderThreads = new IntegerFieldEditor(PropertiesManager.EXTERNAL_KEYS.LOADER_THREADS,
+				"Threads for loading review files:", performanceContainer);
+		integerLoaderThreads.setValidRange(1, 64);
+		performanceWrapper.addField(integerLoaderThreads);
+
+		BooleanFieldEditor booleanJournalEnabled = new BooleanFieldEditor(PropertiesManager.EXTERNAL_KEYS.JOURNAL_ENABLED,
+				"Journal comment changes instead of rewriting the whole author file", performanceContainer);
+		performanceWrapper.addField(booleanJournalEnabled);
+
+		IntegerFieldEditor integerSaveDelay = new IntegerFieldEditor(PropertiesManager.EXTERNAL_KEYS.SAVE_DELAY,
+				"Delay for coalescing saves (ms, 0 = save immediately):", performanceContainer);
+		integerSaveDelay.setValidRange(0, 10000);
+		performanceWrapper.addField(integerSaveDelay);
+
+		// the backend is replaced when the review source project is loaded the next time
+		ComboFieldEditor comboStorageBackend = new ComboFieldEditor(PropertiesManager.EXTERNAL_KEYS.STORAGE_BACKEND,
+				"Comment storage (applied on next load of the source project):", new String[][] {
+						{ "XML files (one per author and review)", PropertiesManager.STORAGE_BACKEND_XML },
+						{ "Embedded database", PropertiesManager.STORAGE_BACKEND_EMBEDDED } }, performanceContainer);
+		performanceWrapper.addField(comboStorageBackend);
+		addField(performanceWrapper);
+
 		// donate button
 		addField(new LinkField(getFieldEditorParent(), pm.getIcon(PropertiesManager.INTERNAL_KEYS.ICONS.DONATE),
 				pm.getInternalProperty(PropertiesManager.INTERNAL_KEYS.URL_DONATIONS)));
@@ -29,6 +29,12 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		store.setDefault(PropertiesManager.EXTERNAL_KEYS.CLEANUP_DELETE_COMMENTS, true);
 		store.setDefault(PropertiesManager.EXTERNAL_KEYS.CLEANUP_ONLY_CLOSED_COMMENTS, false);
 
+		// performance settings
+		store.setDefault(PropertiesManager.EXTERNAL_KEYS.LOADER_THREADS, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		store.setDefault(PropertiesManager.EXTERNAL_KEYS.JOURNAL_ENABLED, false);
+		store.setDefault(PropertiesManager.EXTERNAL_KEYS.SAVE_DELAY, 500);
+		store.setDefault(PropertiesManager.EXTERNAL_KEYS.STORAGE_BACKEND, PropertiesManager.STORAGE_BACKEND_XML);
+
 		// initial color value and transferation of the color to the other
 		// preference
 		store.setDefault(PropertiesManager.EXTERNAL_KEYS.ANNOTATION_COLOR_ENABLED,
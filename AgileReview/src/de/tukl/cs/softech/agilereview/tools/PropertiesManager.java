@@ -242,9 +242,38 @@ public class PropertiesManager implements IInputValidator {
 		 * if none exists.
 		 */
 		public static String DO_NOT_ASK_FOR_REVIEW_FOLDER = "do_not_ask_for_review_folder";
+		/**
+		 * Number of threads used for parsing the review and comment files
+		 * while loading (1 = sequential loading)
+		 */
+		public static String LOADER_THREADS = "loaderThreads";
+		/**
+		 * Indicates whether changes of comments should be appended to a
+		 * journal instead of rewriting the whole author file
+		 */
+		public static String JOURNAL_ENABLED = "journalEnabled";
+		/**
+		 * Delay in milliseconds within which saves of the same file are
+		 * coalesced (0 = save immediately)
+		 */
+		public static String SAVE_DELAY = "saveDelay";
+		/**
+		 * Storage backend of the comments ({@link PropertiesManager#STORAGE_BACKEND_XML}
+		 * or {@link PropertiesManager#STORAGE_BACKEND_EMBEDDED})
+		 */
+		public static String STORAGE_BACKEND = "storageBackend";
 
 	}
 
+	/**
+	 * Storage backend: one xml file per author per review
+	 */
+	public static final String STORAGE_BACKEND_XML = "xml";
+	/**
+	 * Storage backend: embedded database file in the review source project
+	 */
+	public static final String STORAGE_BACKEND_EMBEDDED = "embedded";
+
 	/**
 	 * unique instance of the PropertiesManager
 	 */
@@ -17,6 +17,7 @@ import org.eclipse.ui.ISelectionListener;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.WorkbenchException;
@@ -53,6 +54,10 @@ public class ViewControl implements ISelectionChangedListener, IPartListener2, I
      * Public static field representing all existing views of this plugin
      */
     public static final int ALL_VIEWS = 7;
+    /**
+     * Delay (in ms) after which UI operations waiting for the workbench window are retried
+     */
+    private static final int RETRY_DELAY = 100;
     
     /**
      * Set of all active Views
@@ -86,12 +91,10 @@ public class ViewControl implements ISelectionChangedListener, IPartListener2, I
         Display.getDefault().asyncExec(new Runnable() {
             @Override
             public void run() {
-                //wait until the active page is created, then register all listeners
-                while (PlatformUI.getWorkbench() == null) {
-                }
-                while (PlatformUI.getWorkbench().getActiveWorkbenchWindow() == null) {
-                }
-                while (PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage() == null) {
+                //wait until the active page is created (without blocking the UI thread), then register all listeners
+                if (getActivePage() == null) {
+                    Display.getDefault().timerExec(RETRY_DELAY, this);
+                    return;
                 }
                 PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().addPartListener(ViewControl.this);
                 // PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().addSelectionListener(ViewControl.this);
@@ -116,6 +119,16 @@ public class ViewControl implements ISelectionChangedListener, IPartListener2, I
         });
     }
     
+    /**
+     * Returns the active page of the active workbench window without waiting for it
+     * @return the active page or <i>null</i> if the workbench, its active window or its active page is not available (yet)
+     */
+    public static IWorkbenchPage getActivePage() {
+        if (!PlatformUI.isWorkbenchRunning()) { return null; }
+        IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+        return window == null ? null : window.getActivePage();
+    }
+    
     /**
      * Registers a new {@link ViewPart} for the plugin
      * @param c Class of the {@link ViewPart} to register
@@ -232,9 +245,9 @@ public class ViewControl implements ISelectionChangedListener, IPartListener2, I
             
             @Override
             public void run() {
-                while (PlatformUI.getWorkbench() == null) {
-                }
-                while (PlatformUI.getWorkbench().getActiveWorkbenchWindow() == null) {
+                if (!PlatformUI.isWorkbenchRunning() || PlatformUI.getWorkbench().getActiveWorkbenchWindow() == null) {
+                    PluginLogger.logWarning(ViewControl.class.toString(), "switchPerspective", "No active workbench window");
+                    return;
                 }
                 try {
                     PlatformUI.getWorkbench().showPerspective("de.tukl.cs.softech.agilereview.view.AgileReviewPerspective",
@@ -255,11 +268,12 @@ public class ViewControl implements ISelectionChangedListener, IPartListener2, I
             
             @Override
             public void run() {
-                while (PlatformUI.getWorkbench().getActiveWorkbenchWindow() == null) {
-                }
-                while (PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage() == null) {
+                IWorkbenchPage page = getActivePage();
+                if (page == null) {
+                    // try again as soon as the workbench window is ready
+                    Display.getDefault().timerExec(RETRY_DELAY, this);
+                    return;
                 }
-                IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
                 
                 if (views % 2 == 1) {
                     if (isOpen(DetailView.class)) {
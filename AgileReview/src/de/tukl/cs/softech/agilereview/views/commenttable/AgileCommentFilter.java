@@ -1,16 +1,24 @@
 package de.tukl.cs.softech.agilereview.views.commenttable;
 
-import java.util.regex.Pattern;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
+import de.tukl.cs.softech.agilereview.dataaccess.CommentTextIndex;
+import de.tukl.cs.softech.agilereview.dataaccess.CommentValue;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
 
 /**
- * Filters comments by a given searchword (and a given category)
+ * Filters comments by a given searchword (and a given category). The text fields (review id, author, recipient, description, replies and location)
+ * are searched via the full-text index of the {@link ReviewAccess} (substrings, phrases and exact phrases in double quotes), all other fields are
+ * matched as substrings. All fields are matched case insensitive.
  */
 public class AgileCommentFilter extends ViewerFilter {
     
@@ -18,10 +26,26 @@ public class AgileCommentFilter extends ViewerFilter {
      * searchword by which comments should be filtered
      */
     private String searchString;
+    /**
+     * Lower case searchword for matching the fields, which are not indexed
+     */
+    private String lowerSearchString;
     /**
      * Category to be searched ('ALL' or the category's name)
      */
     private final String restriction;
+    /**
+     * Indexed fields to be searched for the category
+     */
+    private final Set<CommentTextIndex.Field> indexedFields;
+    /**
+     * Comments matching the search word in the indexed fields or <i>null</i> if not yet searched
+     */
+    private Set<Comment> indexMatches;
+    /**
+     * Whether the search word cannot be searched via the index (as it does not contain any token)
+     */
+    private boolean substringSearch;
     
     /**
      * Constructor of the filter, used to set initial restrictions on category
@@ -29,15 +53,61 @@ public class AgileCommentFilter extends ViewerFilter {
      */
     public AgileCommentFilter(String restriction) {
         this.restriction = restriction;
+        if (restriction.equals("ALL")) {
+            this.indexedFields = EnumSet.allOf(CommentTextIndex.Field.class);
+        } else if (restriction.equals("ReviewID")) {
+            this.indexedFields = EnumSet.of(CommentTextIndex.Field.REVIEW_ID);
+        } else if (restriction.equals("Author")) {
+            this.indexedFields = EnumSet.of(CommentTextIndex.Field.AUTHOR);
+        } else if (restriction.equals("Description")) {
+            this.indexedFields = EnumSet.of(CommentTextIndex.Field.TEXT);
+        } else if (restriction.equals("Recipient")) {
+            this.indexedFields = EnumSet.of(CommentTextIndex.Field.RECIPIENT);
+        } else if (restriction.equals("Location")) {
+            this.indexedFields = EnumSet.of(CommentTextIndex.Field.PATH);
+        } else {
+            this.indexedFields = EnumSet.noneOf(CommentTextIndex.Field.class);
+        }
     }
     
     /**
-     * Append wildcards to search string
+     * Sets the search word
      * @param s
      */
     public void setSearchText(String s) {
-        // Search must be a substring of the existing value
-        this.searchString = ".*" + Pattern.quote(s) + ".*";
+        this.searchString = s;
+        this.lowerSearchString = s == null ? null : s.toLowerCase();
+        this.indexMatches = null;
+    }
+    
+    /**
+     * Queries the index once for all given elements, as the comments might have been changed since the last filtering
+     * @see org.eclipse.jface.viewers.ViewerFilter#filter(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object[])
+     */
+    @Override
+    public Object[] filter(Viewer viewer, Object parent, Object[] elements) {
+        this.indexMatches = null;
+        return super.filter(viewer, parent, elements);
+    }
+    
+    /**
+     * Searches the indexed fields for the current search word (if not done yet)
+     */
+    private void searchIndex() {
+        if (this.indexMatches != null) { return; }
+        Set<Comment> matches = this.indexedFields.isEmpty() ? null : ReviewAccess.getInstance().searchComments(this.searchString, this.indexedFields);
+        this.substringSearch = matches == null && !this.indexedFields.isEmpty();
+        this.indexMatches = matches == null ? Collections.<Comment> emptySet() : matches;
+    }
+    
+    /**
+     * Checks whether the given value contains the search word (ignoring case) and the given category is searched
+     * @param value value of a field
+     * @param category category of the field
+     * @return <i>true</i> if the field matches, <i>false</i> otherwise
+     */
+    private boolean matches(String value, String category) {
+        return (restriction.equals("ALL") || restriction.equals(category)) && value != null && value.toLowerCase().contains(lowerSearchString);
     }
     
     /* (non-Javadoc)
@@ -45,66 +115,31 @@ public class AgileCommentFilter extends ViewerFilter {
      */
     @Override
     public boolean select(Viewer viewer, Object parentElement, Object element) {
-        boolean matches = false;
-        if (searchString == null || searchString.length() == 0) {
-            matches = true;
-        } else {
-            Comment c = (Comment) element;
-            // match in ReviewID and category ALL or ReviewID
-            if (c.getReviewID().matches(searchString) && (restriction.equals("ALL") || restriction.equals("ReviewID"))) {
-                matches = true;
-            }
-            // match in CommentID and category ALL or CommentID
-            if (c.getId().matches(searchString) && (restriction.equals("ALL") || restriction.equals("CommentID"))) {
-                matches = true;
-            }
-            // match in Author and category ALL or Author
-            if (c.getAuthor().matches(searchString) && (restriction.equals("ALL") || restriction.equals("Author"))) {
-                matches = true;
-            }
-            // match in Description and category ALL or Description
-            if (c.getText().matches(searchString) && (restriction.equals("ALL") || restriction.equals("Description"))) {
-                matches = true;
-            }
-            // match in Recipient and category ALL or Recipient
-            if (c.getRecipient().matches(searchString) && (restriction.equals("ALL") || restriction.equals("Recipient"))) {
-                matches = true;
-            }
-            // match in Status and category ALL or Status
-            if (PropertiesManager.getInstance().getCommentStatusByID(c.getStatus()).matches(searchString)
-                    && (restriction.equals("ALL") || restriction.equals("Status"))) {
-                matches = true;
-            }
-            // match in Priority and category ALL or Priority
-            if (PropertiesManager.getInstance().getCommentPriorityByID(c.getPriority()).matches(searchString)
-                    && (restriction.equals("ALL") || restriction.equals("Priority"))) {
-                matches = true;
-            }
-            // match in Revision and category ALL or Revision
-            if (String.valueOf(c.getRevision()).matches(searchString) && (restriction.equals("ALL") || restriction.equals("Revision"))) {
-                matches = true;
-            }
-            // match in CreationDate and category ALL or 'Date created'
-            if (c.getCreationDate().toString().matches(searchString) && (restriction.equals("ALL") || restriction.equals("Date created"))) {
-                matches = true;
-            }
-            // match in LastModified and category ALL or 'Date modified'
-            if (c.getLastModified().toString().matches(searchString) && (restriction.equals("ALL") || restriction.equals("Date modified"))) {
-                matches = true;
-            }
-            // match in # of replies and category ALL or Replies
-            if (String.valueOf(c.getReplies().getReplyArray().length).matches(searchString)
-                    && (restriction.equals("ALL") || restriction.equals("Replies"))) {
-                matches = true;
-            }
-            // match in Path and category ALL or Location
-            if (ReviewAccess.computePath(c).matches(searchString) && (restriction.equals("ALL") || restriction.equals("Location"))) {
-                matches = true;
-            }
-            
-        }
+        if (searchString == null || searchString.length() == 0) { return true; }
+        searchIndex();
+        if (indexMatches.contains(element)) { return true; }
         
-        return matches;
+        CommentValue c = ReviewAccess.getInstance().getValue((Comment) element);
+        if (substringSearch) {
+            // the search word only consists of separators, which are not indexed
+            if (matches(c.getReviewId(), "ReviewID") || matches(c.getAuthor(), "Author") || matches(c.getText(), "Description")
+                    || matches(c.getRecipient(), "Recipient") || matches(c.getPath(), "Location")) { return true; }
+        }
+        PropertiesManager pm = PropertiesManager.getInstance();
+        return matches(c.getId(), "CommentID") || matches(pm.getCommentStatusByID(c.getStatus()), "Status")
+                || matches(pm.getCommentPriorityByID(c.getPriority()), "Priority") || matches(String.valueOf(c.getRevision()), "Revision")
+                || matches(formatDate(c.getCreationDate()), "Date created") || matches(formatDate(c.getLastModified()), "Date modified")
+                || matches(String.valueOf(c.getReplyCount()), "Replies");
+    }
+    
+    /**
+     * Formats the given date as shown in the comment table
+     * @param millis milliseconds since the epoch (or a negative value if not set)
+     * @return the formatted date or an empty string if no date is given
+     */
+    private static String formatDate(long millis) {
+        if (millis < 0) { return ""; }
+        return new SimpleDateFormat("dd.M.yyyy', 'HH:mm:ss").format(new Date(millis));
     }
     
 }
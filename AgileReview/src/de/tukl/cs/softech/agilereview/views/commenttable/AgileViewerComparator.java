@@ -7,6 +7,7 @@ import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerComparator;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
+import de.tukl.cs.softech.agilereview.dataaccess.CommentValue;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
 
 /**
@@ -55,15 +56,15 @@ public class AgileViewerComparator extends ViewerComparator {
      */
     @Override
     public int compare(Viewer viewer, Object e1, Object e2) {
-        Comment c1 = (Comment) e1;
-        Comment c2 = (Comment) e2;
+        CommentValue c1 = ReviewAccess.getInstance().getValue((Comment) e1);
+        CommentValue c2 = ReviewAccess.getInstance().getValue((Comment) e2);
         int rc = 0;
         // a value < 0 is returned if c1<c2
         // a value = 0 is returned if c1=c2
         // a value > 0 is returned if c1>c2
         switch (propertyIndex) {
         case 0:
-            rc = c1.getReviewID().compareTo(c2.getReviewID());
+            rc = c1.getReviewId().compareTo(c2.getReviewId());
             break;
         case 1:
             rc = c1.getId().compareTo(c2.getId());
@@ -84,17 +85,16 @@ public class AgileViewerComparator extends ViewerComparator {
             rc = c1.getRevision() == c2.getRevision() ? 0 : (c1.getRevision() < c2.getRevision() ? -1 : 1);
             break;
         case 7:
-            rc = c1.getCreationDate().compareTo(c2.getCreationDate());
+            rc = c1.getCreationDate() == c2.getCreationDate() ? 0 : (c1.getCreationDate() < c2.getCreationDate() ? -1 : 1);
             break;
         case 8:
-            rc = c1.getLastModified().compareTo(c2.getLastModified());
+            rc = c1.getLastModified() == c2.getLastModified() ? 0 : (c1.getLastModified() < c2.getLastModified() ? -1 : 1);
             break;
         case 9:
-            rc = c1.getReplies().getReplyArray().length == c2.getReplies().getReplyArray().length ? 0 : (c1.getReplies().getReplyArray().length < c2
-                    .getReplies().getReplyArray().length ? -1 : 1);
+            rc = c1.getReplyCount() == c2.getReplyCount() ? 0 : (c1.getReplyCount() < c2.getReplyCount() ? -1 : 1);
             break;
         case 10:
-            rc = ReviewAccess.computePath(c1).compareTo(ReviewAccess.computePath(c2));
+            rc = c1.getPath().compareTo(c2.getPath());
             break;
         default:
             rc = 0;
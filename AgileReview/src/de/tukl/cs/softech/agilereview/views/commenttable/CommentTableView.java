@@ -3,9 +3,14 @@ package de.tukl.cs.softech.agilereview.views.commenttable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.commands.Command;
 import org.eclipse.core.resources.IFile;
@@ -58,6 +63,7 @@ import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.commands.ICommandService;
 import org.eclipse.ui.part.FileEditorInput;
 import org.eclipse.ui.part.ViewPart;
+import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
 import de.tukl.cs.softech.agilereview.Activator;
@@ -65,7 +71,13 @@ import de.tukl.cs.softech.agilereview.annotations.AnnotationParser;
 import de.tukl.cs.softech.agilereview.annotations.IAnnotationParser;
 import de.tukl.cs.softech.agilereview.annotations.ParserFactory;
 import de.tukl.cs.softech.agilereview.annotations.TagCleaner;
+import de.tukl.cs.softech.agilereview.dataaccess.CommentSnapshot;
+import de.tukl.cs.softech.agilereview.dataaccess.CommentValue;
+import de.tukl.cs.softech.agilereview.dataaccess.IModelChangeListener;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEvent;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEventBus;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewLoadJob;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
 import de.tukl.cs.softech.agilereview.views.ViewControl;
@@ -76,7 +88,7 @@ import de.tukl.cs.softech.agilereview.views.reviewexplorer.wrapper.MultipleRevie
 /**
  * Used to provide an overview for review comments using a table
  */
-public class CommentTableView extends ViewPart implements IDoubleClickListener {
+public class CommentTableView extends ViewPart implements IDoubleClickListener, IModelChangeListener {
     
     /**
      * Current Instance used by the ViewPart
@@ -91,9 +103,13 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
      */
     private final PropertiesManager pm = PropertiesManager.getInstance();
     /**
-     * The comments to be displayed (model of TableViewer viewer)
+     * The comments to be displayed (model of TableViewer viewer). The list is never modified, changes replace it by a modified copy.
      */
-    private ArrayList<Comment> comments;
+    private List<Comment> comments;
+    /**
+     * Snapshot of the model the displayed comments have been taken from or <i>null</i> if the comments have been changed since
+     */
+    private CommentSnapshot snapshot;
     /**
      * The view that displays the comments
      */
@@ -146,6 +162,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
      */
     protected void setTableContent(ArrayList<Comment> comments) {
         this.comments = comments;
+        this.snapshot = null;
         viewer.setInput(comments);
         PluginLogger.log(getClass().toString(), "setTableContent", "Set viewer input: " + comments);
         viewer.refresh();
@@ -159,7 +176,10 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
     public void addComment(Comment comment) {
         // add comment to (un)filtered model
         PluginLogger.log(this.getClass().toString(), "addComment", "Adding comment to table content");
-        this.comments.add(comment);
+        ArrayList<Comment> newComments = new ArrayList<Comment>(this.comments);
+        newComments.add(comment);
+        this.comments = newComments;
+        this.snapshot = null;
         
         viewer.setInput(this.comments);
         PluginLogger.log(getClass().toString(), "addComment", "Set viewer input: " + comments);
@@ -187,8 +207,11 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
     public void deleteComment(Comment comment) {
         
         PluginLogger.log(this.getClass().toString(), "deleteComment", "Deleting a comment from table content");
-        // add comment to (un)filtered model
-        this.comments.remove(comment);
+        // remove comment from (un)filtered model
+        ArrayList<Comment> newComments = new ArrayList<Comment>(this.comments);
+        newComments.remove(comment);
+        this.comments = newComments;
+        this.snapshot = null;
         viewer.setInput(this.comments);
         PluginLogger.log(getClass().toString(), "deleteComment", "Set viewer input: " + comments);
         
@@ -220,13 +243,93 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
      * Resets the comments (reloading from model)
      */
     public void resetComments() {
+        CommentSnapshot current = ra.getCommentSnapshot();
+        if (current == this.snapshot) {
+            PluginLogger.log(this.getClass().toString(), "resetComments", "Model unchanged since version " + current.getVersion());
+            return;
+        }
         PluginLogger.log(this.getClass().toString(), "resetComments", "Reloading comments from model");
-        this.comments = ra.getAllComments();
+        this.snapshot = current;
+        this.comments = current.getComments();
         this.viewer.setInput(this.comments);
         PluginLogger.log(getClass().toString(), "resetComments", "Set viewer input: " + comments);
         this.refreshTable();
     }
     
+    /**
+     * Patches the table content according to the given model changes instead of reloading all comments
+     * @param events changes of the model
+     * @see de.tukl.cs.softech.agilereview.dataaccess.IModelChangeListener#modelChanged(java.util.List)
+     */
+    @Override
+    public void modelChanged(List<ModelEvent> events) {
+        if (viewer == null || viewer.getControl().isDisposed()) { return; }
+        Set<Comment> current = Collections.newSetFromMap(new IdentityHashMap<Comment, Boolean>());
+        current.addAll(this.comments);
+        ArrayList<Comment> added = new ArrayList<Comment>();
+        ArrayList<Comment> changed = new ArrayList<Comment>();
+        boolean structureChanged = false, pathsMoved = false;
+        for (ModelEvent e : events) {
+            switch (e.getType()) {
+            case COMMENT_ADDED:
+                // the comment might already have been added by the caller or deleted again in the meantime
+                if (ra.getComment(e.getReviewId(), e.getAuthor(), e.getCommentId()) == e.getComment() && current.add(e.getComment())) {
+                    added.add(e.getComment());
+                    structureChanged = true;
+                }
+                break;
+            case COMMENT_REMOVED:
+                structureChanged |= current.remove(e.getComment());
+                break;
+            case COMMENT_CHANGED:
+                changed.add(e.getComment());
+                break;
+            case REVIEW_OPENED:
+                for (Comment c : ra.getComments(e.getReviewId())) {
+                    if (current.add(c)) {
+                        added.add(c);
+                        structureChanged = true;
+                    }
+                }
+                break;
+            case REVIEW_CLOSED:
+                for (Iterator<Comment> it = current.iterator(); it.hasNext();) {
+                    if (e.getReviewId().equals(it.next().getReviewID())) {
+                        it.remove();
+                        structureChanged = true;
+                    }
+                }
+                break;
+            case PATH_MOVED:
+                pathsMoved = true;
+                break;
+            }
+        }
+        
+        if (structureChanged) {
+            PluginLogger.log(this.getClass().toString(), "modelChanged", "Patching table content with " + events.size() + " model events");
+            ArrayList<Comment> newComments = new ArrayList<Comment>(current.size());
+            for (Comment c : this.comments) {
+                if (current.contains(c)) {
+                    newComments.add(c);
+                }
+            }
+            for (Comment c : added) {
+                if (current.contains(c)) {
+                    newComments.add(c);
+                }
+            }
+            this.comments = newComments;
+            this.snapshot = null;
+            this.viewer.setInput(this.comments);
+            this.refreshTable();
+        } else if (pathsMoved) {
+            this.refreshTable();
+        } else if (!changed.isEmpty()) {
+            this.viewer.update(changed.toArray(), null);
+        }
+    }
+    
     /**
      * Filter comments based on the viewers filter
      */
@@ -257,7 +360,8 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         PluginLogger.log(this.getClass().toString(), "createPartControl", "CommentTableView will be created");
         instance = this;
         // get comments from CommentController
-        this.comments = ra.getAllComments();
+        this.snapshot = ra.getCommentSnapshot();
+        this.comments = this.snapshot.getComments();
         
         // set layout of parent
         GridLayout layout = new GridLayout(layoutCols, false);
@@ -278,6 +382,9 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         
         // register view
         ViewControl.registerView(this.getClass());
+        ModelEventBus.addListener(this);
+        // show loading state while the source project is loaded, comments will be added as their reviews are loaded
+        ((IWorkbenchSiteProgressService) getSite().getService(IWorkbenchSiteProgressService.class)).showBusyForFamily(ReviewLoadJob.FAMILY);
         
         // get editor that is active when opening eclipse
         if (getActiveEditor() instanceof IEditorPart) {
@@ -399,7 +506,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
             private final ViewerFilter openFilter = new ViewerFilter() {
                 @Override
                 public boolean select(Viewer viewer, Object parentElement, Object element) {
-                    return ((Comment) element).getStatus() == filterStatusNumber; // XXX Hack
+                    return ra.getValue((Comment) element).getStatus() == filterStatusNumber; // XXX Hack
                 }
             };
             
@@ -441,8 +548,8 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
-                return c.getReviewID();
+                CommentValue c = ra.getValue((Comment) element);
+                return c.getReviewId();
             }
         });
         
@@ -451,7 +558,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 return c.getId();
             }
         });
@@ -461,7 +568,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 return c.getAuthor();
             }
         });
@@ -471,7 +578,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 return c.getRecipient();
             }
         });
@@ -481,7 +588,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 String status = pm.getCommentStatusByID(c.getStatus());
                 return status;
             }
@@ -492,7 +599,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 String prio = pm.getCommentPriorityByID(c.getPriority());
                 return prio;
             }
@@ -503,9 +610,9 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 DateFormat df = new SimpleDateFormat("dd.M.yyyy', 'HH:mm:ss");
-                return df.format(c.getCreationDate().getTime());
+                return df.format(new Date(c.getCreationDate()));
             }
         });
         
@@ -514,10 +621,10 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
-                if (c.getLastModified() == null) return "";
+                CommentValue c = ra.getValue((Comment) element);
+                if (c.getLastModified() < 0) return "";
                 DateFormat df = new SimpleDateFormat("dd.M.yyyy', 'HH:mm:ss");
-                return df.format(c.getLastModified().getTime());
+                return df.format(new Date(c.getLastModified()));
             }
         });
         
@@ -526,8 +633,8 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
-                return String.valueOf(c.getReplies().getReplyArray().length);
+                CommentValue c = ra.getValue((Comment) element);
+                return String.valueOf(c.getReplyCount());
             }
         });
         
@@ -536,8 +643,8 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
-                return ReviewAccess.computePath(c);
+                CommentValue c = ra.getValue((Comment) element);
+                return c.getPath();
             }
         });
         
@@ -546,7 +653,7 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
         col.setLabelProvider(new ColumnLabelProvider() {
             @Override
             public String getText(Object element) {
-                Comment c = (Comment) element;
+                CommentValue c = ra.getValue((Comment) element);
                 return c.getText();
             }
         });
@@ -942,6 +1049,16 @@ public class CommentTableView extends ViewPart implements IDoubleClickListener {
     public void setFocus() { /* Do nothing */
     }
     
+    /*
+     * (non-Javadoc)
+     * @see org.eclipse.ui.part.WorkbenchPart#dispose()
+     */
+    @Override
+    public void dispose() {
+        ModelEventBus.removeListener(this);
+        super.dispose();
+    }
+    
     /**
      * Adds the selection filter of the viewer
      */
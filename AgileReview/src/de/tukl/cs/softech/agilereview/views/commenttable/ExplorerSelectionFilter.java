@@ -9,6 +9,7 @@ import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
+import de.tukl.cs.softech.agilereview.dataaccess.CommentValue;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
 
 /**
@@ -44,17 +45,17 @@ public class ExplorerSelectionFilter extends ViewerFilter {
         if (reviewIDs == null || paths == null || (reviewIDs.isEmpty() && paths.isEmpty())) {
             matches = true;
         } else {
-            Comment comment = (Comment) element;
+            CommentValue comment = ReviewAccess.getInstance().getValue((Comment) element);
             
-            if (reviewIDs.contains(comment.getReviewID())) {
+            if (reviewIDs.contains(comment.getReviewId())) {
                 matches = true;
             }
             
-            HashSet<String> containedPaths = paths.get(comment.getReviewID());
+            HashSet<String> containedPaths = paths.get(comment.getReviewId());
             if (!(containedPaths == null)) {
                 for (String path : containedPaths) {
                     String pathMatcher = ".*" + Pattern.quote(path) + ".*";
-                    if (ReviewAccess.computePath(comment).matches(pathMatcher)) {
+                    if (comment.getPath().matches(pathMatcher)) {
                         matches = true;
                     }
                 }
@@ -6,6 +6,9 @@ import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.wizard.WizardDialog;
 import org.eclipse.swt.widgets.Display;
@@ -39,8 +42,8 @@ public class AddNewCommentHandler extends AbstractHandler {
         }
         
         PluginLogger.log(this.getClass().toString(), "execute", "Command \"Add new Comment\" triggered");
-        ReviewAccess ra = ReviewAccess.getInstance();
-        String activeReview = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
+        final ReviewAccess ra = ReviewAccess.getInstance();
+        final String activeReview = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW);
         if (!activeReview.isEmpty()) {
             String pathToFile = "";
             
@@ -65,19 +68,31 @@ public class AddNewCommentHandler extends AbstractHandler {
             			return null;
                     }
                 }
-                String user = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.AUTHOR_NAME);
+                final String user = PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.AUTHOR_NAME);
+                final String path = pathToFile;
                 try {
-                    Comment newComment = ra.createNewComment(activeReview, user, pathToFile);
-                    // TODO Hiervon noch was auslagern (Parser, etc)
-                    if (ViewControl.isOpen(CommentTableView.class)) {
-                        CommentTableView.getInstance().addComment(newComment);
-                    }
-                    // Save the new comment & Refresh the Review Explorer
-                    ra.save(newComment);
+                    // create the (author file of the) comment and save it in one workspace operation
+                    ReviewAccess.runInSourceProject(new IWorkspaceRunnable() {
+                        @Override
+                        public void run(IProgressMonitor monitor) {
+                            try {
+                                Comment newComment = ra.createNewComment(activeReview, user, path);
+                                // TODO Hiervon noch was auslagern (Parser, etc)
+                                if (ViewControl.isOpen(CommentTableView.class)) {
+                                    CommentTableView.getInstance().addComment(newComment);
+                                }
+                                // Save the new comment
+                                ra.save(newComment);
+                            } catch (NoReviewSourceFolderException e) {
+                                ExceptionHandler.handleNoReviewSourceFolderException();
+                            }
+                        }
+                    });
+                } catch (CoreException e) {
+                    PluginLogger.logError(this.getClass().toString(), "execute", "CoreException while creating a new comment", e);
                 } catch (NoReviewSourceFolderException e) {
                     ExceptionHandler.handleNoReviewSourceFolderException();
                 }
-                ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER);
             } else {
                 // no open editor
                 MessageDialog.openWarning(HandlerUtil.getActiveShell(event), "Warning: No open file",
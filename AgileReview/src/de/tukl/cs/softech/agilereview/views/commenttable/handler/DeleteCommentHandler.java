@@ -1,10 +1,13 @@
 package de.tukl.cs.softech.agilereview.views.commenttable.handler;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -33,23 +36,25 @@ public class DeleteCommentHandler extends AbstractHandler {
                 IStructuredSelection structSel = (IStructuredSelection) sel;
                 if (!MessageDialog.openConfirm(HandlerUtil.getActiveShell(event), "Comments Summary - Delete",
                         "Are you sure you want to delete the comments currently selected in the Comment Summary?")) { return null; }
+                ArrayList<Comment> comments = new ArrayList<Comment>();
                 for (Object o : structSel.toArray()) {
                     if (o instanceof Comment) {
                         Comment c = (Comment) o;
                         if (ViewControl.isOpen(CommentTableView.class)) {
                             CommentTableView.getInstance().deleteComment(c);
                         }
-                        try {
-                            ReviewAccess.getInstance().deleteComment(c);
-                        } catch (IOException e) {
-                            PluginLogger.logError(this.getClass().toString(), "execute",
-                                    "IOException occured while deleting a comment in ReviewAccess: " + c, e);
-                        } catch (NoReviewSourceFolderException e) {
-                            ExceptionHandler.handleNoReviewSourceFolderException();
-                        }
-                        // Refresh the Review Explorer
-                        ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER);
+                        comments.add(c);
+                    }
+                }
+                // delete all selected comments in one batch, so each author file is only written once
+                try {
+                    Map<IFile, Exception> failures = ReviewAccess.getInstance().deleteComments(comments);
+                    for (Entry<IFile, Exception> e : failures.entrySet()) {
+                        PluginLogger.logError(this.getClass().toString(), "execute", "Exception occured while deleting comments of file "
+                                + e.getKey(), e.getValue());
                     }
+                } catch (NoReviewSourceFolderException e) {
+                    ExceptionHandler.handleNoReviewSourceFolderException();
                 }
             }
         }
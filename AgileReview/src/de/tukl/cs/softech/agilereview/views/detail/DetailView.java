@@ -2,6 +2,7 @@ package de.tukl.cs.softech.agilereview.views.detail;
 
 import java.io.IOException;
 import java.util.Calendar;
+import java.util.List;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
@@ -15,7 +16,11 @@ import org.eclipse.ui.part.ViewPart;
 import org.eclipse.ui.services.ISourceProviderService;
 
 import agileReview.softech.tukl.de.CommentDocument.Comment;
+import agileReview.softech.tukl.de.ReviewDocument.Review;
 import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.dataaccess.IModelChangeListener;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEvent;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEventBus;
 import de.tukl.cs.softech.agilereview.plugincontrol.SourceProvider;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 import de.tukl.cs.softech.agilereview.views.ViewControl;
@@ -26,7 +31,7 @@ import de.tukl.cs.softech.agilereview.views.reviewexplorer.wrapper.MultipleRevie
 /**
  * The DetailView class manages the different UIs which can occur in the detail view
  */
-public class DetailView extends ViewPart {
+public class DetailView extends ViewPart implements IModelChangeListener {
     
     /**
      * Static Field describing an empty view
@@ -232,6 +237,49 @@ public class DetailView extends ViewPart {
         
         // register view
         ViewControl.registerView(this.getClass());
+        ModelEventBus.addListener(this);
+    }
+    
+    /*
+     * (non-Javadoc)
+     * @see org.eclipse.ui.part.WorkbenchPart#dispose()
+     */
+    @Override
+    public void dispose() {
+        ModelEventBus.removeListener(this);
+        super.dispose();
+    }
+    
+    /**
+     * Clears the view if the shown comment has been removed or its review has been closed, updates the statistics of a shown review if its
+     * comments have been changed
+     * @param events changes of the model
+     * @see de.tukl.cs.softech.agilereview.dataaccess.IModelChangeListener#modelChanged(java.util.List)
+     */
+    @Override
+    public void modelChanged(List<ModelEvent> events) {
+        if (this.currentParent == null || this.currentParent.isDisposed()) { return; }
+        if (this.currentParent instanceof ReviewDetail && getContent() instanceof Review) {
+            // keep the comment statistics of the shown review up to date
+            String reviewId = ((Review) getContent()).getId();
+            for (ModelEvent e : events) {
+                if (reviewId.equals(e.getReviewId())) {
+                    ((ReviewDetail) this.currentParent).refreshStatistics();
+                    return;
+                }
+            }
+            return;
+        }
+        if (!(getContent() instanceof Comment)) { return; }
+        Comment shown = (Comment) getContent();
+        for (ModelEvent e : events) {
+            if ((e.getType() == ModelEvent.Type.COMMENT_REMOVED && e.getComment() == shown)
+                    || (e.getType() == ModelEvent.Type.REVIEW_CLOSED && e.getReviewId().equals(shown.getReviewID()))) {
+                PluginLogger.log(this.getClass().toString(), "modelChanged", "Shown comment is no longer available: " + e);
+                clearView();
+                return;
+            }
+        }
     }
     
     /*
@@ -129,14 +129,12 @@ public class RelocateDialog extends Composite implements Listener {
                                 newComment.setRevision(oldComment.getRevision());
                                 newComment.setReplies(oldComment.getReplies());
                                 newComment.setText(oldComment.getText());
+                                ra.save(newComment);
                                 ctv.addComment(newComment);
                                 
                                 //delete old comment
                                 ra.deleteComment(oldComment);
                                 ctv.deleteComment(oldComment);
-                                
-                                //refresh views
-                                ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER | ViewControl.COMMMENT_TABLE_VIEW, true);
                                 ctv.selectComment(newComment);
                             } catch (NoReviewSourceFolderException e) {
                                 ExceptionHandler.handleNoReviewSourceFolderException();
@@ -2,7 +2,13 @@ package de.tukl.cs.softech.agilereview.views.detail;
 
 import java.awt.Desktop;
 import java.net.URI;
+import java.util.HashMap;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
@@ -14,6 +20,7 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Sash;
 import org.eclipse.swt.widgets.Text;
@@ -21,6 +28,8 @@ import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.services.ISourceProviderService;
 
 import agileReview.softech.tukl.de.ReviewDocument.Review;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewStatistics;
 import de.tukl.cs.softech.agilereview.plugincontrol.SourceProvider;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
@@ -43,6 +52,14 @@ public class ReviewDetail extends AbstractDetail<Review> implements SelectionLis
      * ComboBox to provide a choice for the Review status
      */
     private Combo statusDropDown;
+    /**
+     * Label to show the comment statistics of the Review
+     */
+    private Text statisticsInstance;
+    /**
+     * Cached statistics texts of closed Reviews, by review id
+     */
+    private static final HashMap<String, ClosedStatistics> CLOSED_STATISTICS = new HashMap<String, ClosedStatistics>();
     /**
      * TextBox to represent the Comment description in a modifiable way
      */
@@ -134,6 +151,18 @@ public class ReviewDetail extends AbstractDetail<Review> implements SelectionLis
         statusDropDown.addModifyListener(this);
         super.bgComponents.add(statusDropDown);
         
+        Label statistics = new Label(this, SWT.PUSH);
+        statistics.setText("Comments: ");
+        super.bgComponents.add(statistics);
+        
+        statisticsInstance = new Text(this, SWT.WRAP);
+        gridData = new GridData();
+        gridData.horizontalAlignment = GridData.FILL;
+        gridData.horizontalSpan = numColumns - 1;
+        statisticsInstance.setLayoutData(gridData);
+        statisticsInstance.setEditable(false);
+        super.bgComponents.add(statisticsInstance);
+        
         Sash sash = new Sash(this, SWT.PUSH);
         sash.setVisible(false);
         
@@ -247,6 +276,7 @@ public class ReviewDetail extends AbstractDetail<Review> implements SelectionLis
                 this.txt.setText("");
             }
             statusDropDown.select(review.getStatus());
+            refreshStatistics();
         }
         //set revertable to false because it was set from the ModificationListener while inserting inital content
         ISourceProviderService isps = (ISourceProviderService) PlatformUI.getWorkbench().getActiveWorkbenchWindow().getService(
@@ -255,6 +285,100 @@ public class ReviewDetail extends AbstractDetail<Review> implements SelectionLis
         sp.setVariable(SourceProvider.REVERTABLE, false);
     }
     
+    /**
+     * Shows the current comment statistics of the displayed Review. The statistics of closed Reviews are counted in the background and cached
+     * until the stored comments of the Review change.
+     */
+    protected void refreshStatistics() {
+        if (this.editedObject == null || this.statisticsInstance.isDisposed()) { return; }
+        String reviewId = this.editedObject.getId();
+        if (PropertiesManager.getInstance().isReviewOpen(reviewId)) {
+            this.statisticsInstance.setText(formatStatistics(ReviewAccess.getInstance().getStatistics(), reviewId));
+            return;
+        }
+        ReviewAccess ra = ReviewAccess.getInstance();
+        long stamp = ra.getCommentsStamp(reviewId);
+        synchronized (CLOSED_STATISTICS) {
+            ClosedStatistics cached = CLOSED_STATISTICS.get(reviewId);
+            if (cached != null && cached.stamp == stamp && stamp != IResource.NULL_STAMP) {
+                this.statisticsInstance.setText(cached.text);
+                return;
+            }
+        }
+        this.statisticsInstance.setText("counting comments... " + getState(reviewId));
+        computeClosedStatistics(reviewId, stamp);
+    }
+    
+    /**
+     * Counts the stored comments of the given closed Review in a background job. The result is cached and shown if the Review is still displayed
+     * afterwards.
+     * @param reviewId
+     * @param stamp stamp of the stored comments of the Review at the time the counting was requested
+     */
+    private void computeClosedStatistics(final String reviewId, final long stamp) {
+        Job job = new Job("Counting comments of review " + reviewId) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                final String text = getClosedStatistics(reviewId);
+                synchronized (CLOSED_STATISTICS) {
+                    CLOSED_STATISTICS.put(reviewId, new ClosedStatistics(stamp, text));
+                }
+                Display.getDefault().asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (statisticsInstance.isDisposed() || editedObject == null || !reviewId.equals(editedObject.getId())) { return; }
+                        statisticsInstance.setText(text);
+                    }
+                });
+                return Status.OK_STATUS;
+            }
+        };
+        job.setSystem(true);
+        job.schedule();
+    }
+    
+    /**
+     * Creates the statistics text of the given Review
+     * @param stats statistics containing the comments of the Review
+     * @param reviewId
+     * @return the statistics text of the review
+     */
+    private static String formatStatistics(ReviewStatistics stats, String reviewId) {
+        StringBuilder text = new StringBuilder();
+        text.append(stats.getCommentCount(reviewId)).append(" by ").append(stats.getAuthorCount(reviewId)).append(" authors (");
+        String[] states = PropertiesManager.getInstance().getInternalProperty(PropertiesManager.INTERNAL_KEYS.COMMENT_STATUS).split(",");
+        for (int i = 0; i < states.length; i++) {
+            text.append(i > 0 ? ", " : "").append(stats.getCommentCountByStatus(reviewId, i)).append(' ').append(states[i]);
+        }
+        text.append("), ").append(stats.getReplyCount(reviewId)).append(" replies");
+        return text.toString();
+    }
+    
+    /**
+     * Returns the state suffix of the statistics text of the given closed Review
+     * @param reviewId
+     * @return "(review archived)" or "(review closed)"
+     */
+    private static String getState(String reviewId) {
+        return ReviewAccess.getInstance().isReviewArchived(reviewId) ? "(review archived)" : "(review closed)";
+    }
+    
+    /**
+     * Counts the stored comments of the given closed (and possibly archived) Review. This reads all stored comments of the Review and should
+     * therefore not be called from the UI thread.
+     * @param reviewId
+     * @return the statistics text of the closed review
+     */
+    private static String getClosedStatistics(String reviewId) {
+        String state = getState(reviewId);
+        try {
+            return formatStatistics(ReviewAccess.getInstance().computeStatistics(reviewId), reviewId) + " " + state;
+        } catch (Exception e) {
+            PluginLogger.logError(ReviewDetail.class.toString(), "getClosedStatistics", "Could not read the comments of review " + reviewId, e);
+            return state;
+        }
+    }
+    
     @Override
     public void widgetSelected(SelectionEvent e) {
         try {
@@ -285,4 +409,29 @@ public class ReviewDetail extends AbstractDetail<Review> implements SelectionLis
         String[] rgb = prop.split(",");
         return new Color(PlatformUI.getWorkbench().getDisplay(), Integer.parseInt(rgb[0]), Integer.parseInt(rgb[1]), Integer.parseInt(rgb[2]));
     }
+    
+    /**
+     * Statistics text of a closed Review together with the stamp of the stored comments it was computed from
+     */
+    private static final class ClosedStatistics {
+        
+        /**
+         * Stamp of the stored comments, see {@link ReviewAccess#getCommentsStamp(String)}
+         */
+        private final long stamp;
+        /**
+         * The statistics text
+         */
+        private final String text;
+        
+        /**
+         * Creates a cached statistics text
+         * @param stamp stamp of the stored comments
+         * @param text the statistics text
+         */
+        private ClosedStatistics(long stamp, String text) {
+            this.stamp = stamp;
+            this.text = text;
+        }
+    }
 }
@@ -102,9 +102,6 @@ public class DeleteHandler extends AbstractHandler {
         } catch (NoReviewSourceFolderException e) {
             ExceptionHandler.handleNoReviewSourceFolderException();
         }
-        
-        // Refresh Review Explorer
-        ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER);
         return true;
     }
 }
\ No newline at end of file
@@ -14,6 +14,8 @@ import org.eclipse.ui.ide.IDE.SharedImages;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 
 import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewStatistics;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
 import de.tukl.cs.softech.agilereview.views.reviewexplorer.wrapper.AbstractMultipleWrapper;
 import de.tukl.cs.softech.agilereview.views.reviewexplorer.wrapper.MultipleFolderWrapper;
@@ -85,6 +87,15 @@ class RELabelProvider extends ColumnLabelProvider {
             if (wrap.getReviewId().equals(PropertiesManager.getPreferences().getString(PropertiesManager.EXTERNAL_KEYS.ACTIVE_REVIEW))) {
                 result = result + " (active)";
             }
+            // Comment counts are only known for open (loaded) reviews
+            if (wrap.isOpen()) {
+                ReviewStatistics stats = ReviewAccess.getInstance().getStatistics();
+                int total = stats.getCommentCount(wrap.getReviewId());
+                if (total > 0) {
+                    result = result + " [" + stats.getCommentCountByStatus(wrap.getReviewId(), 0) + "/" + total + " "
+                            + PropertiesManager.getInstance().getCommentStatusByID(0) + "]";
+                }
+            }
         } else if (element instanceof AbstractMultipleWrapper) {
             result = ((AbstractMultipleWrapper) element).getName();
         }
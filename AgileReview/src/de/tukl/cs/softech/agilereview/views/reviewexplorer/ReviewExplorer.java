@@ -1,6 +1,8 @@
 package de.tukl.cs.softech.agilereview.views.reviewexplorer;
 
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.NotEnabledException;
@@ -10,9 +12,12 @@ import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.jface.viewers.ITreeViewerListener;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TreeExpansionEvent;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.widgets.Composite;
@@ -20,11 +25,16 @@ import org.eclipse.swt.widgets.Menu;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.handlers.IHandlerService;
 import org.eclipse.ui.part.ViewPart;
+import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
 import org.eclipse.ui.services.ISourceProviderService;
 
 import agileReview.softech.tukl.de.ReviewDocument.Review;
 import de.tukl.cs.softech.agilereview.Activator;
+import de.tukl.cs.softech.agilereview.dataaccess.IModelChangeListener;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEvent;
+import de.tukl.cs.softech.agilereview.dataaccess.ModelEventBus;
 import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewLoadJob;
 import de.tukl.cs.softech.agilereview.plugincontrol.SourceProvider;
 import de.tukl.cs.softech.agilereview.tools.PluginLogger;
 import de.tukl.cs.softech.agilereview.tools.PropertiesManager;
@@ -35,7 +45,7 @@ import de.tukl.cs.softech.agilereview.views.reviewexplorer.wrapper.MultipleRevie
 /**
  * The Review Explorer is the view which shows all reviews as well as the files and folder which are commented in the corresponding reviews.
  */
-public class ReviewExplorer extends ViewPart implements IDoubleClickListener {
+public class ReviewExplorer extends ViewPart implements IDoubleClickListener, IModelChangeListener {
     
     /**
      * {@link ReviewAccess} for accessing xml data
@@ -85,6 +95,28 @@ public class ReviewExplorer extends ViewPart implements IDoubleClickListener {
         treeViewer.addSelectionChangedListener(ViewControl.getInstance());
         refreshInput();
         
+        // start parsing the comments of closed reviews as soon as the user shows interest in them
+        treeViewer.addSelectionChangedListener(new ISelectionChangedListener() {
+            @Override
+            public void selectionChanged(SelectionChangedEvent event) {
+                if (event.getSelection() instanceof IStructuredSelection) {
+                    for (Object o : ((IStructuredSelection) event.getSelection()).toArray()) {
+                        prefetch(o);
+                    }
+                }
+            }
+        });
+        treeViewer.addTreeListener(new ITreeViewerListener() {
+            @Override
+            public void treeExpanded(TreeExpansionEvent event) {
+                prefetch(event.getElement());
+            }
+            
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event) {
+            }
+        });
+        
         openFileAction = new REOpenAction(this.getSite().getPage(), treeViewer);
         
         treeViewer.addDoubleClickListener(this);
@@ -100,6 +132,25 @@ public class ReviewExplorer extends ViewPart implements IDoubleClickListener {
         
         // register view
         ViewControl.registerView(this.getClass());
+        ModelEventBus.addListener(this);
+        // show loading state while the source project is loaded
+        ((IWorkbenchSiteProgressService) getSite().getService(IWorkbenchSiteProgressService.class)).showBusyForFamily(ReviewLoadJob.FAMILY);
+    }
+    
+    @Override
+    public void dispose() {
+        ModelEventBus.removeListener(this);
+        super.dispose();
+    }
+    
+    /**
+     * Prefetches the comments of the given element, if it is a closed review
+     * @param element element of the tree
+     */
+    private void prefetch(Object element) {
+        if (element instanceof MultipleReviewWrapper && !((MultipleReviewWrapper) element).isOpen()) {
+            RA.prefetchReviewComments(((MultipleReviewWrapper) element).getReviewId());
+        }
     }
     
     /**
@@ -118,6 +169,39 @@ public class ReviewExplorer extends ViewPart implements IDoubleClickListener {
         this.treeViewer.getControl().redraw();
     }
     
+    /**
+     * Refreshes only the subtrees of the reviews affected by the given model changes. Moved paths may affect every review, so they cause a refresh
+     * of the whole tree (without reloading the input).
+     * @param events changes of the model
+     * @see de.tukl.cs.softech.agilereview.dataaccess.IModelChangeListener#modelChanged(java.util.List)
+     */
+    @Override
+    public void modelChanged(List<ModelEvent> events) {
+        if (this.treeViewer == null || this.treeViewer.getControl().isDisposed()) { return; }
+        HashSet<String> reviewIds = new HashSet<String>();
+        for (ModelEvent e : events) {
+            if (e.getType() == ModelEvent.Type.PATH_MOVED) {
+                refresh();
+                return;
+            }
+            reviewIds.add(e.getReviewId());
+        }
+        
+        PluginLogger.log(this.getClass().toString(), "modelChanged", "Refreshing the subtrees of the reviews " + reviewIds);
+        this.treeViewer.getControl().setRedraw(false);
+        Object[] expandedElements = this.treeViewer.getExpandedElements();
+        for (MultipleReviewWrapper wrap : this.root.getReviews()) {
+            if (reviewIds.contains(wrap.getReviewId())) {
+                wrap.setOpen(props.isReviewOpen(wrap.getReviewId()));
+                this.treeViewer.refresh(wrap);
+            }
+        }
+        for (Object o : expandedElements) {
+            this.treeViewer.expandToLevel(o, 1);
+        }
+        this.treeViewer.getControl().setRedraw(true);
+    }
+    
     /**
      * Sets the input of the ReviewExplorer completely new
      */
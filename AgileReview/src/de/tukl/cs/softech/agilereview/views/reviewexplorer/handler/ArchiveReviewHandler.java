@@ -0,0 +1,61 @@
+package de.tukl.cs.softech.agilereview.views.reviewexplorer.handler;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.handlers.HandlerUtil;
+
+import de.tukl.cs.softech.agilereview.dataaccess.ReviewAccess;
+import de.tukl.cs.softech.agilereview.plugincontrol.ExceptionHandler;
+import de.tukl.cs.softech.agilereview.plugincontrol.exceptions.NoReviewSourceFolderException;
+import de.tukl.cs.softech.agilereview.tools.PluginLogger;
+import de.tukl.cs.softech.agilereview.views.ViewControl;
+import de.tukl.cs.softech.agilereview.views.reviewexplorer.wrapper.MultipleReviewWrapper;
+
+/**
+ * Handler for archiving the closed reviews selected in the ReviewExplorer Active when: ReviewExplorer is activePart Enabled when: arbitrary number
+ * of MultipleReviewWrappers are selected
+ */
+public class ArchiveReviewHandler extends AbstractHandler {
+
+    @Override
+    public Object execute(ExecutionEvent event) throws ExecutionException {
+        PluginLogger.log(this.getClass().toString(), "execute", "\"Archive in ReviewExplorer selected review\" triggered");
+        ReviewAccess ra = ReviewAccess.getInstance();
+        ISelection sel = HandlerUtil.getCurrentSelection(event);
+        if (sel instanceof IStructuredSelection) {
+            for (Object o : ((IStructuredSelection) sel).toArray()) {
+                if (o instanceof MultipleReviewWrapper) {
+                    MultipleReviewWrapper selectedWrap = (MultipleReviewWrapper) o;
+                    // Only closed reviews can be archived, opening a review restores its comments
+                    if (selectedWrap.isOpen()) {
+                        continue;
+                    }
+                    try {
+                        ra.archiveReview(selectedWrap.getReviewId());
+                    } catch (NoReviewSourceFolderException e) {
+                        ExceptionHandler.handleNoReviewSourceFolderException();
+                        break;
+                    } catch (final CoreException e) {
+                        PluginLogger.logError(this.getClass().toString(), "execute", "CoreException while archiving review "
+                                + selectedWrap.getReviewId(), e);
+                        Display.getDefault().syncExec(new Runnable() {
+                            @Override
+                            public void run() {
+                                MessageDialog.openError(Display.getDefault().getActiveShell(), "AgileReview: Could not archive review", e
+                                        .getLocalizedMessage());
+                            }
+                        });
+                    }
+                }
+            }
+            ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER);
+        }
+        return null;
+    }
+}
@@ -80,7 +80,6 @@ public class OpenCloseReviewHandler extends AbstractHandler {
                 sp1.setVariable(SourceProvider.CONTAINS_CLOSED_REVIEW, containsClosedReview);
                 
                 ViewControl.refreshViews(ViewControl.REVIEW_EXPLORER);
-                ViewControl.refreshViews(ViewControl.COMMMENT_TABLE_VIEW, true);
             }
         }
         return null;
@@ -2,6 +2,9 @@ package de.tukl.cs.softech.agilereview.wizards.newreview;
 
 import java.io.IOException;
 
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.wizard.Wizard;
 import org.eclipse.ui.INewWizard;
@@ -53,29 +56,50 @@ public class NewReviewWizard extends Wizard implements INewWizard {
      */
     @Override
     public boolean performFinish() {
-        boolean result = false;
+        final boolean[] result = { false };
         try {
-            Review newRev = ReviewAccess.getInstance().createNewReview(this.page1.getReviewID());
-            if (newRev != null) {
-                newRev.setReferenceId(this.page1.getReviewReference());
-                newRev.setDescription(this.page1.getReviewDescription());
-                PersonInCharge piC = PersonInCharge.Factory.newInstance();
-                piC.setName(this.page1.getReviewResponsibility());
-                newRev.setPersonInCharge(piC);
-                
-                if (ViewControl.isOpen(ReviewExplorer.class)) {
-                    ReviewExplorer.getInstance().addReview(newRev);
+            // create the review folder and file and save the review in one workspace operation
+            ReviewAccess.runInSourceProject(new IWorkspaceRunnable() {
+                @Override
+                public void run(IProgressMonitor monitor) {
+                    try {
+                        result[0] = createReview();
+                    } catch (IOException e) {
+                        PluginLogger.logError(NewReviewWizard.class.toString(), "performFinish", "Exception thrown while created a new Review", e);
+                    } catch (NoReviewSourceFolderException e) {
+                        ExceptionHandler.handleNoReviewSourceFolderException();
+                    }
                 }
-                ReviewAccess.getInstance().save(newRev);
-                result = true;
-            }
-        } catch (IOException e) {
-            PluginLogger.logError(this.getClass().toString(), "performFinish", "Exception thrown while created a new Review", e);
+            });
+        } catch (CoreException e) {
+            PluginLogger.logError(this.getClass().toString(), "performFinish", "CoreException thrown while created a new Review", e);
         } catch (NoReviewSourceFolderException e) {
             ExceptionHandler.handleNoReviewSourceFolderException();
         }
         
-        return result;
+        return result[0];
+    }
+    
+    /**
+     * Creates and saves the new review as specified on the wizard page
+     * @return <i>true</i> if the review has been created, <i>false</i> if the review id is already in use
+     * @throws IOException if the review could not be saved
+     * @throws NoReviewSourceFolderException will be thrown if no review source folder had been defined beforehand
+     */
+    private boolean createReview() throws IOException, NoReviewSourceFolderException {
+        Review newRev = ReviewAccess.getInstance().createNewReview(this.page1.getReviewID());
+        if (newRev == null) { return false; }
+        newRev.setReferenceId(this.page1.getReviewReference());
+        newRev.setDescription(this.page1.getReviewDescription());
+        PersonInCharge piC = PersonInCharge.Factory.newInstance();
+        piC.setName(this.page1.getReviewResponsibility());
+        newRev.setPersonInCharge(piC);
+        
+        if (ViewControl.isOpen(ReviewExplorer.class)) {
+            ReviewExplorer.getInstance().addReview(newRev);
+        }
+        ReviewAccess.getInstance().save(newRev);
+        return true;
     }
     
     /**
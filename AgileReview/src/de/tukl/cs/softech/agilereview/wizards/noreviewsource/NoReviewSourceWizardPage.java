@@ -208,8 +208,6 @@ final class NoReviewSourceWizardPage extends WizardPage implements Listener {
                 try {
                     // TODO: use ProgressMonitor here
                     p.open(null);
-                    while (!p.isOpen()) {
-                    }
                     updateComboBoxes(p.getName());
                 } catch (CoreException e) {
                     setErrorMessage(e.getLocalizedMessage());
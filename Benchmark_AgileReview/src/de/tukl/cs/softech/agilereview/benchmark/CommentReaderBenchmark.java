@@ -0,0 +1,209 @@
+package de.tukl.cs.softech.agilereview.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+
+import agileReview.softech.tukl.de.CommentDocument.Comment;
+import agileReview.softech.tukl.de.CommentsDocument;
+import agileReview.softech.tukl.de.FileDocument;
+import agileReview.softech.tukl.de.FolderDocument.Folder;
+import agileReview.softech.tukl.de.ProjectDocument.Project;
+import de.tukl.cs.softech.agilereview.dataaccess.StreamingCommentReader;
+
+/**
+ * Compares the {@link StreamingCommentReader} with parsing an author file by XmlBeans and selecting the comments by XPath (as done when loading
+ * the model before) or by walking the document with a cursor (as done when loading the model now). This benchmark runs outside of Eclipse and
+ * only needs the XmlBeans libraries of the plugin and the {@link StreamingCommentReader} on the classpath.<br>
+ * Usage: <code>CommentReaderBenchmark [author files...]</code>. If no files are given, a synthetic author file of several MB is generated.
+ */
+public class CommentReaderBenchmark {
+
+    /**
+     * Number of measured runs per file and reader
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * Number of comments of the generated author file
+     */
+    private static final int GENERATED_COMMENTS = 20000;
+
+    /**
+     * Runs the benchmark
+     * @param args author files to be read
+     * @throws Exception if a file could not be read
+     */
+    public static void main(String[] args) throws Exception {
+        File[] files;
+        if (args.length == 0) {
+            File generated = File.createTempFile("author_benchmark", ".xml");
+            generated.deleteOnExit();
+            generate(generated, GENERATED_COMMENTS);
+            files = new File[] { generated };
+        } else {
+            files = new File[args.length];
+            for (int i = 0; i < args.length; i++) {
+                files[i] = new File(args[i]);
+            }
+        }
+
+        for (File f : files) {
+            // warm up both readers
+            int xpathCount = readXPath(f);
+            int cursorCount = readCursor(f);
+            int staxCount = readStax(f);
+            if (xpathCount != staxCount || cursorCount != staxCount) {
+                System.err.println(f + ": XPath found " + xpathCount + ", cursor found " + cursorCount + ", StAX found " + staxCount + " comments");
+            }
+
+            long xpathTime = 0;
+            long cursorTime = 0;
+            long staxTime = 0;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                readXPath(f);
+                xpathTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                readCursor(f);
+                cursorTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                readStax(f);
+                staxTime += System.nanoTime() - start;
+            }
+            System.out.println(String.format("%s (%.1f MB, %d comments): XmlBeans+XPath %.1f ms, XmlBeans+cursor %.1f ms, StAX %.1f ms", f
+                    .getName(), f.length() / (1024.0 * 1024.0), staxCount, xpathTime / (RUNS * 1e6), cursorTime / (RUNS * 1e6), staxTime
+                    / (RUNS * 1e6)));
+        }
+    }
+
+    /**
+     * Reads the given file with XmlBeans and selects all comments by XPath
+     * @param f author file
+     * @return number of comments
+     * @throws Exception if the file could not be read
+     */
+    private static int readXPath(File f) throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(f));
+        try {
+            CommentsDocument doc = CommentsDocument.Factory.parse(in);
+            XmlObject[] comments = doc.getComments().selectPath("declare namespace s='http://de.tukl.softech.agileReview'; $this//s:comment");
+            return comments.length;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the given file with XmlBeans and collects all comments with a cursor
+     * @param f author file
+     * @return number of comments
+     * @throws Exception if the file could not be read
+     */
+    private static int readCursor(File f) throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(f));
+        try {
+            CommentsDocument doc = CommentsDocument.Factory.parse(in);
+            XmlCursor c = doc.getComments().getFiles().newCursor();
+            try {
+                return countComments(c);
+            } finally {
+                c.dispose();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Counts the comments below the node the given cursor is pointing to
+     * @param c cursor pointing to the files, a project, folder or file node
+     * @return number of comments
+     */
+    private static int countComments(XmlCursor c) {
+        int count = 0;
+        if (!c.toFirstChild()) { return count; }
+        do {
+            XmlObject o = c.getObject();
+            if (o instanceof Comment) {
+                count++;
+            } else if (o instanceof Project || o instanceof Folder || o instanceof FileDocument.File) {
+                count += countComments(c);
+            }
+        } while (c.toNextSibling());
+        c.toParent();
+        return count;
+    }
+
+    /**
+     * Reads the given file with the {@link StreamingCommentReader}
+     * @param f author file
+     * @return number of comments
+     * @throws Exception if the file could not be read
+     */
+    private static int readStax(File f) throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(f));
+        try {
+            return StreamingCommentReader.read(in, new StreamingCommentReader.CommentVisitor() {
+                @Override
+                public void visitComment(StreamingCommentReader.StreamedComment comment) {
+                    // only count
+                }
+            });
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Generates a synthetic author file
+     * @param f file to be written
+     * @param comments number of comments
+     * @throws IOException if the file could not be written
+     */
+    private static void generate(File f, int comments) throws IOException {
+        Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+        try {
+            w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            w.write("<comments xmlns=\"http://de.tukl.softech.agileReview\">\n");
+            w.write("  <author name=\"benchmark\"/>\n  <files>\n");
+            int id = 0;
+            for (int p = 0; id < comments; p++) {
+                w.write("    <project name=\"project" + p + "\">\n");
+                for (int d = 0; d < 10 && id < comments; d++) {
+                    w.write("      <folder name=\"src\">\n        <folder name=\"package" + d + "\">\n");
+                    for (int file = 0; file < 20 && id < comments; file++) {
+                        w.write("          <file name=\"Class" + file + ".java\">\n");
+                        for (int c = 0; c < 5 && id < comments; c++, id++) {
+                            w.write("            <comment id=\"c" + id + "\" reviewID=\"benchmark\" author=\"benchmark\" recipient=\"someone\""
+                                    + " status=\"0\" priority=\"1\" revision=\"1\" creation-date=\"2011-10-29T10:51:00\""
+                                    + " last-modified=\"2011-10-29T10:51:00\">\n");
+                            w.write("              <text>This is the text of comment " + id
+                                    + ". It is long enough to resemble a real review comment with some explanation.</text>\n");
+                            w.write("              <replies>\n");
+                            for (int r = 0; r < 2; r++) {
+                                w.write("                <reply author=\"someone\" creation-date=\"2011-10-30T10:51:00\">Reply " + r
+                                        + " to comment " + id + "</reply>\n");
+                            }
+                            w.write("              </replies>\n            </comment>\n");
+                        }
+                        w.write("          </file>\n");
+                    }
+                    w.write("        </folder>\n      </folder>\n");
+                }
+                w.write("    </project>\n");
+            }
+            w.write("  </files>\n</comments>\n");
+        } finally {
+            w.close();
+        }
+    }
+}